@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks appending 200 byte records to an {@link EventLog}, syncing after every
+ * {@code syncEvery} appends of a thread. With several threads, concurrent syncs share a
+ * flush. A new log is opened in a temporary directory for every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EventLogBenchmarks {
+
+	@Param({ "1", "100", "1000" })
+	int syncEvery;
+
+	private final byte[] payload = new byte[200];
+
+	private EventLog log;
+
+	@Setup(Level.Iteration)
+	public void open() throws IOException {
+		Arrays.fill(this.payload, (byte) 'x');
+		this.log = EventLog.openTemporary(64 * 1024 * 1024);
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() throws IOException {
+		this.log.close();
+	}
+
+	@Benchmark
+	public long append(ThreadAppends appends) throws IOException {
+		return appends.append(this.log, this.payload, this.syncEvery);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long appendFromFourThreads(ThreadAppends appends) throws IOException {
+		return appends.append(this.log, this.payload, this.syncEvery);
+	}
+
+	/**
+	 * Counts the appends of one benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadAppends {
+
+		private int count;
+
+		long append(EventLog log, byte[] payload, int syncEvery) throws IOException {
+			long offset = log.append(payload);
+			if (++this.count % syncEvery == 0) {
+				log.sync();
+			}
+			return offset;
+		}
+
+	}
+
+}
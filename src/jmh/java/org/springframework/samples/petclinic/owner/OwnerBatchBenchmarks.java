@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.samples.petclinic.owner.OwnerDetails.PetDetails;
+import org.springframework.samples.petclinic.owner.OwnerDetails.VisitDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmarks loading owners with their pets and visits through {@link OwnerBatchLoader},
+ * against looking each of them up with {@link OwnerRepository#findById} as repeated
+ * {@code /owners/{id}} requests do. Runs against the embedded H2 database, filled with
+ * owners having two pets with three visits each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OwnerBatchBenchmarks {
+
+	private static final int OWNERS = 500;
+
+	@Param({ "10", "100", "500" })
+	int ownerCount;
+
+	private ConfigurableApplicationContext context;
+
+	private OwnerBatchLoader loader;
+
+	private OwnerRepository owners;
+
+	private TransactionTemplate transactionTemplate;
+
+	private List<Integer> ids;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		SpringApplication application = new SpringApplication(PetClinicApplication.class);
+		application.setWebApplicationType(WebApplicationType.NONE);
+		this.context = application.run("--spring.docker.compose.enabled=false", "--logging.level.root=WARN");
+		JdbcTemplate jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+		for (int i = 0; i < OWNERS; i++) {
+			jdbcTemplate.update("INSERT INTO owners (first_name, last_name, address, city, telephone) "
+					+ "VALUES ('First', ?, 'Main St.', 'Madison', '6085550000')", "Last" + i);
+			for (int p = 0; p < 2; p++) {
+				jdbcTemplate.update("INSERT INTO pets (name, birth_date, type_id, owner_id) "
+						+ "VALUES (?, '2020-01-01', 1, (SELECT MAX(id) FROM owners))", "Pet" + p);
+				for (int v = 0; v < 3; v++) {
+					jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) "
+							+ "VALUES ((SELECT MAX(id) FROM pets), '2021-01-01', 'check-up')");
+				}
+			}
+		}
+		this.loader = this.context.getBean(OwnerBatchLoader.class);
+		this.owners = this.context.getBean(OwnerRepository.class);
+		this.transactionTemplate = new TransactionTemplate(this.context.getBean(PlatformTransactionManager.class));
+		this.transactionTemplate.setReadOnly(true);
+		int first = jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class) - OWNERS + 1;
+		this.ids = IntStream.range(first, first + this.ownerCount).boxed().toList();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<OwnerDetails> loadInBatches() {
+		return this.loader.load(this.ids);
+	}
+
+	@Benchmark
+	public List<OwnerDetails> loadOneByOne() {
+		List<OwnerDetails> details = new ArrayList<>(this.ids.size());
+		for (Integer id : this.ids) {
+			// one transaction per owner, as one request per owner would
+			details.add(this.transactionTemplate.execute((status) -> details(this.owners.findById(id).orElseThrow())));
+		}
+		return details;
+	}
+
+	private static OwnerDetails details(Owner owner) {
+		List<PetDetails> pets = owner.getPets()
+			.stream()
+			.map((pet) -> new PetDetails(pet.getId(), pet.getName(), pet.getBirthDate(), pet.getType().getName(),
+					pet.getVisits()
+						.stream()
+						.map((visit) -> new VisitDetails(visit.getId(), visit.getDate(), visit.getDescription()))
+						.toList()))
+			.toList();
+		return new OwnerDetails(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+				owner.getCity(), owner.getTelephone(), pets);
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the pet lookups of {@link Owner}, which are linear in the number of
+ * pets. The last pet is looked up so that the whole list is scanned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OwnerBenchmarks {
+
+	@Param({ "1", "10", "100", "1000" })
+	int petCount;
+
+	private Owner owner;
+
+	private String lastPetName;
+
+	private Integer lastPetId;
+
+	@Setup
+	public void setup() {
+		this.owner = new Owner();
+		PetType dog = new PetType();
+		dog.setId(2);
+		dog.setName("dog");
+		for (int i = 1; i <= this.petCount; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + i);
+			pet.setType(dog);
+			pet.setBirthDate(LocalDate.of(2020, 1, 1));
+			this.owner.addPet(pet);
+			pet.setId(i);
+		}
+		this.lastPetName = "pet " + this.petCount;
+		this.lastPetId = this.petCount;
+	}
+
+	@Benchmark
+	public Pet getPetByName() {
+		return this.owner.getPet(this.lastPetName);
+	}
+
+	@Benchmark
+	public Pet getPetById() {
+		return this.owner.getPet(this.lastPetId);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.samples.petclinic.stats.VisitAnalyticsQuery.Dimension;
+
+/**
+ * Benchmarks queries of the {@link VisitAnalytics} columnar snapshot, against a
+ * synthetic snapshot of up to 50 million visits spread over ten years, 10 pet types and
+ * 1000 cities, so that the time of a query over the whole visit history can be checked
+ * against the "well under a second" target without a database of that size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VisitAnalyticsBenchmarks {
+
+	private static final int PET_TYPES = 10;
+
+	private static final int CITIES = 1000;
+
+	@Param({ "1000000", "50000000" })
+	int visitCount;
+
+	private VisitAnalytics.Snapshot snapshot;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		SplittableRandom random = new SplittableRandom(42);
+		int firstDay = (int) LocalDate.of(2015, 1, 1).toEpochDay();
+		VisitColumns.Builder builder = new VisitColumns.Builder(this.visitCount);
+		for (int id = 1; id <= this.visitCount; id++) {
+			int birthYear = (random.nextInt(20) == 0) ? 0 : 2000 + random.nextInt(20);
+			builder.add(id, firstDay + random.nextInt(3650), birthYear, random.nextInt(PET_TYPES),
+					random.nextInt(CITIES));
+		}
+		String[] petTypes = new String[PET_TYPES];
+		for (int i = 0; i < PET_TYPES; i++) {
+			petTypes[i] = "type" + i;
+		}
+		String[] cities = new String[CITIES];
+		for (int i = 0; i < CITIES; i++) {
+			cities[i] = "city" + i;
+		}
+		this.snapshot = new VisitAnalytics.Snapshot(List.of(builder.build()), petTypes, cities);
+	}
+
+	@Benchmark
+	public List<VisitGroup> groupByCohortTypeAndWeekday() {
+		return this.snapshot
+			.execute(new VisitAnalyticsQuery().groupBy(Dimension.BIRTH_YEAR, Dimension.PET_TYPE, Dimension.WEEKDAY));
+	}
+
+	@Benchmark
+	public List<VisitGroup> groupByCityAndMonth() {
+		return this.snapshot.execute(new VisitAnalyticsQuery().groupBy(Dimension.CITY, Dimension.MONTH));
+	}
+
+	@Benchmark
+	public List<VisitGroup> filterByTypeAndYear() {
+		return this.snapshot.execute(new VisitAnalyticsQuery().petType("type3")
+			.visitedBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31))
+			.groupBy(Dimension.CITY));
+	}
+
+}
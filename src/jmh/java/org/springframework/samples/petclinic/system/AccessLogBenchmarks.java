@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the cost of logging a request to the {@link AccessLog} on the request
+ * thread, with the writer thread formatting every line into a blackhole. Run with
+ * {@code -prof gc} to see the allocation rate of the request threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AccessLogBenchmarks {
+
+	private AccessLog accessLog;
+
+	@Setup(Level.Iteration)
+	public void start(Blackhole blackhole) {
+		this.accessLog = new AccessLog(8192, blackhole::consume);
+		this.accessLog.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void close() throws InterruptedException {
+		this.accessLog.close();
+	}
+
+	@Benchmark
+	public boolean log() {
+		return this.accessLog.log(System.currentTimeMillis(), "GET", "/owners/{ownerId}", "/owners/6", 200, 1_834_000,
+				"OwnerController.showOwner", "127.0.0.1");
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean logFromFourThreads() {
+		return log();
+	}
+
+}
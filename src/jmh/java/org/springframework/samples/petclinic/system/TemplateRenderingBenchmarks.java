@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+
+/**
+ * Benchmarks for rendering the owner details and vet list pages with the application
+ * templates and a cached template engine, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TemplateRenderingBenchmarks {
+
+	private SpringTemplateEngine engine;
+
+	private WebContext ownerDetails;
+
+	private WebContext vetList;
+
+	@Setup
+	public void setup() {
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".html");
+		resolver.setTemplateMode(TemplateMode.HTML);
+		resolver.setCacheable(true);
+		this.engine = new SpringTemplateEngine();
+		this.engine.setTemplateResolver(resolver);
+		this.ownerDetails = context("/owners/1", Map.of("owner", owner()));
+		this.vetList = context("/vets.html",
+				Map.of("listVets", vets(), "currentPage", 1, "totalPages", 2, "totalItems", 10L));
+	}
+
+	@Benchmark
+	public String renderOwnerDetails() {
+		return this.engine.process("owners/ownerDetails", this.ownerDetails);
+	}
+
+	@Benchmark
+	public String renderVetList() {
+		return this.engine.process("vets/vetList", this.vetList);
+	}
+
+	private static WebContext context(String requestUri, Map<String, Object> model) {
+		MockServletContext servletContext = new MockServletContext();
+		IWebExchange exchange = JakartaServletWebApplication.buildApplication(servletContext)
+			.buildExchange(new MockHttpServletRequest(servletContext, "GET", requestUri),
+					new MockHttpServletResponse());
+		return new WebContext(exchange, Locale.ENGLISH, model);
+	}
+
+	private static Owner owner() {
+		Owner owner = new Owner();
+		owner.setId(1);
+		owner.setFirstName("George");
+		owner.setLastName("Franklin");
+		owner.setAddress("110 W. Liberty St.");
+		owner.setCity("Madison");
+		owner.setTelephone("6085551023");
+		PetType dog = new PetType();
+		dog.setName("dog");
+		for (int p = 1; p <= 3; p++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + p);
+			pet.setType(dog);
+			pet.setBirthDate(LocalDate.of(2015, p, 1));
+			for (int v = 1; v <= 5; v++) {
+				Visit visit = new Visit();
+				visit.setDate(LocalDate.of(2020, v, p));
+				visit.setDescription("checkup " + v);
+				pet.addVisit(visit);
+			}
+			owner.addPet(pet);
+			pet.setId(p);
+		}
+		return owner;
+	}
+
+	private static List<Vet> vets() {
+		Specialty radiology = new Specialty();
+		radiology.setName("radiology");
+		Specialty surgery = new Specialty();
+		surgery.setName("surgery");
+		List<Vet> vets = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			Vet vet = new Vet();
+			vet.setId(i);
+			vet.setFirstName("First" + i);
+			vet.setLastName("Last" + i);
+			if (i % 2 == 0) {
+				vet.addSpecialty(radiology);
+			}
+			if (i % 3 == 0) {
+				vet.addSpecialty(surgery);
+			}
+			vets.add(vet);
+		}
+		return vets;
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
+
+/**
+ * Benchmarks for {@link Vet#getSpecialties()}, which sorts on every call, and for the
+ * serialization of the {@link Vets} returned by the {@code /vets} resource in each of
+ * the formats it can be negotiated in. The payload size of each format is printed once
+ * per trial. The {@code writeVetsXml} benchmarks compare the JAXB and StAX message
+ * converters writing to a response body, run them with {@code -prof gc} to compare the
+ * allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VetBenchmarks {
+
+	@Param({ "6", "100" })
+	int vetCount;
+
+	private Vet vet;
+
+	private Vets vets;
+
+	private ObjectMapper objectMapper;
+
+	private ObjectMapper cborMapper;
+
+	private ObjectWriter protobufWriter;
+
+	private Marshaller marshaller;
+
+	private final HttpMessageConverter<Object> jaxbConverter = new Jaxb2RootElementHttpMessageConverter();
+
+	private final HttpMessageConverter<Vets> staxConverter = new VetsXmlHttpMessageConverter();
+
+	private final HttpOutputMessage response = new HttpOutputMessage() {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		@Override
+		public OutputStream getBody() {
+			return OutputStream.nullOutputStream();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+	};
+
+	@Setup
+	public void setup() throws Exception {
+		String[] names = { "surgery", "radiology", "dentistry" };
+		Specialty[] specialties = new Specialty[names.length];
+		for (int i = 0; i < names.length; i++) {
+			specialties[i] = new Specialty();
+			specialties[i].setId(i + 1);
+			specialties[i].setName(names[i]);
+		}
+		this.vets = new Vets();
+		for (int i = 1; i <= this.vetCount; i++) {
+			Vet vet = new Vet();
+			vet.setId(i);
+			vet.setFirstName("First" + i);
+			vet.setLastName("Last" + i);
+			for (int s = 0; s < i % (specialties.length + 1); s++) {
+				vet.addSpecialty(specialties[s]);
+			}
+			this.vets.getVetList().add(vet);
+		}
+		this.vet = new Vet();
+		for (Specialty specialty : specialties) {
+			this.vet.addSpecialty(specialty);
+		}
+		this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		this.cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+		ProtobufMapper protobufMapper = new ProtobufMapper();
+		Jackson2ObjectMapperBuilder.json().configure(protobufMapper);
+		this.protobufWriter = protobufMapper.writer(protobufMapper.generateSchemaFor(Vets.class));
+		this.marshaller = JAXBContext.newInstance(Vets.class).createMarshaller();
+		System.out.printf("%n%d vets: JSON %d bytes, XML %d bytes, CBOR %d bytes, Protocol Buffers %d bytes%n",
+				this.vetCount, serializeVetsToJson().length, serializeVetsToXml().length,
+				serializeVetsToCbor().length, serializeVetsToProtobuf().length);
+	}
+
+	@Benchmark
+	public List<Specialty> getSpecialties() {
+		return this.vet.getSpecialties();
+	}
+
+	@Benchmark
+	public byte[] serializeVetsToJson() throws Exception {
+		return this.objectMapper.writeValueAsBytes(this.vets);
+	}
+
+	@Benchmark
+	public byte[] serializeVetsToXml() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		this.marshaller.marshal(this.vets, output);
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public byte[] serializeVetsToCbor() throws Exception {
+		return this.cborMapper.writeValueAsBytes(this.vets);
+	}
+
+	@Benchmark
+	public byte[] serializeVetsToProtobuf() throws Exception {
+		return this.protobufWriter.writeValueAsBytes(this.vets);
+	}
+
+	@Benchmark
+	public HttpHeaders writeVetsXmlWithJaxb() throws Exception {
+		this.response.getHeaders().clear();
+		this.jaxbConverter.write(this.vets, MediaType.APPLICATION_XML, this.response);
+		return this.response.getHeaders();
+	}
+
+	@Benchmark
+	public HttpHeaders writeVetsXmlWithStax() throws Exception {
+		this.response.getHeaders().clear();
+		this.staxConverter.write(this.vets, MediaType.APPLICATION_XML, this.response);
+		return this.response.getHeaders();
+	}
+
+}
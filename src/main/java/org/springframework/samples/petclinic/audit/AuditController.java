@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Returns the audit trail of an owner as JSON: {@code GET /owners/{ownerId}/audit} lists
+ * the latest changes to the owner, the owner's pets and their visits, most recent first.
+ * Changes are written in the background, so the most recent ones may take up to the flush
+ * interval to appear.
+ */
+@Controller
+class AuditController {
+
+	static final int MAX_LIMIT = 500;
+
+	private final AuditTrail trail;
+
+	AuditController(AuditTrail trail) {
+		this.trail = trail;
+	}
+
+	@GetMapping(path = "/owners/{ownerId}/audit", produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody List<AuditEntry> showAuditTrail(@PathVariable int ownerId,
+			@RequestParam(defaultValue = "50") int limit) {
+		return this.trail.findByOwner(ownerId, Math.min(Math.max(limit, 1), MAX_LIMIT));
+	}
+
+}
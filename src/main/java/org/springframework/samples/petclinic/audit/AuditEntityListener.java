@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.samples.petclinic.owner.EntityChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Hands every committed insert, update or delete of an owner, pet or visit, as captured
+ * by the owner package's Hibernate listener, to the {@link AuditTrail}. Runs once the
+ * transaction has committed, so rolled back changes are not audited.
+ * <p>
+ * The actor is the authenticated user of the current request, or its client address, or
+ * {@code system} for changes made outside a web request.
+ *
+ * @see EntityChangedEvent
+ */
+@Component
+class AuditEntityListener {
+
+	private final AuditTrail trail;
+
+	AuditEntityListener(AuditTrail trail) {
+		this.trail = trail;
+	}
+
+	@TransactionalEventListener
+	void entityChanged(EntityChangedEvent event) {
+		Map<String, AuditRecord.Change> changes = new LinkedHashMap<>();
+		event.changes()
+			.forEach((name, change) -> changes.put(name, new AuditRecord.Change(change.oldValue(), change.newValue())));
+		this.trail.record(new AuditRecord(event.entityType(), event.entityId(), event.petId(), event.action(), changes,
+				actor(), Instant.now()));
+	}
+
+	private static String actor() {
+		if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+			HttpServletRequest request = attributes.getRequest();
+			return (request.getRemoteUser() != null) ? request.getRemoteUser() : request.getRemoteAddr();
+		}
+		return "system";
+	}
+
+}
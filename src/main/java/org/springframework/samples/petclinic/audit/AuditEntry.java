@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * A change read back from the <code>audit_log</code> table.
+ *
+ * @param entityType the simple name of the entity class
+ * @param entityId the id of the entity
+ * @param action {@code INSERT}, {@code UPDATE} or {@code DELETE}
+ * @param changes the old and new values of the changed properties, as JSON
+ * @param actor who made the change
+ * @param changedAt when the change was committed
+ */
+record AuditEntry(String entityType, Integer entityId, String action, @JsonRawValue String changes, String actor,
+		Instant changedAt) {
+
+}
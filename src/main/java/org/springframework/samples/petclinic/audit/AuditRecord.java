@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import java.time.Instant;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A change to an owner, pet or visit waiting in the {@link AuditTrail} queue.
+ *
+ * @param entityType the simple name of the entity class
+ * @param entityId the id of the entity
+ * @param petId the id of the pet the entity is or belongs to, {@code null} for owners
+ * @param action {@code INSERT}, {@code UPDATE} or {@code DELETE}
+ * @param changes the old and new values of the changed properties, by property name
+ * @param actor who made the change
+ * @param time when the change was committed
+ */
+record AuditRecord(String entityType, Integer entityId, Integer petId, String action, Map<String, Change> changes,
+		String actor, Instant time) {
+
+	/**
+	 * The values of a property before and after the change, {@code null} when it had
+	 * none.
+	 */
+	record Change(@JsonProperty("old") String oldValue, @JsonProperty("new") String newValue) {
+
+	}
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the audit trail of the changes made to owners, pets and visits in the
+ * <code>audit_log</code> table, without adding a write to the transactions making the
+ * changes.
+ * <p>
+ * Committed changes are {@link #record recorded} into a lock-free queue and written by a
+ * single background thread, in batches of up to {@code petclinic.audit.batch-size} rows
+ * per transaction, every {@code petclinic.audit.flush-interval} or as soon as a batch is
+ * full. The queue holds at most {@code petclinic.audit.capacity} changes, which bounds
+ * what is lost when the application stops abruptly. When it is full the
+ * {@code petclinic.audit.overflow} policy applies: {@link Overflow#DROP} discards the
+ * change, counted by the {@code petclinic.audit.dropped} metric, while
+ * {@link Overflow#WRITE_THROUGH} writes it on the committing thread instead, trading
+ * latency for completeness. A batch that cannot be written is dropped as well.
+ *
+ * @see AuditEntityListener
+ */
+@Component
+class AuditTrail {
+
+	/**
+	 * What to do with a change when the queue is full.
+	 */
+	enum Overflow {
+
+		DROP, WRITE_THROUGH
+
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditTrail.class);
+
+	private static final String INSERT = """
+			INSERT INTO audit_log (owner_id, entity_type, entity_id, action, changes, actor, changed_at)
+			VALUES (?, ?, ?, ?, ?, ?, ?)
+			""";
+
+	private static final String PET_OWNERS = "SELECT id, owner_id FROM pets WHERE id IN (:ids)";
+
+	private static final String SELECT_BY_OWNER = """
+			SELECT entity_type, entity_id, action, changes, actor, changed_at FROM audit_log
+			WHERE owner_id = ?
+			ORDER BY changed_at DESC, id DESC
+			LIMIT ?
+			""";
+
+	private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final Executor executor;
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final Overflow overflow;
+
+	@Autowired
+	AuditTrail(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			ObjectProvider<MeterRegistry> registry, @Value("${petclinic.audit.capacity:10000}") int capacity,
+			@Value("${petclinic.audit.batch-size:500}") int batchSize,
+			@Value("${petclinic.audit.flush-interval:200ms}") Duration flushInterval,
+			@Value("${petclinic.audit.overflow:drop}") Overflow overflow) {
+		this(dataSource, transactionManager, objectMapper,
+				Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("audit-writer-")), capacity,
+				batchSize, overflow);
+		((ScheduledExecutorService) this.executor).scheduleWithFixedDelay(this::flush, flushInterval.toMillis(),
+				flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+		registry.ifAvailable(this::registerMetrics);
+	}
+
+	AuditTrail(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+			Executor executor, int capacity, int batchSize, Overflow overflow) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		// write-through runs while the audited transaction is completing
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.objectMapper = objectMapper;
+		this.executor = executor;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.overflow = overflow;
+	}
+
+	private void registerMetrics(MeterRegistry registry) {
+		Gauge.builder("petclinic.audit.pending", this.size, AtomicInteger::get)
+			.description("Audited changes waiting to be written")
+			.register(registry);
+		FunctionCounter.builder("petclinic.audit.dropped", this.dropped, LongAdder::sum)
+			.description("Audited changes lost because the queue was full or the write failed")
+			.register(registry);
+	}
+
+	/**
+	 * Queue a committed change to be written.
+	 * @param record the change
+	 */
+	void record(AuditRecord record) {
+		int queued = this.size.incrementAndGet();
+		if (queued > this.capacity) {
+			this.size.decrementAndGet();
+			if (this.overflow == Overflow.WRITE_THROUGH) {
+				writeBatch(List.of(record));
+			}
+			else {
+				this.dropped.increment();
+			}
+			return;
+		}
+		this.queue.offer(record);
+		if (queued >= this.batchSize && this.flushRequested.compareAndSet(false, true)) {
+			this.executor.execute(this::flush);
+		}
+	}
+
+	/**
+	 * Write all queued changes.
+	 */
+	void flush() {
+		this.flushRequested.set(false);
+		List<AuditRecord> batch;
+		do {
+			batch = new ArrayList<>();
+			AuditRecord record;
+			while (batch.size() < this.batchSize && (record = this.queue.poll()) != null) {
+				batch.add(record);
+			}
+			this.size.addAndGet(-batch.size());
+			if (!batch.isEmpty()) {
+				writeBatch(batch);
+			}
+		}
+		while (batch.size() == this.batchSize);
+	}
+
+	private void writeBatch(List<AuditRecord> batch) {
+		try {
+			this.transactionTemplate.executeWithoutResult((status) -> write(batch));
+		}
+		catch (DataAccessException | IllegalStateException ex) {
+			this.dropped.add(batch.size());
+			logger.warn("Failed to write {} audited changes", batch.size(), ex);
+		}
+	}
+
+	private void write(List<AuditRecord> batch) {
+		Map<Integer, Integer> petOwners = petOwners(batch);
+		List<Object[]> rows = new ArrayList<>(batch.size());
+		for (AuditRecord record : batch) {
+			Integer ownerId = (record.petId() != null) ? petOwners.get(record.petId()) : record.entityId();
+			rows.add(new Object[] { ownerId, record.entityType(), record.entityId(), record.action(),
+					json(record.changes()), record.actor(), Timestamp.from(record.time()) });
+		}
+		this.jdbcTemplate.batchUpdate(INSERT, rows);
+	}
+
+	private Map<Integer, Integer> petOwners(List<AuditRecord> batch) {
+		Set<Integer> petIds = batch.stream()
+			.map(AuditRecord::petId)
+			.filter((petId) -> petId != null)
+			.collect(Collectors.toSet());
+		Map<Integer, Integer> owners = new HashMap<>();
+		if (!petIds.isEmpty()) {
+			this.namedParameterJdbcTemplate.query(PET_OWNERS, Map.of("ids", petIds),
+					(RowCallbackHandler) (rs) -> owners.put(rs.getInt("id"), (Integer) rs.getObject("owner_id")));
+		}
+		return owners;
+	}
+
+	private String json(Map<String, AuditRecord.Change> changes) {
+		try {
+			return this.objectMapper.writeValueAsString(changes);
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Cannot write audited changes as JSON", ex);
+		}
+	}
+
+	/**
+	 * Return the latest changes to an owner and to the owner's pets and their visits that
+	 * have been written.
+	 * @param ownerId the id of the owner
+	 * @param limit the maximum number of changes to return
+	 * @return the changes, most recent first
+	 */
+	List<AuditEntry> findByOwner(int ownerId, int limit) {
+		return this.jdbcTemplate.query(SELECT_BY_OWNER,
+				(rs, rowNum) -> new AuditEntry(rs.getString("entity_type"), rs.getInt("entity_id"),
+						rs.getString("action"), rs.getString("changes"), rs.getString("actor"),
+						rs.getTimestamp("changed_at").toInstant()),
+				ownerId, limit);
+	}
+
+	/**
+	 * Return the number of changes lost so far.
+	 */
+	long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	@PreDestroy
+	void close() throws InterruptedException {
+		if (this.executor instanceof ExecutorService executorService) {
+			executorService.shutdown();
+			executorService.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		flush();
+	}
+
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.springframework.util.Assert;
+
+/**
+ * An append-only log of records kept in memory-mapped segment files. Every record is
+ * assigned the next offset, so offsets are dense and increase monotonically across
+ * restarts.
+ * <p>
+ * Each segment file is named after the offset of its first record and preallocated to the
+ * segment size. A record is a 16 byte header, holding the length of the payload, a
+ * CRC-32C of the offset and payload and the offset itself, followed by the payload. When
+ * a record does not fit in the rest of the active segment a new segment is started.
+ * <p>
+ * Appending only writes to the mapped memory. {@link #sync()} forces everything appended
+ * so far to disk, and appenders calling it concurrently share a single flush per dirty
+ * segment. Readers only see records that have been synced, and can either wait for new
+ * ones with a {@link Tail} or be called back by a {@link #addSyncListener sync listener}
+ * rather than hold a thread. When the log is opened the last segment is scanned and
+ * truncated after the last record whose offset and checksum are valid, which drops a
+ * record torn by a crash.
+ */
+public final class EventLog implements Closeable {
+
+	static final int HEADER_SIZE = 16;
+
+	private static final int INDEX_INTERVAL = 64;
+
+	private static final String SUFFIX = ".log";
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	private final boolean temporary;
+
+	private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	private final CRC32C checksum = new CRC32C();
+
+	private final Object syncMonitor = new Object();
+
+	private final Object durableMonitor = new Object();
+
+	private final List<Runnable> syncListeners = new CopyOnWriteArrayList<>();
+
+	private Segment active;
+
+	private long nextOffset;
+
+	private volatile long durableOffset;
+
+	private volatile boolean closed;
+
+	private EventLog(Path directory, int segmentSize, boolean temporary) throws IOException {
+		Assert.isTrue(segmentSize > HEADER_SIZE, "Segment size must be larger than a record header");
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.temporary = temporary;
+		Files.createDirectories(directory);
+		long offset = -1;
+		for (long baseOffset : baseOffsets(directory)) {
+			if (offset != -1 && baseOffset != offset) {
+				throw new IOException("Segment " + fileName(baseOffset) + " in " + directory
+						+ " does not follow the last valid record of the previous segment (offset " + (offset - 1)
+						+ ")");
+			}
+			Segment segment = Segment.open(directory.resolve(fileName(baseOffset)), baseOffset, segmentSize);
+			offset = segment.recover(this.checksum);
+			this.segments.put(baseOffset, segment);
+		}
+		if (this.segments.isEmpty()) {
+			offset = 0;
+			this.segments.put(0L, Segment.open(directory.resolve(fileName(0)), 0, segmentSize));
+		}
+		this.active = this.segments.lastEntry().getValue();
+		this.active.buffer.force();
+		this.nextOffset = offset;
+		this.durableOffset = offset;
+	}
+
+	/**
+	 * Open the log kept in the given directory, creating it if needed.
+	 * @param directory the directory holding the segment files
+	 * @param segmentSize the size of new segment files in bytes, which bounds the size of
+	 * a record
+	 * @return the opened log
+	 * @throws IOException if the segments cannot be read or mapped
+	 */
+	public static EventLog open(Path directory, int segmentSize) throws IOException {
+		return new EventLog(directory, segmentSize, false);
+	}
+
+	/**
+	 * Open a new log in a temporary directory that is deleted when the log is closed.
+	 * @param segmentSize the size of segment files in bytes
+	 * @return the opened log
+	 * @throws IOException if the directory cannot be created
+	 */
+	public static EventLog openTemporary(int segmentSize) throws IOException {
+		return new EventLog(Files.createTempDirectory("petclinic-events"), segmentSize, true);
+	}
+
+	/**
+	 * Append a record. It becomes visible to readers, and survives a crash, once
+	 * {@link #sync()} has been called.
+	 * @param payload the content of the record, not empty
+	 * @return the offset assigned to the record
+	 * @throws IOException if a new segment is needed and cannot be created
+	 */
+	public synchronized long append(byte[] payload) throws IOException {
+		Assert.isTrue(payload.length > 0, "Payload must not be empty");
+		Assert.isTrue(payload.length <= this.segmentSize - HEADER_SIZE,
+				() -> "Payload of " + payload.length + " bytes does not fit in a segment");
+		Assert.state(!this.closed, "Event log is closed");
+		int size = HEADER_SIZE + payload.length;
+		Segment segment = this.active;
+		if (size > segment.buffer.capacity() - segment.position) {
+			segment = roll();
+		}
+		long offset = this.nextOffset;
+		int position = segment.position;
+		MappedByteBuffer buffer = segment.buffer;
+		buffer.put(position + HEADER_SIZE, payload);
+		buffer.putLong(position + 8, offset);
+		buffer.putInt(position + 4, checksum(this.checksum, offset, payload));
+		buffer.putInt(position, payload.length);
+		segment.indexed(offset, position);
+		segment.position = position + size;
+		this.nextOffset = offset + 1;
+		return offset;
+	}
+
+	private Segment roll() throws IOException {
+		Segment previous = this.active;
+		if (previous.buffer.capacity() - previous.position >= Integer.BYTES) {
+			previous.buffer.putInt(previous.position, 0);
+		}
+		this.active = Segment.open(this.directory.resolve(fileName(this.nextOffset)), this.nextOffset,
+				this.segmentSize);
+		this.active.channel.force(true);
+		this.segments.put(this.nextOffset, this.active);
+		return this.active;
+	}
+
+	/**
+	 * Force all records appended so far to disk and make them visible to readers. A
+	 * caller finding its records already flushed by a concurrent caller returns without
+	 * flushing again.
+	 */
+	public void sync() {
+		long target;
+		synchronized (this) {
+			target = this.nextOffset;
+		}
+		if (target <= this.durableOffset) {
+			return;
+		}
+		synchronized (this.syncMonitor) {
+			if (target <= this.durableOffset) {
+				return;
+			}
+			long end;
+			List<Segment> dirty = new ArrayList<>();
+			List<Integer> positions = new ArrayList<>();
+			synchronized (this) {
+				end = this.nextOffset;
+				for (Segment segment : this.segments.tailMap(this.segments.floorKey(this.durableOffset)).values()) {
+					dirty.add(segment);
+					positions.add(segment.position);
+				}
+			}
+			for (int i = 0; i < dirty.size(); i++) {
+				dirty.get(i).force(positions.get(i));
+			}
+			this.durableOffset = end;
+		}
+		synchronized (this.durableMonitor) {
+			this.durableMonitor.notifyAll();
+		}
+		this.syncListeners.forEach(Runnable::run);
+	}
+
+	/**
+	 * Register a callback run on the syncing thread each time records become visible to
+	 * readers, and once the log is closed. It should return quickly, as appenders waiting
+	 * for the sync wait for it too.
+	 * @param listener the callback
+	 */
+	public void addSyncListener(Runnable listener) {
+		this.syncListeners.add(listener);
+	}
+
+	/**
+	 * Remove a callback registered with {@link #addSyncListener(Runnable)}.
+	 * @param listener the callback
+	 */
+	public void removeSyncListener(Runnable listener) {
+		this.syncListeners.remove(listener);
+	}
+
+	/**
+	 * Read synced records.
+	 * @param offset the offset of the first record to read, offsets before the start of
+	 * the log read from its start
+	 * @param maxRecords the maximum number of records to read
+	 * @return the records read, in offset order, empty when there are no records at or
+	 * after the offset yet
+	 */
+	public List<Entry> read(long offset, int maxRecords) {
+		Assert.state(!this.closed, "Event log is closed");
+		long end = this.durableOffset;
+		long current = Math.max(offset, getStartOffset());
+		if (current >= end || maxRecords <= 0) {
+			return List.of();
+		}
+		List<Entry> entries = new ArrayList<>((int) Math.min(maxRecords, end - current));
+		Segment segment = this.segments.floorEntry(current).getValue();
+		Long next = this.segments.higherKey(segment.baseOffset);
+		int position = segment.seek(current);
+		while (current < end && entries.size() < maxRecords) {
+			while (next != null && current == next) {
+				segment = this.segments.get(next);
+				next = this.segments.higherKey(next);
+				position = 0;
+			}
+			int length = segment.buffer.getInt(position);
+			byte[] payload = new byte[length];
+			segment.buffer.get(position + HEADER_SIZE, payload);
+			entries.add(new Entry(current, payload));
+			position += HEADER_SIZE + length;
+			current++;
+		}
+		return entries;
+	}
+
+	/**
+	 * Create a reader following the log from the given offset.
+	 * @param offset the offset of the first record to return
+	 * @return the new reader
+	 */
+	public Tail tail(long offset) {
+		return new Tail(offset);
+	}
+
+	/**
+	 * Return the directory holding the segment files.
+	 */
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Return the offset of the oldest record kept.
+	 */
+	public long getStartOffset() {
+		return this.segments.firstKey();
+	}
+
+	/**
+	 * Return the offset the next synced record will have, which is the number of records
+	 * readers can see when no segment has been removed.
+	 */
+	public long getEndOffset() {
+		return this.durableOffset;
+	}
+
+	/**
+	 * Return whether the log has been closed.
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * Return the number of segment files.
+	 */
+	public int getSegmentCount() {
+		return this.segments.size();
+	}
+
+	private boolean awaitRecords(long offset, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		synchronized (this.durableMonitor) {
+			while (this.durableOffset <= offset && !this.closed) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this.durableMonitor, remaining);
+			}
+		}
+		return this.durableOffset > offset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		sync();
+		synchronized (this) {
+			this.closed = true;
+			for (Segment segment : this.segments.values()) {
+				segment.channel.close();
+			}
+		}
+		synchronized (this.durableMonitor) {
+			this.durableMonitor.notifyAll();
+		}
+		this.syncListeners.forEach(Runnable::run);
+		if (this.temporary) {
+			for (long baseOffset : baseOffsets(this.directory)) {
+				Files.deleteIfExists(this.directory.resolve(fileName(baseOffset)));
+			}
+			Files.deleteIfExists(this.directory);
+		}
+	}
+
+	private static List<Long> baseOffsets(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map((file) -> file.getFileName().toString())
+				.filter((name) -> name.matches("\\d{20}\\" + SUFFIX))
+				.map((name) -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+				.sorted()
+				.toList();
+		}
+	}
+
+	private static String fileName(long baseOffset) {
+		return String.format("%020d%s", baseOffset, SUFFIX);
+	}
+
+	private static int checksum(CRC32C checksum, long offset, byte[] payload) {
+		checksum.reset();
+		updateOffset(checksum, offset);
+		checksum.update(payload);
+		return (int) checksum.getValue();
+	}
+
+	private static void updateOffset(CRC32C checksum, long offset) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			checksum.update((int) (offset >>> shift));
+		}
+	}
+
+	/**
+	 * A record read from the log.
+	 *
+	 * @param offset the offset of the record
+	 * @param payload the content of the record
+	 */
+	public record Entry(long offset, byte[] payload) {
+
+		@Override
+		public boolean equals(Object other) {
+			return this == other || (other instanceof Entry entry && this.offset == entry.offset
+					&& Arrays.equals(this.payload, entry.payload));
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.offset) * 31 + Arrays.hashCode(this.payload);
+		}
+
+		@Override
+		public String toString() {
+			return "Entry[offset=" + this.offset + ", " + this.payload.length + " bytes]";
+		}
+
+	}
+
+	/**
+	 * Reads the records of the log in order, waiting for new records to be synced.
+	 */
+	public final class Tail {
+
+		private long position;
+
+		private Tail(long position) {
+			this.position = position;
+		}
+
+		/**
+		 * Return the offset of the next record this reader will return.
+		 */
+		public synchronized long getPosition() {
+			return this.position;
+		}
+
+		/**
+		 * Return the next records, waiting for at least one to be synced.
+		 * @param maxRecords the maximum number of records to return
+		 * @param timeout how long to wait when there is no new record
+		 * @return the next records, empty if none was synced within the timeout or the
+		 * log was closed
+		 * @throws InterruptedException if interrupted while waiting
+		 */
+		public synchronized List<Entry> poll(int maxRecords, Duration timeout) throws InterruptedException {
+			if (!awaitRecords(this.position, timeout) || EventLog.this.closed) {
+				return List.of();
+			}
+			List<Entry> entries = read(this.position, maxRecords);
+			if (!entries.isEmpty()) {
+				this.position = entries.get(entries.size() - 1).offset() + 1;
+			}
+			return entries;
+		}
+
+	}
+
+	private static final class Segment {
+
+		private final long baseOffset;
+
+		private final FileChannel channel;
+
+		private final MappedByteBuffer buffer;
+
+		private long[] indexOffsets = new long[16];
+
+		private int[] indexPositions = new int[16];
+
+		private int indexSize;
+
+		private int position;
+
+		private int syncedPosition;
+
+		private Segment(long baseOffset, FileChannel channel, MappedByteBuffer buffer) {
+			this.baseOffset = baseOffset;
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		static Segment open(Path file, long baseOffset, int segmentSize) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			long size = channel.size();
+			int capacity = (size > 0) ? (int) Math.min(size, Integer.MAX_VALUE) : segmentSize;
+			return new Segment(baseOffset, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+		}
+
+		/**
+		 * Scan the records of the segment, stopping at the first record that is
+		 * incomplete, out of sequence or fails its checksum, which is cleared.
+		 * @return the offset following the last valid record
+		 */
+		long recover(CRC32C checksum) {
+			long offset = this.baseOffset;
+			int position = 0;
+			int capacity = this.buffer.capacity();
+			while (position + HEADER_SIZE <= capacity) {
+				int length = this.buffer.getInt(position);
+				if (length <= 0 || length > capacity - position - HEADER_SIZE
+						|| this.buffer.getLong(position + 8) != offset) {
+					break;
+				}
+				checksum.reset();
+				updateOffset(checksum, offset);
+				checksum.update(this.buffer.slice(position + HEADER_SIZE, length));
+				if (this.buffer.getInt(position + 4) != (int) checksum.getValue()) {
+					break;
+				}
+				indexed(offset, position);
+				position += HEADER_SIZE + length;
+				offset++;
+			}
+			if (capacity - position >= Integer.BYTES) {
+				this.buffer.putInt(position, 0);
+			}
+			this.position = position;
+			this.syncedPosition = position;
+			return offset;
+		}
+
+		/**
+		 * Remember the position of every {@value #INDEX_INTERVAL}th record, so that a
+		 * reader only has to skip a few records to find an offset.
+		 */
+		synchronized void indexed(long offset, int position) {
+			if ((offset - this.baseOffset) % INDEX_INTERVAL != 0) {
+				return;
+			}
+			if (this.indexSize == this.indexOffsets.length) {
+				this.indexOffsets = Arrays.copyOf(this.indexOffsets, this.indexSize * 2);
+				this.indexPositions = Arrays.copyOf(this.indexPositions, this.indexSize * 2);
+			}
+			this.indexOffsets[this.indexSize] = offset;
+			this.indexPositions[this.indexSize] = position;
+			this.indexSize++;
+		}
+
+		int seek(long offset) {
+			long current;
+			int position;
+			synchronized (this) {
+				int slot = Arrays.binarySearch(this.indexOffsets, 0, this.indexSize, offset);
+				if (slot < 0) {
+					slot = -slot - 2;
+				}
+				current = this.indexOffsets[slot];
+				position = this.indexPositions[slot];
+			}
+			while (current < offset) {
+				position += HEADER_SIZE + this.buffer.getInt(position);
+				current++;
+			}
+			return position;
+		}
+
+		void force(int position) {
+			if (position > this.syncedPosition) {
+				this.buffer.force(this.syncedPosition, position - this.syncedPosition);
+				this.syncedPosition = position;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Opens the {@link EventLog} the {@link OutboxRelay} appends domain events to. Without
+ * {@code petclinic.events.log-dir} the log is kept in a temporary directory removed on
+ * shutdown, like the data of the default in-memory database.
+ */
+@Configuration(proxyBeanMethods = false)
+class EventLogConfiguration {
+
+	@Bean
+	EventLog eventLog(@Value("${petclinic.events.log-dir:}") String logDir,
+			@Value("${petclinic.events.segment-size:64MB}") DataSize segmentSize) throws IOException {
+		int size = Math.toIntExact(segmentSize.toBytes());
+		return StringUtils.hasText(logDir) ? EventLog.open(Path.of(logDir), size) : EventLog.openTemporary(size);
+	}
+
+}
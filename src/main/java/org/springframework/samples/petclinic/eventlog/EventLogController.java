@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Reads the {@link EventLog}: {@code GET /events?from=0&limit=100} returns up to
+ * {@code limit} events starting at offset {@code from}, oldest first. With {@code wait} a
+ * reader that has caught up waits up to that many seconds for the next events instead of
+ * getting an empty list, so the log can be tailed by long polling from the offset
+ * following the last event received. A waiting request does not hold a servlet thread: it
+ * is completed when the log is synced past its offset, or with an empty list on timeout.
+ */
+@Controller
+class EventLogController {
+
+	static final int MAX_LIMIT = 1000;
+
+	static final int MAX_WAIT_SECONDS = 30;
+
+	private final EventLog log;
+
+	private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+	EventLogController(EventLog log) {
+		this.log = log;
+		log.addSyncListener(this::synced);
+	}
+
+	@GetMapping(path = "/events", produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody DeferredResult<List<LoggedEvent>> readEvents(@RequestParam(defaultValue = "0") long from,
+			@RequestParam(defaultValue = "100") int limit, @RequestParam(defaultValue = "0") int wait) {
+		int maxEvents = Math.min(Math.max(limit, 1), MAX_LIMIT);
+		List<LoggedEvent> events = read(from, maxEvents);
+		if (!events.isEmpty() || wait <= 0) {
+			DeferredResult<List<LoggedEvent>> result = new DeferredResult<>();
+			result.setResult(events);
+			return result;
+		}
+		DeferredResult<List<LoggedEvent>> result = new DeferredResult<>(
+				TimeUnit.SECONDS.toMillis(Math.min(wait, MAX_WAIT_SECONDS)), List.of());
+		Waiter waiter = new Waiter(from, maxEvents, result);
+		this.waiters.add(waiter);
+		result.onCompletion(() -> this.waiters.remove(waiter));
+		// events synced since they were read above
+		waiter.check();
+		return result;
+	}
+
+	private void synced() {
+		for (Waiter waiter : this.waiters) {
+			waiter.check();
+		}
+	}
+
+	private List<LoggedEvent> read(long from, int maxEvents) {
+		return this.log.read(from, maxEvents)
+			.stream()
+			.map((entry) -> new LoggedEvent(entry.offset(), new String(entry.payload(), StandardCharsets.UTF_8)))
+			.toList();
+	}
+
+	/**
+	 * A request waiting for the events from an offset.
+	 */
+	private final class Waiter {
+
+		private final long from;
+
+		private final int maxEvents;
+
+		private final DeferredResult<List<LoggedEvent>> result;
+
+		Waiter(long from, int maxEvents, DeferredResult<List<LoggedEvent>> result) {
+			this.from = from;
+			this.maxEvents = maxEvents;
+			this.result = result;
+		}
+
+		void check() {
+			if (this.result.isSetOrExpired()) {
+				return;
+			}
+			if (EventLogController.this.log.isClosed()) {
+				this.result.setResult(List.of());
+			}
+			else if (EventLogController.this.log.getEndOffset() > this.from) {
+				this.result.setResult(read(this.from, this.maxEvents));
+			}
+		}
+
+	}
+
+	/**
+	 * An event read from the log.
+	 *
+	 * @param offset the offset of the event in the log
+	 * @param event the event as relayed from the outbox
+	 */
+	record LoggedEvent(long offset, @JsonRawValue String event) {
+
+	}
+
+}
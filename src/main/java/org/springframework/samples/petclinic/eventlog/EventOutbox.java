@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerChangedEvent;
+import org.springframework.samples.petclinic.owner.PetChangedEvent;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * Captures the owners and pets created or updated and the visits booked as rows of the
+ * <code>event_outbox</code> table, inserted in the transaction making the change: an
+ * event is recorded if and only if its change commits. The {@link OutboxRelay} moves the
+ * rows to the {@link EventLog}.
+ * <p>
+ * The payload of a row is the event published by the owner package, as JSON.
+ */
+@Component
+class EventOutbox {
+
+	private static final String INSERT = "INSERT INTO event_outbox (event_type, payload, created_at) VALUES (?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	EventOutbox(DataSource dataSource, ObjectMapper objectMapper) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.objectMapper = objectMapper;
+	}
+
+	@EventListener
+	void ownerChanged(OwnerChangedEvent event) {
+		record(event.created() ? "OwnerCreated" : "OwnerUpdated", event);
+	}
+
+	@EventListener
+	void petChanged(PetChangedEvent event) {
+		record(event.created() ? "PetAdded" : "PetUpdated", event);
+	}
+
+	@EventListener
+	void visitBooked(VisitBookedEvent event) {
+		record("VisitBooked", event);
+	}
+
+	private void record(String type, Object event) {
+		Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+				"Domain events must be recorded within the transaction making the change");
+		try {
+			this.jdbcTemplate.update(INSERT, type, this.objectMapper.writeValueAsString(event),
+					Timestamp.from(Instant.now()));
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalArgumentException("Cannot write " + type + " event as JSON", ex);
+		}
+	}
+
+}
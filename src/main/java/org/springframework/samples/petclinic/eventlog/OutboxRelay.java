@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Moves the rows of the <code>event_outbox</code> table to the {@link EventLog}, every
+ * {@code petclinic.events.relay-interval}. A batch of rows is appended in id order,
+ * synced to disk with a single flush and only then deleted, in one transaction.
+ * <p>
+ * Delivery is at least once: when the application stops between the flush and the commit,
+ * the rows of the batch are appended again on the next start. Each logged event carries
+ * the id of its outbox row so that readers can skip duplicates. A single application
+ * instance is assumed to relay the outbox.
+ */
+@Component
+class OutboxRelay {
+
+	private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+	private static final String SELECT = "SELECT id, event_type, payload, created_at FROM event_outbox ORDER BY id";
+
+	private static final String DELETE = "DELETE FROM event_outbox WHERE id IN (:ids)";
+
+	private final EventLog log;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectMapper objectMapper;
+
+	private final int batchSize;
+
+	private final ScheduledExecutorService scheduler;
+
+	OutboxRelay(EventLog log, DataSource dataSource, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper, @Value("${petclinic.events.relay-batch-size:1000}") int batchSize,
+			@Value("${petclinic.events.relay-interval:100ms}") Duration interval) {
+		this.log = log;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setMaxRows(batchSize);
+		this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.objectMapper = objectMapper;
+		this.batchSize = batchSize;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("event-relay-"));
+		this.scheduler.scheduleWithFixedDelay(this::relayPending, interval.toMillis(), interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	private void relayPending() {
+		try {
+			while (relay() == this.batchSize) {
+				// keep draining a backlog
+			}
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Failed to relay outbox events to the event log, retrying", ex);
+		}
+	}
+
+	/**
+	 * Relay the oldest batch of outbox rows.
+	 * @return the number of rows appended to the event log
+	 */
+	int relay() {
+		return this.transactionTemplate.execute((status) -> {
+			List<Long> ids = new ArrayList<>();
+			this.jdbcTemplate.query(SELECT, (RowCallbackHandler) (rs) -> {
+				ids.add(rs.getLong("id"));
+				append(rs);
+			});
+			if (ids.isEmpty()) {
+				return 0;
+			}
+			this.log.sync();
+			this.namedParameterJdbcTemplate.update(DELETE, Map.of("ids", ids));
+			return ids.size();
+		});
+	}
+
+	private void append(ResultSet rs) throws SQLException {
+		ObjectNode event = this.objectMapper.createObjectNode();
+		event.put("id", rs.getLong("id"));
+		event.put("type", rs.getString("event_type"));
+		event.put("time", rs.getTimestamp("created_at").toInstant().toString());
+		event.putRawValue("data", new RawValue(rs.getString("payload")));
+		try {
+			this.log.append(this.objectMapper.writeValueAsBytes(event));
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Cannot write outbox event " + rs.getLong("id"), ex);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@PreDestroy
+	void close() throws InterruptedException {
+		this.scheduler.shutdown();
+		this.scheduler.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * A {@link Visit} moved to the <code>visits_archive</code> table by the
+ * {@link VisitArchiver}. Archived visits keep their id and are never changed.
+ */
+@Entity
+@Immutable
+@Table(name = "visits_archive")
+public class ArchivedVisit implements VisitEntry {
+
+	@Id
+	private Integer id;
+
+	@Column(name = "visit_date")
+	private LocalDate date;
+
+	private String description;
+
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "pet_id")
+	private Pet pet;
+
+	@Override
+	public Integer getId() {
+		return this.id;
+	}
+
+	@Override
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	@Override
+	public String getDescription() {
+		return this.description;
+	}
+
+	public Pet getPet() {
+		return this.pet;
+	}
+
+}
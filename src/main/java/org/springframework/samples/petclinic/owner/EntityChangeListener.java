@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The single place changes to owners, pets and visits are captured: a Hibernate listener
+ * that sees every row written, whichever repository method or dirty entity caused it, and
+ * publishes application events inside the writing transaction:
+ * <ul>
+ * <li>an {@link EntityChangedEvent} with the old and new values of the changed properties
+ * for every insert, update or delete of an {@link Owner}, {@link Pet} or {@link Visit};
+ * <li>an {@link OwnerChangedEvent} or a {@link PetChangedEvent} with the details of an
+ * inserted or updated owner or pet.
+ * </ul>
+ * Listeners needing only committed changes use a {@code TransactionalEventListener}.
+ * Inserts are seen as they are executed, updates when the session is flushed.
+ * Associations are recorded by id, pet types by name, collections and the summary columns
+ * of the owner not at all.
+ */
+@Component
+public class EntityChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	private static final Set<Class<?>> CAPTURED = Set.of(Owner.class, Pet.class, Visit.class);
+
+	// summary columns kept up to date by the application rather than changed by users
+	private static final Set<String> IGNORED = Set.of("petCount", "visitCount", "lastVisitDate");
+
+	private final EntityManagerFactory entityManagerFactory;
+
+	private final ApplicationEventPublisher events;
+
+	EntityChangeListener(EntityManagerFactory entityManagerFactory, ApplicationEventPublisher events) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.events = events;
+	}
+
+	@PostConstruct
+	void register() {
+		EventListenerRegistry registry = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.requireService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return false;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		changed(event.getEntity(), event.getId(), "INSERT", event.getPersister(), null, event.getState(),
+				event.getSession());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		changed(event.getEntity(), event.getId(), "UPDATE", event.getPersister(), event.getOldState(), event.getState(),
+				event.getSession());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		changed(event.getEntity(), event.getId(), "DELETE", event.getPersister(), event.getDeletedState(), null,
+				event.getSession());
+	}
+
+	private void changed(Object entity, Object id, String action, EntityPersister persister, Object[] oldState,
+			Object[] newState, EventSource session) {
+		if (!CAPTURED.contains(persister.getMappedClass())) {
+			return;
+		}
+		String[] names = persister.getPropertyNames();
+		Map<String, EntityChangedEvent.Change> changes = new LinkedHashMap<>();
+		for (int i = 0; i < names.length; i++) {
+			Object oldValue = (oldState != null) ? oldState[i] : null;
+			Object newValue = (newState != null) ? newState[i] : null;
+			if (IGNORED.contains(names[i]) || oldValue instanceof Collection || newValue instanceof Collection) {
+				continue;
+			}
+			String before = value(oldValue);
+			String after = value(newValue);
+			if (!Objects.equals(before, after)) {
+				changes.put(names[i], new EntityChangedEvent.Change(before, after));
+			}
+		}
+		if (changes.isEmpty()) {
+			return;
+		}
+		Integer entityId = (Integer) id;
+		this.events.publishEvent(new EntityChangedEvent(entity.getClass().getSimpleName(), entityId,
+				petId(entity, entityId), action, changes));
+		boolean created = "INSERT".equals(action);
+		if (entity instanceof Owner owner && newState != null) {
+			this.events.publishEvent(new OwnerChangedEvent(entityId, created, owner.getFirstName(), owner.getLastName(),
+					owner.getAddress(), owner.getCity(), owner.getTelephone()));
+		}
+		else if (entity instanceof Pet pet && newState != null) {
+			this.events.publishEvent(new PetChangedEvent(entityId, created, ownerId(session, pet), pet.getName(),
+					pet.getBirthDate(), (pet.getType() != null) ? pet.getType().getName() : null));
+		}
+	}
+
+	/**
+	 * Return the id of the owner whose pets include the given pet, looked up in the
+	 * session as the pet does not map its owner.
+	 */
+	private static Integer ownerId(EventSource session, Pet pet) {
+		return (Integer) session.getPersistenceContextInternal().getOwnerId(Owner.class.getName(), "pets", pet, null);
+	}
+
+	private static Integer petId(Object entity, Integer entityId) {
+		if (entity instanceof Pet) {
+			return entityId;
+		}
+		if (entity instanceof Visit visit) {
+			return (Integer) id(visit.getPet());
+		}
+		return null;
+	}
+
+	private static String value(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof PetType type) {
+			return type.getName();
+		}
+		Object id = id(value);
+		return (id != null) ? id.toString() : value.toString();
+	}
+
+	private static Object id(Object value) {
+		if (value instanceof HibernateProxy proxy) {
+			return proxy.getHibernateLazyInitializer().getIdentifier();
+		}
+		if (value instanceof BaseEntity entity) {
+			return entity.getId();
+		}
+		return null;
+	}
+
+}
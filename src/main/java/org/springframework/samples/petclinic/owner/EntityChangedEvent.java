@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Map;
+
+/**
+ * Published inside the writing transaction whenever an {@link Owner}, {@link Pet} or
+ * {@link Visit} row is inserted, updated or deleted, however the change was made.
+ *
+ * @param entityType the simple name of the entity class
+ * @param entityId the id of the entity
+ * @param petId the id of the pet the entity is or belongs to, {@code null} for owners
+ * @param action {@code INSERT}, {@code UPDATE} or {@code DELETE}
+ * @param changes the old and new values of the changed properties, by property name
+ * @see EntityChangeListener
+ */
+public record EntityChangedEvent(String entityType, Integer entityId, Integer petId, String action,
+		Map<String, Change> changes) {
+
+	/**
+	 * The values of a property before and after the change, {@code null} when it had
+	 * none.
+	 *
+	 * @param oldValue the value before the change
+	 * @param newValue the value after the change
+	 */
+	public record Change(String oldValue, String newValue) {
+
+	}
+
+}
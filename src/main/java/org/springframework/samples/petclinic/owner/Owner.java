@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -65,6 +66,27 @@ public class Owner extends Person {
 	@OrderBy("name")
 	private final List<Pet> pets = new ArrayList<>();
 
+	/**
+	 * Number of pets, so that listings do not have to load the pets. Incremented in the
+	 * database when a pet is saved, as merging the owner would write back a stale count;
+	 * {@link #addPet(Pet)} only keeps this instance in step.
+	 */
+	@Column(name = "pet_count", updatable = false)
+	private int petCount;
+
+	/**
+	 * Number of visits of all pets, incremented in the database when a visit is booked;
+	 * {@link #addVisit(Integer, Visit)} only keeps this instance in step.
+	 */
+	@Column(name = "visit_count", updatable = false)
+	private int visitCount;
+
+	/**
+	 * Date of the latest visit of any pet, maintained like {@link #getVisitCount()}.
+	 */
+	@Column(name = "last_visit_date", updatable = false)
+	private LocalDate lastVisitDate;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -94,11 +116,24 @@ public class Owner extends Person {
 	}
 
 	public void addPet(Pet pet) {
-		if (pet.isNew()) {
+		if (pet.isNew() && !getPets().contains(pet)) {
 			getPets().add(pet);
+			this.petCount++;
 		}
 	}
 
+	public int getPetCount() {
+		return this.petCount;
+	}
+
+	public int getVisitCount() {
+		return this.visitCount;
+	}
+
+	public LocalDate getLastVisitDate() {
+		return this.lastVisitDate;
+	}
+
 	/**
 	 * Return the Pet with the given name, or null if none found for this Owner.
 	 * @param name to test
@@ -170,6 +205,10 @@ public class Owner extends Person {
 		Assert.notNull(pet, "Invalid Pet identifier!");
 
 		pet.addVisit(visit);
+		this.visitCount++;
+		if (visit.getDate() != null && (this.lastVisitDate == null || visit.getDate().isAfter(this.lastVisitDate))) {
+			this.lastVisitDate = visit.getDate();
+		}
 	}
 
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of an {@link Owner} for the recently seen owners page, built from the
+ * summary columns of the owners table.
+ *
+ * @param id the owner's id
+ * @param firstName the owner's first name
+ * @param lastName the owner's last name
+ * @param city the owner's city
+ * @param petCount the number of pets of the owner
+ * @param visitCount the number of visits of all of the owner's pets
+ * @param lastVisitDate the date of the latest visit
+ */
+public record OwnerActivity(Integer id, String firstName, String lastName, String city, int petCount, int visitCount,
+		LocalDate lastVisitDate) {
+
+}
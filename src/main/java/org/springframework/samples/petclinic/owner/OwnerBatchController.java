@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.ProtobufJacksonHttpMessageConverter;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Returns many owners, with their pets and visits, in one request:
+ * {@code GET /owners?ids=1,2,3} with {@code Accept: application/json}, or one of the more
+ * compact {@code application/cbor} and {@code application/x-protobuf}.
+ */
+@Controller
+class OwnerBatchController {
+
+	static final int MAX_IDS = 500;
+
+	private final OwnerBatchLoader loader;
+
+	OwnerBatchController(OwnerBatchLoader loader) {
+		this.loader = loader;
+	}
+
+	@GetMapping(path = "/owners", params = "ids", produces = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE, ProtobufJacksonHttpMessageConverter.PROTOBUF_VALUE })
+	public @ResponseBody List<OwnerDetails> showOwners(@RequestParam List<Integer> ids) {
+		if (ids.size() > MAX_IDS) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_IDS + " ids are allowed");
+		}
+		return this.loader.load(ids);
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerDetails.PetDetails;
+import org.springframework.samples.petclinic.owner.OwnerDetails.VisitDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads many owners with their pets and visits at once: the owners, then their pets, then
+ * the visits of these pets are each read with IN queries of at most {@link #CHUNK_SIZE}
+ * ids, and assembled in memory. Loading {@code n} owners with {@code p} pets in total
+ * takes {@code 2 * ceil(n / CHUNK_SIZE) + ceil(p / CHUNK_SIZE)} statements, rather than
+ * the {@code n} owner lookups with their pet and visit selects that fetching them one by
+ * one costs. The visits of a pet include the ones moved to <code>visits_archive</code>,
+ * read in the same statement as the current ones.
+ *
+ * @see VisitArchiver
+ */
+@Component
+class OwnerBatchLoader {
+
+	/**
+	 * Ids bound to a single IN query.
+	 */
+	static final int CHUNK_SIZE = 100;
+
+	private static final String OWNERS = """
+			SELECT id, first_name, last_name, address, city, telephone
+			FROM owners
+			WHERE id IN (:ids)
+			""";
+
+	private static final String PETS = """
+			SELECT pets.owner_id, pets.id, pets.name, pets.birth_date, types.name
+			FROM pets
+			LEFT JOIN types ON pets.type_id = types.id
+			WHERE pets.owner_id IN (:ids)
+			ORDER BY pets.name, pets.id
+			""";
+
+	private static final String VISITS = """
+			SELECT pet_id, id, visit_date, description FROM visits WHERE pet_id IN (:ids)
+			UNION ALL
+			SELECT pet_id, id, visit_date, description FROM visits_archive WHERE pet_id IN (:ids)
+			ORDER BY visit_date, id
+			""";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	OwnerBatchLoader(DataSource dataSource, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	/**
+	 * Load the owners with the given ids.
+	 * @param ids the ids of the owners, duplicates are ignored
+	 * @return the owners found, in the order of the given ids
+	 */
+	List<OwnerDetails> load(List<Integer> ids) {
+		List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+		if (distinct.isEmpty()) {
+			return List.of();
+		}
+		return this.transactionTemplate.execute((status) -> assemble(distinct));
+	}
+
+	private List<OwnerDetails> assemble(List<Integer> ids) {
+		Map<Integer, OwnerRow> owners = loadOwners(ids);
+		Map<Integer, List<PetRow>> pets = loadPets(owners.keySet());
+		Map<Integer, List<VisitDetails>> visits = loadVisits(
+				pets.values().stream().flatMap(List::stream).map(PetRow::id).toList());
+		return ids.stream()
+			.map(owners::get)
+			.filter(Objects::nonNull)
+			.map((owner) -> new OwnerDetails(owner.id(), owner.firstName(), owner.lastName(), owner.address(),
+					owner.city(), owner.telephone(),
+					pets.getOrDefault(owner.id(), List.of())
+						.stream()
+						.map((pet) -> new PetDetails(pet.id(), pet.name(), pet.birthDate(), pet.type(),
+								visits.getOrDefault(pet.id(), List.of())))
+						.toList()))
+			.toList();
+	}
+
+	/**
+	 * Read the owners with the given ids.
+	 * @return the owners found, by id
+	 */
+	Map<Integer, OwnerRow> loadOwners(Collection<Integer> ids) {
+		Map<Integer, OwnerRow> owners = new HashMap<>();
+		query(OWNERS, ids, (rs) -> owners.put(rs.getInt(1), new OwnerRow(rs.getInt(1), rs.getString(2), rs.getString(3),
+				rs.getString(4), rs.getString(5), rs.getString(6))));
+		return owners;
+	}
+
+	/**
+	 * Read the pets of the owners with the given ids.
+	 * @return the pets of each owner having any, by name
+	 */
+	Map<Integer, List<PetRow>> loadPets(Collection<Integer> ownerIds) {
+		Map<Integer, List<PetRow>> pets = new HashMap<>();
+		query(PETS, ownerIds, (rs) -> {
+			PetRow pet = new PetRow(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getObject(4, LocalDate.class),
+					rs.getString(5));
+			pets.computeIfAbsent(pet.ownerId(), (ownerId) -> new ArrayList<>()).add(pet);
+		});
+		return pets;
+	}
+
+	/**
+	 * Read the visits of the pets with the given ids, current and archived.
+	 * @return the visits of each pet having any, oldest first
+	 */
+	Map<Integer, List<VisitDetails>> loadVisits(Collection<Integer> petIds) {
+		Map<Integer, List<VisitDetails>> visits = new HashMap<>();
+		query(VISITS, petIds, (rs) -> visits.computeIfAbsent(rs.getInt(1), (petId) -> new ArrayList<>())
+			.add(new VisitDetails(rs.getInt(2), rs.getObject(3, LocalDate.class), rs.getString(4))));
+		return visits;
+	}
+
+	/**
+	 * Run the query once per chunk of ids. The last chunk is padded with its last id to a
+	 * power of two, so the database sees a handful of distinct statements to cache the
+	 * plans of rather than one per number of ids.
+	 */
+	private void query(String sql, Collection<Integer> keys, RowCallbackHandler rows) {
+		List<Integer> ids = List.copyOf(keys);
+		for (int start = 0; start < ids.size(); start += CHUNK_SIZE) {
+			List<Integer> chunk = new ArrayList<>(ids.subList(start, Math.min(start + CHUNK_SIZE, ids.size())));
+			int padded = Math.min(Integer.highestOneBit(chunk.size() - 1) << 1, CHUNK_SIZE);
+			chunk.addAll(Collections.nCopies(Math.max(padded - chunk.size(), 0), chunk.get(chunk.size() - 1)));
+			this.jdbcTemplate.query(sql, Map.of("ids", chunk), rows);
+		}
+	}
+
+	/**
+	 * An owner without its pets.
+	 */
+	record OwnerRow(Integer id, String firstName, String lastName, String address, String city, String telephone) {
+
+	}
+
+	/**
+	 * A pet without its visits.
+	 */
+	record PetRow(Integer ownerId, Integer id, String name, LocalDate birthDate, String type) {
+
+	}
+
+}
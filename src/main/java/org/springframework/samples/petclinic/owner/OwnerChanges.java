@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.cache.annotation.CacheEvict;
+
+/**
+ * Repository fragment saving the changes made to owners and their pets through the web
+ * forms. Unlike {@link OwnerRepository#save(Owner)}, saving a new pet keeps the owner's
+ * pet count in step. The changes are published like any other write, by the
+ * {@link EntityChangeListener}.
+ *
+ * @see OwnerRepository
+ */
+public interface OwnerChanges {
+
+	/**
+	 * Create or update an owner. A new owner is assigned its id.
+	 * @param owner the owner to save
+	 */
+	@CacheEvict(cacheNames = "owners", cacheResolver = "requestCacheResolver", allEntries = true)
+	void saveOwner(Owner owner);
+
+	/**
+	 * Add a new pet to an owner, counting it in the owner's pet count, or update one of
+	 * the owner's pets.
+	 * @param owner the owner of the pet
+	 * @param pet the new or changed pet
+	 */
+	@CacheEvict(cacheNames = "owners", cacheResolver = "requestCacheResolver", allEntries = true)
+	void savePet(Owner owner, Pet pet);
+
+}
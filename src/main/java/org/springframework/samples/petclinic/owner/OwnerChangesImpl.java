@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * {@link OwnerChanges} implementation saving owners the way
+ * {@link OwnerRepository#save(Owner)} does: new owners are persisted, existing ones
+ * merged. A new pet is added to the managed owner and persisted itself, so that the
+ * {@link EntityChangeListener} finds its owner, and the owner's pet count is incremented
+ * in place rather than merged, so that concurrent saves do not overwrite each other's
+ * counts.
+ */
+class OwnerChangesImpl implements OwnerChanges {
+
+	private static final String COUNT_PET = "UPDATE Owner o SET o.petCount = o.petCount + 1 WHERE o.id = :id";
+
+	private final EntityManager entityManager;
+
+	OwnerChangesImpl(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	@Override
+	@Transactional
+	public void saveOwner(Owner owner) {
+		if (owner.isNew()) {
+			this.entityManager.persist(owner);
+		}
+		else {
+			this.entityManager.merge(owner);
+		}
+	}
+
+	@Override
+	@Transactional
+	public void savePet(Owner owner, Pet pet) {
+		if (!pet.isNew()) {
+			this.entityManager.merge(owner);
+			return;
+		}
+		Owner saved = this.entityManager.merge(owner);
+		saved.addPet(pet);
+		owner.addPet(pet);
+		this.entityManager.persist(pet);
+		this.entityManager.createQuery(COUNT_PET).setParameter("id", saved.getId()).executeUpdate();
+	}
+
+}
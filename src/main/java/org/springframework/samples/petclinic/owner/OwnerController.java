@@ -19,10 +19,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -48,10 +50,22 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
+	private static final int RECENT_OWNERS = 10;
+
 	private final OwnerRepository owners;
 
-	public OwnerController(OwnerRepository owners) {
+	private final VisitRepository visits;
+
+	private final OwnerTelephoneIndex telephones;
+
+	private final OwnerFacets facets;
+
+	public OwnerController(OwnerRepository owners, VisitRepository visits, OwnerTelephoneIndex telephones,
+			OwnerFacets facets) {
 		this.owners = owners;
+		this.visits = visits;
+		this.telephones = telephones;
+		this.facets = facets;
 	}
 
 	@InitBinder
@@ -79,7 +93,7 @@ class OwnerController {
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 
-		this.owners.save(owner);
+		this.owners.saveOwner(owner);
 		redirectAttributes.addFlashAttribute("message", "New Owner Created");
 		return "redirect:/owners/" + owner.getId();
 	}
@@ -90,15 +104,31 @@ class OwnerController {
 	}
 
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(defaultValue = "1") int page,
+			@RequestParam(required = false) String city, @RequestParam(required = false) String petType, Owner owner,
+			BindingResult result, Model model) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
-		// find owners by last name
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		// a telephone number finds owners by telephone instead of last name
+		String telephone = OwnerTelephoneIndex.normalize(owner.getLastName());
+		OwnerFacets.Match match = null;
+		Page<OwnerSummary> ownersResults;
+		if (telephone != null) {
+			List<Integer> ownerIds = this.telephones.findOwnerIds(telephone);
+			if (ownerIds.size() == 1) {
+				return "redirect:/owners/" + ownerIds.get(0);
+			}
+			ownersResults = ownerIds.isEmpty() ? Page.empty() : findPaginatedForOwnersTelephone(page, telephone);
+		}
+		else {
+			// find owners by last name, narrowed down by city and pet type
+			match = this.facets.search(owner.getLastName(), StringUtils.hasText(city) ? city : null,
+					StringUtils.hasText(petType) ? petType : null);
+			ownersResults = findPaginatedForOwnersMatch(page, match);
+		}
 		if (ownersResults.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
@@ -107,16 +137,20 @@ class OwnerController {
 
 		if (ownersResults.getTotalElements() == 1) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			OwnerSummary found = ownersResults.iterator().next();
+			return "redirect:/owners/" + found.id();
 		}
 
 		// multiple owners found
+		model.addAttribute("lastName", owner.getLastName());
+		model.addAttribute("city", city);
+		model.addAttribute("petType", petType);
+		model.addAttribute("facets", match);
 		return addPaginationModel(page, model, ownersResults);
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
+	private String addPaginationModel(int page, Model model, Page<OwnerSummary> paginated) {
+		List<OwnerSummary> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
@@ -124,10 +158,28 @@ class OwnerController {
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
+	/**
+	 * Lists the owners whose pets were seen most recently, using only the summary columns
+	 * of the owners table.
+	 */
+	@GetMapping("/owners/recent")
+	public String showRecentlySeenOwners(Model model) {
+		model.addAttribute("recentOwners", this.owners.findRecentlySeen(PageRequest.of(0, RECENT_OWNERS)));
+		return "owners/recentOwners";
+	}
+
+	private Page<OwnerSummary> findPaginatedForOwnersMatch(int page, OwnerFacets.Match match) {
+		int pageSize = 5;
+		Pageable pageable = PageRequest.of(page - 1, pageSize);
+		List<Integer> ids = match.ids((int) pageable.getOffset(), pageSize);
+		List<OwnerSummary> content = ids.isEmpty() ? List.of() : owners.findSummariesByIds(ids);
+		return new PageImpl<>(content, pageable, match.count());
+	}
+
+	private Page<OwnerSummary> findPaginatedForOwnersTelephone(int page, String telephone) {
 		int pageSize = 5;
 		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastNameStartingWith(lastname, pageable);
+		return owners.findSummariesByTelephone(telephone, pageable);
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
@@ -150,7 +202,7 @@ class OwnerController {
 		}
 
 		owner.setId(ownerId);
-		this.owners.save(owner);
+		this.owners.saveOwner(owner);
 		redirectAttributes.addFlashAttribute("message", "Owner Values Updated");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -167,6 +219,8 @@ class OwnerController {
 		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 		mav.addObject(owner);
+		mav.addObject("recentVisits", this.visits.findRecentVisits(owner.getPets().stream().map(Pet::getId).toList(),
+				VisitController.RECENT_VISITS));
 		return mav;
 	}
 
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * An owner with its pets and their visits, as returned by the batch owner resource.
+ * Archived visits are not included.
+ *
+ * @param id the id of the owner
+ * @param firstName the first name of the owner
+ * @param lastName the last name of the owner
+ * @param address the address of the owner
+ * @param city the city of the owner
+ * @param telephone the telephone of the owner
+ * @param pets the pets of the owner, by name
+ * @see OwnerBatchLoader
+ */
+public record OwnerDetails(Integer id, String firstName, String lastName, String address, String city, String telephone,
+		List<PetDetails> pets) {
+
+	/**
+	 * A pet with its visits, oldest first.
+	 */
+	public record PetDetails(Integer id, String name, LocalDate birthDate, String type, List<VisitDetails> visits) {
+
+	}
+
+	/**
+	 * A visit of a pet.
+	 */
+	public record VisitDetails(Integer id, LocalDate date, String description) {
+
+	}
+
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Matches owners by last name prefix, city and pet type, and counts the matching owners
+ * per city and per pet type, from posting lists held in memory: for every lower case last
+ * name, city and pet type the {@link BitSet} of the ids of its owners. A search
+ * intersects these sets, so neither the matches nor the counts need a query.
+ * <p>
+ * The posting lists are read from the database on first use and kept up to date from the
+ * {@link OwnerChangedEvent}s and {@link PetChangedEvent}s of committed transactions.
+ */
+@Component
+class OwnerFacets {
+
+	private static final String SCAN = """
+			SELECT owners.id, owners.last_name, owners.city, types.name
+			FROM owners
+			LEFT JOIN pets ON pets.owner_id = owners.id
+			LEFT JOIN types ON pets.type_id = types.id
+			""";
+
+	private static final String PET_TYPES = """
+			SELECT pets.owner_id, types.name
+			FROM pets
+			JOIN types ON pets.type_id = types.id
+			WHERE pets.owner_id = (SELECT owner_id FROM pets WHERE id = ?)
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private boolean loaded;
+
+	private final BitSet owners = new BitSet();
+
+	private final NavigableMap<String, BitSet> lastNames = new TreeMap<>();
+
+	private final Map<String, BitSet> cities = new HashMap<>();
+
+	private final Map<String, BitSet> petTypes = new HashMap<>();
+
+	private final Map<Integer, Facts> facts = new HashMap<>();
+
+	OwnerFacets(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Find the owners whose last name starts with the given prefix, ignoring case, and
+	 * that match the given filters.
+	 * @param lastName the last name prefix, empty for all owners
+	 * @param city the city of the owners, {@code null} for any
+	 * @param petType the type of pet the owners must have, {@code null} for any
+	 * @return the matching owners with their counts per city and per pet type
+	 */
+	Match search(String lastName, String city, String petType) {
+		load();
+		this.lock.readLock().lock();
+		try {
+			BitSet matches = prefix(lastName.toLowerCase(Locale.ROOT));
+			if (city != null) {
+				matches.and(this.cities.getOrDefault(city, new BitSet()));
+			}
+			if (petType != null) {
+				matches.and(this.petTypes.getOrDefault(petType, new BitSet()));
+			}
+			return new Match(matches, count(this.cities, matches), count(this.petTypes, matches));
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private BitSet prefix(String prefix) {
+		if (prefix.isEmpty()) {
+			return (BitSet) this.owners.clone();
+		}
+		BitSet matches = new BitSet();
+		this.lastNames.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values().forEach(matches::or);
+		return matches;
+	}
+
+	private static List<Facet> count(Map<String, BitSet> postings, BitSet matches) {
+		List<Facet> facets = new ArrayList<>();
+		postings.forEach((value, owners) -> {
+			int count = intersectionSize(owners, matches);
+			if (count > 0) {
+				facets.add(new Facet(value, count));
+			}
+		});
+		facets.sort(Comparator.comparingInt(Facet::owners).reversed().thenComparing(Facet::value));
+		return facets;
+	}
+
+	private static int intersectionSize(BitSet left, BitSet right) {
+		BitSet both = (BitSet) left.clone();
+		both.and(right);
+		return both.cardinality();
+	}
+
+	@TransactionalEventListener
+	void ownerChanged(OwnerChangedEvent event) {
+		this.lock.writeLock().lock();
+		try {
+			if (this.loaded) {
+				Facts previous = this.facts.get(event.ownerId());
+				Set<String> petTypes = (previous != null) ? previous.petTypes() : Set.of();
+				update(event.ownerId(), new Facts(event.lastName(), event.city(), petTypes));
+			}
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	@TransactionalEventListener
+	void petChanged(PetChangedEvent event) {
+		if (!isLoaded()) {
+			return;
+		}
+		Map<Integer, Set<String>> petTypes = new HashMap<>();
+		this.jdbcTemplate.query(PET_TYPES,
+				(RowCallbackHandler) (rs) -> petTypes.computeIfAbsent(rs.getInt(1), (ownerId) -> new HashSet<>())
+					.add(rs.getString(2)),
+				event.petId());
+		this.lock.writeLock().lock();
+		try {
+			petTypes.forEach((ownerId, types) -> {
+				Facts previous = this.facts.get(ownerId);
+				if (previous != null) {
+					update(ownerId, new Facts(previous.lastName(), previous.city(), types));
+				}
+			});
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Forget the posting lists, to be read again from the database on next use.
+	 */
+	void reload() {
+		this.lock.writeLock().lock();
+		try {
+			this.loaded = false;
+			this.owners.clear();
+			this.lastNames.clear();
+			this.cities.clear();
+			this.petTypes.clear();
+			this.facts.clear();
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private boolean isLoaded() {
+		this.lock.readLock().lock();
+		try {
+			return this.loaded;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private void load() {
+		if (isLoaded()) {
+			return;
+		}
+		this.lock.writeLock().lock();
+		try {
+			if (!this.loaded) {
+				Map<Integer, Facts> scanned = new HashMap<>();
+				this.jdbcTemplate.query(SCAN, (RowCallbackHandler) (rs) -> {
+					String lastName = rs.getString(2);
+					String city = rs.getString(3);
+					String petType = rs.getString(4);
+					Facts facts = scanned.computeIfAbsent(rs.getInt(1),
+							(ownerId) -> new Facts(lastName, city, new HashSet<>()));
+					if (petType != null) {
+						facts.petTypes().add(petType);
+					}
+				});
+				scanned.forEach(this::update);
+				this.loaded = true;
+			}
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	private void update(Integer ownerId, Facts facts) {
+		Facts previous = this.facts.put(ownerId, facts);
+		if (previous != null) {
+			remove(this.lastNames, key(previous.lastName()), ownerId);
+			remove(this.cities, previous.city(), ownerId);
+			previous.petTypes().forEach((petType) -> remove(this.petTypes, petType, ownerId));
+		}
+		this.owners.set(ownerId);
+		add(this.lastNames, key(facts.lastName()), ownerId);
+		add(this.cities, facts.city(), ownerId);
+		facts.petTypes().forEach((petType) -> add(this.petTypes, petType, ownerId));
+	}
+
+	private static String key(String lastName) {
+		return (lastName != null) ? lastName.toLowerCase(Locale.ROOT) : null;
+	}
+
+	private static void add(Map<String, BitSet> postings, String value, int ownerId) {
+		if (value != null) {
+			postings.computeIfAbsent(value, (v) -> new BitSet()).set(ownerId);
+		}
+	}
+
+	private static void remove(Map<String, BitSet> postings, String value, int ownerId) {
+		BitSet owners = (value != null) ? postings.get(value) : null;
+		if (owners != null) {
+			owners.clear(ownerId);
+			if (owners.isEmpty()) {
+				postings.remove(value);
+			}
+		}
+	}
+
+	/**
+	 * What an owner is matched on.
+	 */
+	private record Facts(String lastName, String city, Set<String> petTypes) {
+
+	}
+
+	/**
+	 * The number of matching owners with a given value.
+	 *
+	 * @param value the city or pet type
+	 * @param owners the number of matching owners
+	 */
+	record Facet(String value, int owners) {
+
+	}
+
+	/**
+	 * The owners matching a search.
+	 *
+	 * @param owners the ids of the matching owners
+	 * @param cities the number of matching owners per city, most first
+	 * @param petTypes the number of matching owners per pet type, most first
+	 */
+	record Match(BitSet owners, List<Facet> cities, List<Facet> petTypes) {
+
+		int count() {
+			return this.owners.cardinality();
+		}
+
+		/**
+		 * Return the ids of the given range of matching owners, in id order.
+		 */
+		List<Integer> ids(int offset, int limit) {
+			List<Integer> ids = new ArrayList<>(limit);
+			int id = this.owners.nextSetBit(0);
+			for (int skipped = 0; id >= 0 && skipped < offset; skipped++) {
+				id = this.owners.nextSetBit(id + 1);
+			}
+			for (; id >= 0 && ids.size() < limit; id = this.owners.nextSetBit(id + 1)) {
+				ids.add(id);
+			}
+			return ids;
+		}
+
+	}
+
+}
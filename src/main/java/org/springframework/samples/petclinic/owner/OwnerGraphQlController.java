@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.samples.petclinic.owner.OwnerBatchLoader.OwnerRow;
+import org.springframework.samples.petclinic.owner.OwnerBatchLoader.PetRow;
+import org.springframework.samples.petclinic.owner.OwnerDetails.VisitDetails;
+import org.springframework.samples.petclinic.owner.VisitRepository.RecentVisits;
+import org.springframework.stereotype.Controller;
+
+import graphql.schema.DataFetchingEnvironment;
+
+/**
+ * Resolves the owners, pets and visits of the GraphQL schema. The pets of all the owners
+ * in a response, then the visits of all these pets, are each read at once by
+ * {@link OwnerBatchLoader}, so a query costs the same handful of statements whether it
+ * returns one owner or a hundred. The latest visits of the pets, when a {@code last}
+ * argument bounds them, are read per pet by the database, with
+ * {@link VisitRepository#findRecentVisits(java.util.Collection, int)}.
+ */
+@Controller
+class OwnerGraphQlController {
+
+	private static final String PET_VISITS = "petVisits";
+
+	private final OwnerBatchLoader loader;
+
+	private final OwnerFacets facets;
+
+	private final VisitRepository visits;
+
+	OwnerGraphQlController(OwnerBatchLoader loader, OwnerFacets facets, VisitRepository visits,
+			BatchLoaderRegistry registry) {
+		this.loader = loader;
+		this.facets = facets;
+		this.visits = visits;
+		registry.<PetVisits, List<VisitDetails>>forName(PET_VISITS)
+			.registerMappedBatchLoader((keys, environment) -> Mono.fromCallable(() -> loadVisits(keys)));
+	}
+
+	@QueryMapping
+	public OwnerRow owner(@Argument int id) {
+		return this.loader.loadOwners(List.of(id)).get(id);
+	}
+
+	@QueryMapping
+	public List<OwnerRow> owners(@Argument String lastName, @Argument int first) {
+		List<Integer> ids = this.facets.search(lastName, null, null).ids(0, Math.max(first, 0));
+		Map<Integer, OwnerRow> owners = this.loader.loadOwners(ids);
+		return ids.stream().map(owners::get).filter(Objects::nonNull).toList();
+	}
+
+	@BatchMapping(typeName = "Owner")
+	public List<List<PetRow>> pets(List<OwnerRow> owners) {
+		Map<Integer, List<PetRow>> pets = this.loader.loadPets(owners.stream().map(OwnerRow::id).toList());
+		return owners.stream().map((owner) -> pets.getOrDefault(owner.id(), List.of())).toList();
+	}
+
+	@SchemaMapping(typeName = "Pet")
+	public CompletableFuture<List<VisitDetails>> visits(PetRow pet, @Argument Integer last,
+			DataFetchingEnvironment environment) {
+		if (last != null && last <= 0) {
+			return CompletableFuture.completedFuture(List.of());
+		}
+		return environment.<PetVisits, List<VisitDetails>>getDataLoader(PET_VISITS)
+			.load(new PetVisits(pet.id(), last))
+			.thenApply((visits) -> (visits != null) ? visits : List.of());
+	}
+
+	/**
+	 * Read the visits of all the requested pets, with one batch per distinct {@code last}
+	 * argument: the latest visits of each pet when bounded, all of them otherwise.
+	 */
+	private Map<PetVisits, List<VisitDetails>> loadVisits(Set<PetVisits> keys) {
+		Map<Integer, Set<Integer>> petIdsByLast = new HashMap<>();
+		keys.forEach((key) -> petIdsByLast.computeIfAbsent(key.last(), (last) -> new HashSet<>()).add(key.petId()));
+		Map<PetVisits, List<VisitDetails>> visits = new HashMap<>();
+		petIdsByLast.forEach((last, petIds) -> {
+			if (last == null) {
+				this.loader.loadVisits(petIds).forEach((petId, all) -> {
+					List<VisitDetails> newest = new ArrayList<>(all);
+					Collections.reverse(newest);
+					visits.put(new PetVisits(petId, null), newest);
+				});
+			}
+			else {
+				Map<Integer, RecentVisits> recent = this.visits.findRecentVisits(petIds, last);
+				recent.forEach((petId, latest) -> visits.put(new PetVisits(petId, last),
+						latest.visits()
+							.stream()
+							.map((visit) -> new VisitDetails(visit.getId(), visit.getDate(), visit.getDescription()))
+							.toList()));
+			}
+		});
+		return visits;
+	}
+
+	/**
+	 * The visits of a pet selected by a {@code visits} field.
+	 *
+	 * @param petId the id of the pet
+	 * @param last the number of latest visits, {@code null} for all of them
+	 */
+	private record PetVisits(Integer petId, Integer last) {
+
+	}
+
+}
@@ -15,10 +15,13 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import jakarta.annotation.Nonnull;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -36,13 +39,14 @@ import org.springframework.data.jpa.repository.Query;
  * @author Michael Isvy
  * @author Wick Dynex
  */
-public interface OwnerRepository extends JpaRepository<Owner, Integer> {
+public interface OwnerRepository extends JpaRepository<Owner, Integer>, OwnerChanges {
 
 	/**
 	 * Retrieve all {@link PetType}s from the data store.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@Cacheable(cacheNames = "petTypes", cacheResolver = "requestCacheResolver")
 	List<PetType> findPetTypes();
 
 	/**
@@ -54,6 +58,54 @@ public interface OwnerRepository extends JpaRepository<Owner, Integer> {
 	 */
 	Page<Owner> findByLastNameStartingWith(String lastName, Pageable pageable);
 
+	/**
+	 * Retrieve {@link OwnerSummary summaries} of the owners with the given ids.
+	 * @param ids the ids of the owners
+	 * @return the summaries of the owners found, in id order
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(o.id, o.firstName, o.lastName,
+			o.address, o.city, o.telephone, listagg(p.name, ', ') WITHIN GROUP (ORDER BY p.name),
+			o.visitCount, o.lastVisitDate)
+			FROM Owner o LEFT JOIN o.pets p
+			WHERE o.id IN :ids
+			GROUP BY o.id, o.firstName, o.lastName, o.address, o.city, o.telephone, o.visitCount, o.lastVisitDate
+			ORDER BY o.id
+			""")
+	List<OwnerSummary> findSummariesByIds(Collection<Integer> ids);
+
+	/**
+	 * Retrieve {@link OwnerSummary summaries} of the owners with the given telephone,
+	 * using the index on the telephone column.
+	 * @param telephone the ten digit telephone to search for
+	 * @return a page of matching {@link OwnerSummary summaries}
+	 */
+	@Query(value = """
+			SELECT new org.springframework.samples.petclinic.owner.OwnerSummary(o.id, o.firstName, o.lastName,
+			o.address, o.city, o.telephone, listagg(p.name, ', ') WITHIN GROUP (ORDER BY p.name),
+			o.visitCount, o.lastVisitDate)
+			FROM Owner o LEFT JOIN o.pets p
+			WHERE o.telephone = :telephone
+			GROUP BY o.id, o.firstName, o.lastName, o.address, o.city, o.telephone, o.visitCount, o.lastVisitDate
+			ORDER BY o.id
+			""", countQuery = "SELECT count(o) FROM Owner o WHERE o.telephone = :telephone")
+	Page<OwnerSummary> findSummariesByTelephone(String telephone, Pageable pageable);
+
+	/**
+	 * Retrieve the owners with the most recent visits, read from the summary columns of
+	 * the owners table only.
+	 * @param pageable the number of owners to return
+	 * @return the owners that had a visit, latest visit first
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.OwnerActivity(o.id, o.firstName, o.lastName,
+			o.city, o.petCount, o.visitCount, o.lastVisitDate)
+			FROM Owner o
+			WHERE o.lastVisitDate IS NOT NULL
+			ORDER BY o.lastVisitDate DESC, o.id
+			""")
+	List<OwnerActivity> findRecentlySeen(Pageable pageable);
+
 	/**
 	 * Retrieve an {@link Owner} from the data store by id.
 	 * <p>
@@ -61,14 +113,27 @@ public interface OwnerRepository extends JpaRepository<Owner, Integer> {
 	 * no {@link Owner} is found with the provided id, it will return an empty
 	 * {@link Optional}.
 	 * </p>
+	 * <p>
+	 * Within a web request the result is remembered, so that every lookup of the same
+	 * owner during the request returns the same instance without querying again.
+	 * </p>
 	 * @param id the id to search for
 	 * @return an {@link Optional} containing the {@link Owner} if found, or an empty
 	 * {@link Optional} if not found.
 	 * @throws IllegalArgumentException if the id is null (assuming null is not a valid
 	 * input for id)
 	 */
+	@Cacheable(cacheNames = "owners", cacheResolver = "requestCacheResolver")
 	Optional<Owner> findById(@Nonnull Integer id);
 
+	/**
+	 * Save an {@link Owner} to the data store, forgetting the owners remembered for the
+	 * current request.
+	 */
+	@Override
+	@CacheEvict(cacheNames = "owners", cacheResolver = "requestCacheResolver", allEntries = true)
+	<S extends Owner> S save(S owner);
+
 	/**
 	 * Returns all the owners from data store
 	 **/
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of an {@link Owner} for the search results list, carrying the names of
+ * the owner's pets instead of the pets themselves.
+ *
+ * @param id the owner's id
+ * @param firstName the owner's first name
+ * @param lastName the owner's last name
+ * @param address the owner's address
+ * @param city the owner's city
+ * @param telephone the owner's telephone
+ * @param petNames the names of the owner's pets in alphabetical order, separated by
+ * commas, or {@code null} if the owner has no pets
+ * @param visitCount the number of visits of all of the owner's pets
+ * @param lastVisitDate the date of the latest visit, or {@code null} if there was none
+ */
+public record OwnerSummary(Integer id, String firstName, String lastName, String address, String city, String telephone,
+		String petNames, int visitCount, LocalDate lastVisitDate) {
+
+}
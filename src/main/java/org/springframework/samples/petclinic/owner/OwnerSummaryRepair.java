@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the summary columns of the owners table ({@code pet_count},
+ * {@code visit_count} and {@code last_visit_date}) from the pets table and the visits,
+ * current and archived.
+ * <p>
+ * The columns are normally incremented in place when a pet is saved or a visit booked;
+ * this job backfills them for existing data and repairs drift, for example after rows
+ * were changed outside the application. Owners are processed in id order, one chunk per
+ * transaction, so the job never holds locks on the whole table.
+ *
+ * @see OwnerSummaryEndpoint
+ */
+@Component
+class OwnerSummaryRepair {
+
+	private static final Logger logger = LoggerFactory.getLogger(OwnerSummaryRepair.class);
+
+	private static final String NEXT_CHUNK = "SELECT id FROM owners WHERE id > ? ORDER BY id LIMIT ?";
+
+	private static final String RECOMPUTE = """
+			UPDATE owners SET
+			  pet_count = (SELECT COUNT(*) FROM pets WHERE pets.owner_id = owners.id),
+			  visit_count = (SELECT COUNT(*)
+			    FROM (SELECT pet_id FROM visits UNION ALL SELECT pet_id FROM visits_archive) all_visits
+			    JOIN pets ON all_visits.pet_id = pets.id WHERE pets.owner_id = owners.id),
+			  last_visit_date = (SELECT MAX(all_visits.visit_date)
+			    FROM (SELECT pet_id, visit_date FROM visits UNION ALL SELECT pet_id, visit_date FROM visits_archive)
+			    all_visits JOIN pets ON all_visits.pet_id = pets.id WHERE pets.owner_id = owners.id)
+			WHERE id >= ? AND id <= ?
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int chunkSize;
+
+	OwnerSummaryRepair(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.owners.summary-repair-chunk-size:500}") int chunkSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Recompute the summary columns of all owners.
+	 * @return the number of owners and chunks processed
+	 */
+	Result repairAll() {
+		long start = System.nanoTime();
+		int owners = 0;
+		int chunks = 0;
+		int lastId = 0;
+		while (true) {
+			int afterId = lastId;
+			List<Integer> ids = this.transactionTemplate.execute((status) -> repairChunk(afterId));
+			if (ids == null || ids.isEmpty()) {
+				break;
+			}
+			owners += ids.size();
+			chunks++;
+			lastId = ids.get(ids.size() - 1);
+		}
+		Result result = new Result(owners, chunks, (System.nanoTime() - start) / 1_000_000);
+		logger.info("Recomputed summary columns of {} owners in {} chunks ({} ms)", result.owners(), result.chunks(),
+				result.elapsedMillis());
+		return result;
+	}
+
+	/**
+	 * Recompute the next chunk of owners after the given id.
+	 * @return the ids of the owners of the chunk, empty if there were no owners left
+	 */
+	private List<Integer> repairChunk(int afterId) {
+		List<Integer> ids = this.jdbcTemplate.queryForList(NEXT_CHUNK, Integer.class, afterId, this.chunkSize);
+		if (!ids.isEmpty()) {
+			this.jdbcTemplate.update(RECOMPUTE, ids.get(0), ids.get(ids.size() - 1));
+		}
+		return ids;
+	}
+
+	/**
+	 * Outcome of a repair run.
+	 *
+	 * @param owners number of owners recomputed
+	 * @param chunks number of transactions used
+	 * @param elapsedMillis duration of the run
+	 */
+	public record Result(int owners, int chunks, long elapsedMillis) {
+
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Finds owners by telephone from a map of normalized telephone numbers to owner ids held
+ * in memory. The map is read from the owners table on first use and kept up to date from
+ * the {@link OwnerChangedEvent}s of committed transactions, updating only the entries of
+ * the saved owner.
+ */
+@Component
+class OwnerTelephoneIndex {
+
+	private static final String SCAN = "SELECT id, telephone FROM owners WHERE telephone IS NOT NULL";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private volatile Map<String, List<Integer>> ownersByTelephone;
+
+	private final Map<Integer, String> telephonesByOwner = new HashMap<>();
+
+	OwnerTelephoneIndex(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Reduce a telephone number as typed to the ten digits stored for owners, dropping
+	 * punctuation, spaces and a leading country code of 1.
+	 * @return the ten digits, or {@code null} if the input is not a ten digit number
+	 */
+	static String normalize(String telephone) {
+		if (telephone == null || !telephone.matches("[+]?[\\d\\s().-]+")) {
+			return null;
+		}
+		String digits = telephone.replaceAll("\\D", "");
+		if (digits.length() == 11 && digits.charAt(0) == '1') {
+			digits = digits.substring(1);
+		}
+		return (digits.length() == 10) ? digits : null;
+	}
+
+	/**
+	 * Return the ids of the owners with the given telephone.
+	 * @param telephone the telephone, in any format accepted by {@link #normalize}
+	 * @return the ids of the matching owners, lowest first
+	 */
+	List<Integer> findOwnerIds(String telephone) {
+		String normalized = normalize(telephone);
+		if (normalized == null) {
+			return List.of();
+		}
+		return ownersByTelephone().getOrDefault(normalized, List.of());
+	}
+
+	@TransactionalEventListener
+	synchronized void ownerChanged(OwnerChangedEvent event) {
+		Map<String, List<Integer>> ownersByTelephone = this.ownersByTelephone;
+		if (ownersByTelephone == null) {
+			// the owner is read with all the others on first use
+			return;
+		}
+		String previous = this.telephonesByOwner.remove(event.ownerId());
+		if (previous != null) {
+			ownersByTelephone.computeIfPresent(previous, (telephone, owners) -> {
+				List<Integer> remaining = new ArrayList<>(owners);
+				remaining.remove(event.ownerId());
+				return remaining.isEmpty() ? null : List.copyOf(remaining);
+			});
+		}
+		add(ownersByTelephone, event.ownerId(), event.telephone());
+	}
+
+	/**
+	 * Forget the map, to be read again from the owners table on next use.
+	 */
+	synchronized void reload() {
+		this.ownersByTelephone = null;
+	}
+
+	private Map<String, List<Integer>> ownersByTelephone() {
+		Map<String, List<Integer>> ownersByTelephone = this.ownersByTelephone;
+		if (ownersByTelephone == null) {
+			synchronized (this) {
+				ownersByTelephone = this.ownersByTelephone;
+				if (ownersByTelephone == null) {
+					Map<String, List<Integer>> loaded = new ConcurrentHashMap<>();
+					this.telephonesByOwner.clear();
+					this.jdbcTemplate.query(SCAN,
+							(RowCallbackHandler) (rs) -> add(loaded, rs.getInt(1), rs.getString(2)));
+					ownersByTelephone = loaded;
+					this.ownersByTelephone = ownersByTelephone;
+				}
+			}
+		}
+		return ownersByTelephone;
+	}
+
+	private void add(Map<String, List<Integer>> ownersByTelephone, Integer ownerId, String telephone) {
+		String normalized = normalize(telephone);
+		if (normalized == null) {
+			return;
+		}
+		this.telephonesByOwner.put(ownerId, normalized);
+		// lists are replaced rather than modified, so readers need no lock
+		ownersByTelephone.merge(normalized, List.of(ownerId), (owners, added) -> {
+			List<Integer> merged = new ArrayList<>(owners);
+			merged.addAll(added);
+			merged.sort(null);
+			return List.copyOf(merged);
+		});
+	}
+
+}
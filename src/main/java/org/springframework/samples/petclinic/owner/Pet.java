@@ -31,6 +31,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
+import jakarta.persistence.Persistence;
 import jakarta.persistence.Table;
 
 /**
@@ -53,8 +54,11 @@ public class Pet extends NamedEntity {
 	@JoinColumn(name = "type_id")
 	private PetType type;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-	@JoinColumn(name = "pet_id")
+	/**
+	 * The full visit history, loaded on first access only. Pages showing visits read the
+	 * latest ones through {@link VisitRepository} instead.
+	 */
+	@OneToMany(mappedBy = "pet", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
 	@OrderBy("date ASC")
 	private final Set<Visit> visits = new LinkedHashSet<>();
 
@@ -78,8 +82,15 @@ public class Pet extends NamedEntity {
 		return this.visits;
 	}
 
+	/**
+	 * Add a visit to this pet. The visit history is only updated if it has already been
+	 * loaded, so a visit can be added to a detached pet without reading its history.
+	 */
 	public void addVisit(Visit visit) {
-		getVisits().add(visit);
+		visit.setPet(this);
+		if (Persistence.getPersistenceUtil().isLoaded(this, "visits")) {
+			getVisits().add(visit);
+		}
 	}
 
 }
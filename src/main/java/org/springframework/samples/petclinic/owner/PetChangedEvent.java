@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Published inside the saving transaction when a pet has been added to an owner or
+ * updated, carrying the pet's details as saved.
+ *
+ * @param petId the id of the pet
+ * @param created whether the pet was added rather than updated
+ * @param ownerId the id of the pet's owner
+ * @param name the name of the pet
+ * @param birthDate the birth date of the pet
+ * @param type the name of the pet's type
+ * @see EntityChangeListener
+ */
+public record PetChangedEvent(Integer petId, boolean created, Integer ownerId, String name, LocalDate birthDate,
+		String type) {
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a {@link Visit} for the clinic schedule, carrying the names of the
+ * pet and its owner so that a day's visits are listed with a single query.
+ *
+ * @param id the visit's id
+ * @param date the date of the visit
+ * @param description the reason for the visit
+ * @param petId the pet's id
+ * @param petName the pet's name
+ * @param petType the name of the pet's type
+ * @param ownerId the owner's id
+ * @param ownerFirstName the owner's first name
+ * @param ownerLastName the owner's last name
+ */
+public record ScheduledVisit(Integer id, LocalDate date, String description, Integer petId, String petName,
+		String petType, Integer ownerId, String ownerFirstName, String ownerLastName) {
+
+}
@@ -22,6 +22,9 @@ import org.springframework.samples.petclinic.model.BaseEntity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 
@@ -33,7 +36,7 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity
 @Table(name = "visits")
-public class Visit extends BaseEntity {
+public class Visit extends BaseEntity implements VisitEntry {
 
 	@Column(name = "visit_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
@@ -42,6 +45,10 @@ public class Visit extends BaseEntity {
 	@NotBlank
 	private String description;
 
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "pet_id")
+	private Pet pet;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -49,6 +56,7 @@ public class Visit extends BaseEntity {
 		this.date = LocalDate.now();
 	}
 
+	@Override
 	public LocalDate getDate() {
 		return this.date;
 	}
@@ -57,6 +65,7 @@ public class Visit extends BaseEntity {
 		this.date = date;
 	}
 
+	@Override
 	public String getDescription() {
 		return this.description;
 	}
@@ -65,4 +74,12 @@ public class Visit extends BaseEntity {
 		this.description = description;
 	}
 
+	public Pet getPet() {
+		return this.pet;
+	}
+
+	void setPet(Pet pet) {
+		this.pet = pet;
+	}
+
 }
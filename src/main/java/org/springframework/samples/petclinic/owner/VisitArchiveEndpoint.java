@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code POST /actuator/visitarchive}) running the
+ * {@link VisitArchiver}.
+ */
+@Component
+@Endpoint(id = "visitarchive")
+class VisitArchiveEndpoint {
+
+	private final VisitArchiver archiver;
+
+	VisitArchiveEndpoint(VisitArchiver archiver) {
+		this.archiver = archiver;
+	}
+
+	@WriteOperation
+	public VisitArchiver.Result archive() {
+		return this.archiver.archive();
+	}
+
+}
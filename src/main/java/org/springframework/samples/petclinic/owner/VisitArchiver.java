@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves visits older than the archive horizon from the <code>visits</code> table to
+ * <code>visits_archive</code>, keeping the hot table and its indexes small.
+ * <p>
+ * Visits are moved in id order, one chunk per transaction: each chunk is copied to the
+ * archive and deleted from the hot table in the same transaction, so a visit is never
+ * lost nor found in both tables, and the job never holds locks on the whole table.
+ * Archived visits keep their id and stay reachable through {@link VisitRepository}.
+ *
+ * @see VisitArchiveEndpoint
+ */
+@Component
+class VisitArchiver {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitArchiver.class);
+
+	private static final String NEXT_CHUNK = "SELECT id FROM visits WHERE visit_date < ? ORDER BY id LIMIT ?";
+
+	private static final String COPY = """
+			INSERT INTO visits_archive (id, pet_id, visit_date, description)
+			SELECT id, pet_id, visit_date, description FROM visits WHERE id IN (%s)
+			""";
+
+	private static final String DELETE = "DELETE FROM visits WHERE id IN (%s)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Period horizon;
+
+	private final int chunkSize;
+
+	VisitArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.visits.archive-horizon:P2Y}") Period horizon,
+			@Value("${petclinic.visits.archive-chunk-size:500}") int chunkSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.horizon = horizon;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Move all visits older than the archive horizon to the archive.
+	 * @return the number of visits and chunks moved
+	 */
+	Result archive() {
+		long start = System.nanoTime();
+		LocalDate cutoff = LocalDate.now().minus(this.horizon);
+		int visits = 0;
+		int chunks = 0;
+		while (true) {
+			int moved = this.transactionTemplate.execute((status) -> archiveChunk(cutoff));
+			if (moved == 0) {
+				break;
+			}
+			visits += moved;
+			chunks++;
+		}
+		Result result = new Result(cutoff, visits, chunks, (System.nanoTime() - start) / 1_000_000);
+		logger.info("Archived {} visits before {} in {} chunks ({} ms)", result.visits(), result.cutoff(),
+				result.chunks(), result.elapsedMillis());
+		return result;
+	}
+
+	/**
+	 * Move the next chunk of visits older than the cutoff.
+	 * @return the number of visits moved, 0 if there were none left
+	 */
+	private int archiveChunk(LocalDate cutoff) {
+		List<Integer> ids = this.jdbcTemplate.queryForList(NEXT_CHUNK, Integer.class, cutoff, this.chunkSize);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		Object[] args = ids.toArray();
+		this.jdbcTemplate.update(COPY.formatted(placeholders), args);
+		return this.jdbcTemplate.update(DELETE.formatted(placeholders), args);
+	}
+
+	/**
+	 * Outcome of an archive run.
+	 *
+	 * @param cutoff visits before this date were archived
+	 * @param visits number of visits moved
+	 * @param chunks number of transactions used
+	 * @param elapsedMillis duration of the run
+	 */
+	public record Result(LocalDate cutoff, int visits, int chunks, long elapsedMillis) {
+
+	}
+
+}
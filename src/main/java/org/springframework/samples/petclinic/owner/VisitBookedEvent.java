@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+/**
+ * Published inside the booking transaction when a visit has been booked, so that
+ * listeners can keep derived data in step with the <code>visits</code> table.
+ *
+ * @param visitId the id of the new visit
+ * @param ownerId the id of the pet's owner
+ * @param petId the id of the pet
+ * @param petName the name of the pet
+ * @param date the date of the visit
+ * @param description the reason for the visit
+ * @param petType the name of the pet's type
+ * @param city the city of the pet's owner
+ * @see VisitBooking
+ */
+public record VisitBookedEvent(Integer visitId, Integer ownerId, Integer petId, String petName, LocalDate date,
+		String description, String petType, String city) {
+
+}
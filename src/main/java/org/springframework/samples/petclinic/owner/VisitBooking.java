@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Repository fragment booking new visits.
+ *
+ * @see VisitRepository
+ */
+public interface VisitBooking {
+
+	/**
+	 * Book a visit for a pet of an owner: the visit is stored and the owner's summary
+	 * columns updated in one transaction, without loading the pet's visit history. A
+	 * {@link VisitBookedEvent} is published within that transaction.
+	 * @param owner the owner of the pet
+	 * @param petId the id of the pet
+	 * @param visit the new visit
+	 */
+	void bookVisit(Owner owner, Integer petId, Visit visit);
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * {@link VisitBooking} implementation persisting the visit itself rather than cascading
+ * from the owner, which would require the pet's visit history to be loaded. The owner's
+ * summary columns are incremented in place, so that concurrent bookings for the same
+ * owner do not overwrite each other's counts.
+ */
+class VisitBookingImpl implements VisitBooking {
+
+	private static final String COUNT_VISIT = """
+			UPDATE Owner o SET o.visitCount = o.visitCount + 1,
+			o.lastVisitDate = CASE WHEN o.lastVisitDate IS NULL OR o.lastVisitDate < :date THEN :date
+			ELSE o.lastVisitDate END
+			WHERE o.id = :id
+			""";
+
+	private final EntityManager entityManager;
+
+	private final ApplicationEventPublisher events;
+
+	VisitBookingImpl(EntityManager entityManager, ApplicationEventPublisher events) {
+		this.entityManager = entityManager;
+		this.events = events;
+	}
+
+	@Override
+	@Transactional
+	public void bookVisit(Owner owner, Integer petId, Visit visit) {
+		owner.addVisit(petId, visit);
+		this.entityManager.persist(visit);
+		this.entityManager.createQuery(COUNT_VISIT)
+			.setParameter("date", visit.getDate())
+			.setParameter("id", owner.getId())
+			.executeUpdate();
+		Pet pet = owner.getPet(petId);
+		this.events.publishEvent(new VisitBookedEvent(visit.getId(), owner.getId(), pet.getId(), pet.getName(),
+				visit.getDate(), visit.getDescription(), pet.getType() != null ? pet.getType().getName() : null,
+				owner.getCity()));
+	}
+
+}
@@ -18,7 +18,11 @@ package org.springframework.samples.petclinic.owner;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,6 +30,8 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
@@ -41,10 +47,17 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @Controller
 class VisitController {
 
+	static final int RECENT_VISITS = 5;
+
+	private static final int TIMELINE_PAGE_SIZE = 20;
+
 	private final OwnerRepository owners;
 
-	public VisitController(OwnerRepository owners) {
+	private final VisitRepository visits;
+
+	public VisitController(OwnerRepository owners, VisitRepository visits) {
 		this.owners = owners;
+		this.visits = visits;
 	}
 
 	@InitBinder
@@ -67,6 +80,10 @@ class VisitController {
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 
 		Pet pet = owner.getPet(petId);
+		if (pet == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+					"Pet not found with id: " + petId + " for owner with id: " + ownerId);
+		}
 		model.put("pet", pet);
 		model.put("owner", owner);
 
@@ -78,7 +95,8 @@ class VisitController {
 	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
 	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
+	public String initNewVisitForm(@PathVariable int petId, Model model) {
+		model.addAttribute("recentVisits", this.visits.findRecentVisits(petId, RECENT_VISITS));
 		return "pets/createOrUpdateVisitForm";
 	}
 
@@ -86,15 +104,30 @@ class VisitController {
 	// called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
 	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result, RedirectAttributes redirectAttributes) {
+			BindingResult result, Model model, RedirectAttributes redirectAttributes) {
 		if (result.hasErrors()) {
+			model.addAttribute("recentVisits", this.visits.findRecentVisits(petId, RECENT_VISITS));
 			return "pets/createOrUpdateVisitForm";
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		this.visits.bookVisit(owner, petId, visit);
 		redirectAttributes.addFlashAttribute("message", "Your visit has been booked");
 		return "redirect:/owners/{ownerId}";
 	}
 
+	/**
+	 * Shows the visit history of a pet, archived visits included, newest first, one page
+	 * at a time. The pet has been looked up among the owner's pets by
+	 * {@link #loadPetWithVisit}, so only the owner's URL lists its visits.
+	 */
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showVisitTimeline(@PathVariable int petId, @RequestParam(defaultValue = "1") int page, Model model) {
+		Page<VisitEntry> timeline = this.visits.findVisitHistory(petId, PageRequest.of(page - 1, TIMELINE_PAGE_SIZE));
+		model.addAttribute("currentPage", page);
+		model.addAttribute("totalPages", timeline.getTotalPages());
+		model.addAttribute("totalItems", timeline.getTotalElements());
+		model.addAttribute("timeline", timeline.getContent());
+		return "pets/visitTimeline";
+	}
+
 }
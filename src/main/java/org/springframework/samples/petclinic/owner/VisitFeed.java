@@ -0,0 +1,354 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes newly booked visits to subscribed clients, such as the displays of a waiting
+ * room, as server-sent events. A visit is published once its booking transaction has
+ * committed.
+ * <p>
+ * Events are not written on the publishing thread: each subscriber has a queue of at most
+ * {@code petclinic.visits.feed.buffer-size} events, drained by a small pool of sending
+ * threads, and when a slow client lets its queue fill up the oldest event is dropped. The
+ * last {@code petclinic.visits.feed.history-size} events are kept in a ring buffer, so a
+ * client reconnecting with a {@code Last-Event-ID} header is first sent the events it
+ * missed. Idle subscribers are sent a comment every heartbeat interval, which keeps
+ * proxies from closing the connection and notices clients that went away.
+ * <p>
+ * Writing to a client that stopped reading blocks once the connection's buffers are full,
+ * so a send that has not returned within {@code petclinic.visits.feed.write-timeout}
+ * completes the subscriber's emitter and interrupts the sending thread, which keeps a few
+ * stalled clients from holding every sending thread. Heartbeats and write timeouts run on
+ * a separate timer thread for the same reason.
+ * <p>
+ * Event ids restart from 1 with the application: an id the feed has not reached yet is
+ * ignored rather than replayed from.
+ *
+ * @see VisitFeedController
+ */
+@Component
+class VisitFeed {
+
+	static final String EVENT_NAME = "visit";
+
+	private final Executor executor;
+
+	private final ScheduledExecutorService timer;
+
+	private final Duration writeTimeout;
+
+	private final int bufferSize;
+
+	private final Duration timeout;
+
+	private final Entry[] history;
+
+	private long lastId;
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final LongAdder timedOut = new LongAdder();
+
+	@Autowired
+	VisitFeed(ObjectProvider<MeterRegistry> registry, @Value("${petclinic.visits.feed.buffer-size:64}") int bufferSize,
+			@Value("${petclinic.visits.feed.history-size:256}") int historySize,
+			@Value("${petclinic.visits.feed.heartbeat-interval:15s}") Duration heartbeatInterval,
+			@Value("${petclinic.visits.feed.timeout:30m}") Duration timeout,
+			@Value("${petclinic.visits.feed.write-timeout:10s}") Duration writeTimeout,
+			@Value("${petclinic.visits.feed.threads:4}") int threads) {
+		this(Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("visit-feed-")),
+				Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("visit-feed-timer-")),
+				bufferSize, historySize, timeout, writeTimeout);
+		this.timer.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+		registry.ifAvailable(this::registerMetrics);
+	}
+
+	VisitFeed(Executor executor, ScheduledExecutorService timer, int bufferSize, int historySize, Duration timeout,
+			Duration writeTimeout) {
+		this.executor = executor;
+		this.timer = timer;
+		this.bufferSize = bufferSize;
+		this.timeout = timeout;
+		this.writeTimeout = writeTimeout;
+		this.history = new Entry[historySize];
+	}
+
+	private void registerMetrics(MeterRegistry registry) {
+		Gauge.builder("petclinic.visits.feed.subscribers", this.subscribers, Set::size)
+			.description("Clients subscribed to the visit feed")
+			.register(registry);
+		FunctionCounter.builder("petclinic.visits.feed.dropped", this.dropped, LongAdder::sum)
+			.description("Visit feed events dropped because a subscriber was too slow to read them")
+			.register(registry);
+		FunctionCounter.builder("petclinic.visits.feed.timeouts", this.timedOut, LongAdder::sum)
+			.description("Visit feed subscribers closed because a write to them did not complete in time")
+			.register(registry);
+	}
+
+	/**
+	 * Subscribe to the visits booked from now on.
+	 * @param ownerId the owner whose pets' visits to send, {@code null} for all
+	 * @param lastEventId the id of the last event the client received before
+	 * reconnecting, {@code null} for a new client
+	 * @return the emitter the events are sent through
+	 */
+	SseEmitter subscribe(Integer ownerId, String lastEventId) {
+		SseEmitter emitter = new SseEmitter(this.timeout.toMillis());
+		Subscriber subscriber = new Subscriber(emitter, ownerId);
+		emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+		emitter.onError((ex) -> this.subscribers.remove(subscriber));
+		emitter.onTimeout(emitter::complete);
+		synchronized (this) {
+			long after = parseId(lastEventId);
+			if (after >= 0 && after <= this.lastId) {
+				for (long id = Math.max(after + 1, this.lastId - this.history.length + 1); id <= this.lastId; id++) {
+					subscriber.offer(this.history[(int) (id % this.history.length)]);
+				}
+			}
+			this.subscribers.add(subscriber);
+		}
+		return emitter;
+	}
+
+	@TransactionalEventListener
+	void visitBooked(VisitBookedEvent event) {
+		publish(event);
+	}
+
+	/**
+	 * Send the given visit to the current subscribers and keep it for the ones
+	 * reconnecting later.
+	 * @return the id of the event
+	 */
+	synchronized long publish(VisitBookedEvent event) {
+		Entry entry = new Entry(++this.lastId, event);
+		this.history[(int) (entry.id() % this.history.length)] = entry;
+		for (Subscriber subscriber : this.subscribers) {
+			subscriber.offer(entry);
+		}
+		return entry.id();
+	}
+
+	void heartbeat() {
+		for (Subscriber subscriber : this.subscribers) {
+			subscriber.heartbeat();
+		}
+	}
+
+	int getSubscriberCount() {
+		return this.subscribers.size();
+	}
+
+	long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	long getTimedOutCount() {
+		return this.timedOut.sum();
+	}
+
+	@PreDestroy
+	void close() {
+		for (Subscriber subscriber : this.subscribers) {
+			subscriber.emitter.complete();
+		}
+		if (this.executor instanceof ExecutorService executorService) {
+			executorService.shutdownNow();
+		}
+		this.timer.shutdownNow();
+	}
+
+	private static long parseId(String id) {
+		try {
+			return (id != null) ? Long.parseLong(id.trim()) : -1;
+		}
+		catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	private record Entry(long id, VisitBookedEvent event) {
+
+	}
+
+	/**
+	 * A client with the events not sent to it yet. At most one sending thread drains the
+	 * queue of a subscriber at any time.
+	 */
+	private final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private final Integer ownerId;
+
+		private final Deque<Entry> queue = new ArrayDeque<>();
+
+		private boolean heartbeatDue;
+
+		private boolean draining;
+
+		private boolean closed;
+
+		/**
+		 * The thread blocked in a send, {@code null} when not sending.
+		 */
+		private Thread sender;
+
+		Subscriber(SseEmitter emitter, Integer ownerId) {
+			this.emitter = emitter;
+			this.ownerId = ownerId;
+		}
+
+		synchronized void offer(Entry entry) {
+			if (this.ownerId != null && !this.ownerId.equals(entry.event().ownerId())) {
+				return;
+			}
+			if (this.queue.size() >= VisitFeed.this.bufferSize) {
+				this.queue.removeFirst();
+				VisitFeed.this.dropped.increment();
+			}
+			this.queue.addLast(entry);
+			schedule();
+		}
+
+		synchronized void heartbeat() {
+			if (this.queue.isEmpty()) {
+				this.heartbeatDue = true;
+				schedule();
+			}
+		}
+
+		private void schedule() {
+			if (!this.draining && !this.closed) {
+				this.draining = true;
+				try {
+					VisitFeed.this.executor.execute(this::drain);
+				}
+				catch (RejectedExecutionException ex) {
+					this.draining = false;
+				}
+			}
+		}
+
+		private void drain() {
+			while (true) {
+				SseEmitter.SseEventBuilder event;
+				synchronized (this) {
+					Entry entry = this.queue.pollFirst();
+					if (entry != null) {
+						event = SseEmitter.event()
+							.id(Long.toString(entry.id()))
+							.name(EVENT_NAME)
+							.data(entry.event(), MediaType.APPLICATION_JSON);
+					}
+					else if (this.heartbeatDue) {
+						event = SseEmitter.event().comment("heartbeat");
+					}
+					else {
+						this.draining = false;
+						return;
+					}
+					this.heartbeatDue = false;
+				}
+				ScheduledFuture<?> writeTimeout = startSend();
+				try {
+					this.emitter.send(event);
+				}
+				catch (IOException | IllegalStateException ex) {
+					// the client went away, the container completes the emitter
+					close();
+					return;
+				}
+				finally {
+					writeTimeout.cancel(false);
+					endSend();
+				}
+			}
+		}
+
+		private synchronized ScheduledFuture<?> startSend() {
+			this.sender = Thread.currentThread();
+			return VisitFeed.this.timer.schedule(this::writeTimedOut, VisitFeed.this.writeTimeout.toMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized void endSend() {
+			this.sender = null;
+			// clear an interrupt of a timed out send that returned meanwhile
+			Thread.interrupted();
+		}
+
+		private void writeTimedOut() {
+			synchronized (this) {
+				if (this.sender == null || this.closed) {
+					return;
+				}
+				this.sender.interrupt();
+			}
+			VisitFeed.this.timedOut.increment();
+			close();
+			// unlike complete(), failing the request releases a thread blocked writing to
+			// it
+			this.emitter.completeWithError(new SocketTimeoutException(
+					"Visit feed event not written within " + VisitFeed.this.writeTimeout.toMillis() + " ms"));
+		}
+
+		private void close() {
+			synchronized (this) {
+				this.closed = true;
+				this.queue.clear();
+			}
+			VisitFeed.this.subscribers.remove(this);
+		}
+
+	}
+
+}
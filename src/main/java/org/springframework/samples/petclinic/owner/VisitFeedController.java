@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams newly booked visits as server-sent events: {@code GET /visits/feed}, optionally
+ * with {@code ownerId} to only receive the visits of one owner's pets. Each event is
+ * named {@code visit} and carries the {@link VisitBookedEvent} as JSON.
+ */
+@Controller
+class VisitFeedController {
+
+	private final VisitFeed feed;
+
+	VisitFeedController(VisitFeed feed) {
+		this.feed = feed;
+	}
+
+	@GetMapping(path = "/visits/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter subscribe(@RequestParam(required = false) Integer ownerId,
+			@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+		return this.feed.subscribe(ownerId, lastEventId);
+	}
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for <code>Visit</code> domain objects. Visits are read per pet, newest
+ * first, using the index on <code>(pet_id, visit_date)</code>, so that a pet's history is
+ * never loaded as a whole.
+ * <p>
+ * Visits older than the archive horizon are moved to the <code>visits_archive</code>
+ * table by the {@link VisitArchiver}. The methods returning a pet's history or the
+ * schedule read both tables; only {@link Pet#getVisits()} is limited to the hot table.
+ */
+public interface VisitRepository extends Repository<Visit, Integer>, VisitBooking {
+
+	Comparator<VisitEntry> NEWEST_FIRST = Comparator.comparing(VisitEntry::getDate)
+		.thenComparing(VisitEntry::getId)
+		.reversed();
+
+	Comparator<ScheduledVisit> SCHEDULE_ORDER = Comparator.comparing(ScheduledVisit::date)
+		.thenComparing(ScheduledVisit::id);
+
+	/**
+	 * Retrieve a page of the whole history of a pet, archived visits included, newest
+	 * first.
+	 * @param petId the id of the pet
+	 * @param pageable the page to return
+	 * @return a page of visits
+	 */
+	default Page<VisitEntry> findVisitHistory(Integer petId, Pageable pageable) {
+		return findVisitHistoryRows(petId, pageable).map((row) -> row);
+	}
+
+	/**
+	 * Native query behind {@link #findVisitHistory(Integer, Pageable)}, reading both
+	 * tables with a single <code>UNION ALL</code> statement.
+	 */
+	@Query(value = """
+			SELECT id, visit_date AS date, description FROM visits WHERE pet_id = :petId
+			UNION ALL
+			SELECT id, visit_date AS date, description FROM visits_archive WHERE pet_id = :petId
+			ORDER BY date DESC, id DESC
+			""", countQuery = """
+			SELECT COUNT(*) FROM (
+			SELECT id FROM visits WHERE pet_id = :petId
+			UNION ALL
+			SELECT id FROM visits_archive WHERE pet_id = :petId
+			) history
+			""", nativeQuery = true)
+	@Transactional(readOnly = true)
+	Page<HistoryRow> findVisitHistoryRows(Integer petId, Pageable pageable);
+
+	/**
+	 * Retrieve the latest visits of a pet from the hot table, newest first.
+	 * @param petId the id of the pet
+	 * @param limit the maximum number of visits to return
+	 * @return the latest visits
+	 */
+	@Transactional(readOnly = true)
+	List<Visit> findByPetIdOrderByDateDescIdDesc(Integer petId, Limit limit);
+
+	/**
+	 * Retrieve the latest visits of each of the given pets from the hot table, newest
+	 * first per pet, with a single statement.
+	 * @param petIds the ids of the pets
+	 * @param limit the maximum number of visits to return per pet
+	 * @return the latest visits, with the id of their pet
+	 */
+	@Query(value = """
+			SELECT id, visit_date AS date, description, pet_id AS petId FROM (
+			SELECT id, visit_date, description, pet_id,
+			ROW_NUMBER() OVER (PARTITION BY pet_id ORDER BY visit_date DESC, id DESC) AS visit_rank
+			FROM visits WHERE pet_id IN (:petIds)
+			) recent WHERE visit_rank <= :limit
+			""", nativeQuery = true)
+	@Transactional(readOnly = true)
+	List<RecentVisitRow> findRecentCurrentVisits(Collection<Integer> petIds, int limit);
+
+	/**
+	 * Retrieve the latest archived visits of each of the given pets, see
+	 * {@link #findRecentCurrentVisits(Collection, int)}.
+	 */
+	@Query(value = """
+			SELECT id, visit_date AS date, description, pet_id AS petId FROM (
+			SELECT id, visit_date, description, pet_id,
+			ROW_NUMBER() OVER (PARTITION BY pet_id ORDER BY visit_date DESC, id DESC) AS visit_rank
+			FROM visits_archive WHERE pet_id IN (:petIds)
+			) recent WHERE visit_rank <= :limit
+			""", nativeQuery = true)
+	@Transactional(readOnly = true)
+	List<RecentVisitRow> findRecentArchivedVisits(Collection<Integer> petIds, int limit);
+
+	/**
+	 * Retrieve the latest archived visits of a pet, newest first.
+	 * @param petId the id of the pet
+	 * @param limit the maximum number of visits to return
+	 * @return the latest archived visits
+	 */
+	@Query("SELECT a FROM ArchivedVisit a WHERE a.pet.id = :petId ORDER BY a.date DESC, a.id DESC")
+	@Transactional(readOnly = true)
+	List<ArchivedVisit> findArchivedVisits(Integer petId, Limit limit);
+
+	/**
+	 * Retrieve the visits of the hot table between two dates, inclusive, in date order,
+	 * starting after the given visit. The range is read from the index on
+	 * <code>visit_date</code> and the position is a keyset rather than an offset, so that
+	 * any slice of a long range costs the same to read.
+	 * @param from the first day of the range
+	 * @param to the last day of the range
+	 * @param afterDate the date of the last visit already read, or the day before
+	 * <code>from</code> to start at the beginning of the range
+	 * @param afterId the id of the last visit already read, or <code>0</code>
+	 * @param limit the maximum number of visits to return
+	 * @return the visits, with the names of their pet and owner
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.ScheduledVisit(v.id, v.date, v.description,
+			p.id, p.name, t.name, o.id, o.firstName, o.lastName)
+			FROM Owner o JOIN o.pets p JOIN p.type t JOIN p.visits v
+			WHERE v.date BETWEEN :from AND :to
+			AND (v.date > :afterDate OR (v.date = :afterDate AND v.id > :afterId))
+			ORDER BY v.date, v.id
+			""")
+	@Transactional(readOnly = true)
+	List<ScheduledVisit> findCurrentSchedule(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+			Limit limit);
+
+	/**
+	 * Retrieve the archived visits between two dates, see
+	 * {@link #findCurrentSchedule(LocalDate, LocalDate, LocalDate, Integer, Limit)}.
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.ScheduledVisit(a.id, a.date, a.description,
+			p.id, p.name, t.name, o.id, o.firstName, o.lastName)
+			FROM Owner o JOIN o.pets p JOIN p.type t JOIN ArchivedVisit a ON a.pet = p
+			WHERE a.date BETWEEN :from AND :to
+			AND (a.date > :afterDate OR (a.date = :afterDate AND a.id > :afterId))
+			ORDER BY a.date, a.id
+			""")
+	@Transactional(readOnly = true)
+	List<ScheduledVisit> findArchivedSchedule(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+			Limit limit);
+
+	/**
+	 * Retrieve the visits between two dates, inclusive, from both the hot table and the
+	 * archive, in date order, starting after the given visit.
+	 * @param from the first day of the range
+	 * @param to the last day of the range
+	 * @param afterDate the date of the last visit already read, or the day before
+	 * <code>from</code> to start at the beginning of the range
+	 * @param afterId the id of the last visit already read, or <code>0</code>
+	 * @param limit the maximum number of visits to return
+	 * @return the visits, with the names of their pet and owner
+	 */
+	default List<ScheduledVisit> findSchedule(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId,
+			Limit limit) {
+		List<ScheduledVisit> schedule = new ArrayList<>(findCurrentSchedule(from, to, afterDate, afterId, limit));
+		schedule.addAll(findArchivedSchedule(from, to, afterDate, afterId, limit));
+		schedule.sort(SCHEDULE_ORDER);
+		return schedule.subList(0, Math.min(limit.max(), schedule.size()));
+	}
+
+	/**
+	 * Retrieve the visits of the hot table with the given ids.
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.ScheduledVisit(v.id, v.date, v.description,
+			p.id, p.name, t.name, o.id, o.firstName, o.lastName)
+			FROM Owner o JOIN o.pets p JOIN p.type t JOIN p.visits v
+			WHERE v.id IN :ids
+			""")
+	@Transactional(readOnly = true)
+	List<ScheduledVisit> findCurrentVisitsByIds(Collection<Integer> ids);
+
+	/**
+	 * Retrieve the archived visits with the given ids.
+	 */
+	@Query("""
+			SELECT new org.springframework.samples.petclinic.owner.ScheduledVisit(a.id, a.date, a.description,
+			p.id, p.name, t.name, o.id, o.firstName, o.lastName)
+			FROM Owner o JOIN o.pets p JOIN p.type t JOIN ArchivedVisit a ON a.pet = p
+			WHERE a.id IN :ids
+			""")
+	@Transactional(readOnly = true)
+	List<ScheduledVisit> findArchivedVisitsByIds(Collection<Integer> ids);
+
+	/**
+	 * Retrieve the visits with the given ids, from both the hot table and the archive,
+	 * with the names of their pet and owner.
+	 * @param ids the ids of the visits
+	 * @return the visits found, in the order of the given ids
+	 */
+	default List<ScheduledVisit> findVisitsByIds(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		Map<Integer, ScheduledVisit> found = new HashMap<>();
+		findCurrentVisitsByIds(ids).forEach((visit) -> found.put(visit.id(), visit));
+		if (found.size() < ids.size()) {
+			findArchivedVisitsByIds(ids).forEach((visit) -> found.put(visit.id(), visit));
+		}
+		return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+	}
+
+	/**
+	 * Retrieve the given number of latest visits of a pet, and whether there are older
+	 * ones. The archive is only read when the hot table does not hold enough visits.
+	 * @param petId the id of the pet
+	 * @param count the number of visits to return
+	 * @return the latest visits
+	 */
+	default RecentVisits findRecentVisits(Integer petId, int count) {
+		List<VisitEntry> visits = new ArrayList<>(findByPetIdOrderByDateDescIdDesc(petId, Limit.of(count + 1)));
+		if (visits.size() <= count) {
+			visits.addAll(findArchivedVisits(petId, Limit.of(count + 1 - visits.size())));
+			visits.sort(NEWEST_FIRST);
+		}
+		return new RecentVisits(visits.subList(0, Math.min(count, visits.size())), visits.size() > count);
+	}
+
+	/**
+	 * Retrieve the given number of latest visits of each of the given pets, and whether
+	 * they have older ones, with one statement for all pets. The archive is only read,
+	 * with a second statement, for the pets whose visits in the hot table do not suffice.
+	 * @param petIds the ids of the pets
+	 * @param count the number of visits to return per pet
+	 * @return the latest visits, by pet id
+	 */
+	default Map<Integer, RecentVisits> findRecentVisits(Collection<Integer> petIds, int count) {
+		if (petIds.isEmpty()) {
+			return Map.of();
+		}
+		Map<Integer, List<VisitEntry>> visits = new HashMap<>();
+		petIds.forEach((petId) -> visits.put(petId, new ArrayList<>()));
+		findRecentCurrentVisits(petIds, count + 1).forEach((row) -> visits.get(row.getPetId()).add(row));
+		List<Integer> incomplete = petIds.stream().filter((petId) -> visits.get(petId).size() <= count).toList();
+		if (!incomplete.isEmpty()) {
+			findRecentArchivedVisits(incomplete, count + 1).forEach((row) -> visits.get(row.getPetId()).add(row));
+		}
+		Map<Integer, RecentVisits> recent = new HashMap<>();
+		visits.forEach((petId, entries) -> {
+			entries.sort(NEWEST_FIRST);
+			recent.put(petId,
+					new RecentVisits(entries.subList(0, Math.min(count, entries.size())), entries.size() > count));
+		});
+		return recent;
+	}
+
+	/**
+	 * Projection of the rows of the visit history. A dedicated interface, as Spring Data
+	 * would not project onto {@link VisitEntry}, which {@link Visit} implements.
+	 */
+	interface HistoryRow extends VisitEntry {
+
+	}
+
+	/**
+	 * Projection of the latest visits of several pets.
+	 */
+	interface RecentVisitRow extends VisitEntry {
+
+		Integer getPetId();
+
+	}
+
+	/**
+	 * The latest visits of a pet.
+	 *
+	 * @param visits the latest visits, newest first
+	 * @param more whether the pet has older visits
+	 */
+	record RecentVisits(List<VisitEntry> visits, boolean more) {
+
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A slice of the clinic schedule, as returned by the <code>/visits</code> JSON endpoint.
+ *
+ * @param from the first day of the requested range
+ * @param to the last day of the requested range
+ * @param visits the visits of this slice, in date order
+ * @param next the position to continue from, or <code>null</code> when the range has been
+ * read completely
+ */
+public record VisitSchedule(LocalDate from, LocalDate to, List<ScheduledVisit> visits, Position next) {
+
+	/**
+	 * Keyset position in the schedule, passed back as the <code>afterDate</code> and
+	 * <code>afterId</code> request parameters to read the next slice.
+	 *
+	 * @param afterDate the date of the last visit read
+	 * @param afterId the id of the last visit read
+	 */
+	public record Position(LocalDate afterDate, Integer afterId) {
+
+	}
+
+}
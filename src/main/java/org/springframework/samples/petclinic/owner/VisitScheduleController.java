@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Lists the visits booked for a day, or for a range of days, across all pets. The list is
+ * read in slices positioned by the last visit shown, so a long range never needs an
+ * offset scan or a count.
+ */
+@Controller
+class VisitScheduleController {
+
+	static final int PAGE_SIZE = 50;
+
+	static final int MAX_SLICE_SIZE = 1000;
+
+	private final VisitRepository visits;
+
+	VisitScheduleController(VisitRepository visits) {
+		this.visits = visits;
+	}
+
+	@GetMapping("/visits")
+	public String showSchedule(@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate date,
+			@RequestParam(defaultValue = "0") int afterId, Model model) {
+		LocalDate day = date != null ? date : LocalDate.now();
+		VisitSchedule schedule = findSchedule(day, day, new VisitSchedule.Position(day, afterId), PAGE_SIZE);
+		model.addAttribute("date", day);
+		model.addAttribute("schedule", schedule);
+		return "visits/schedule";
+	}
+
+	@GetMapping(path = "/visits", produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody VisitSchedule showScheduleResource(
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate date,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate afterDate,
+			@RequestParam(defaultValue = "0") int afterId, @RequestParam(defaultValue = "" + PAGE_SIZE) int size) {
+		if (date != null) {
+			from = date;
+			to = date;
+		}
+		if (from == null || to == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either date or from and to are required");
+		}
+		if (to.isBefore(from)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+		}
+		if (size < 1 || size > MAX_SLICE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_SLICE_SIZE);
+		}
+		VisitSchedule.Position after = afterDate != null ? new VisitSchedule.Position(afterDate, afterId)
+				: new VisitSchedule.Position(from.minusDays(1), 0);
+		return findSchedule(from, to, after, size);
+	}
+
+	private VisitSchedule findSchedule(LocalDate from, LocalDate to, VisitSchedule.Position after, int size) {
+		// read one more than requested to know whether there is a next slice
+		List<ScheduledVisit> found = this.visits.findSchedule(from, to, after.afterDate(), after.afterId(),
+				Limit.of(size + 1));
+		if (found.size() <= size) {
+			return new VisitSchedule(from, to, found, null);
+		}
+		List<ScheduledVisit> slice = found.subList(0, size);
+		ScheduledVisit last = slice.get(size - 1);
+		return new VisitSchedule(from, to, List.copyOf(slice), new VisitSchedule.Position(last.date(), last.id()));
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A full-text query over visit descriptions: all clauses must match. Words are matched as
+ * terms, words ending with {@code *} as prefixes and quoted text as a phrase, so
+ * {@code "hind leg" limp*} finds visits mentioning "hind leg" and "limping".
+ */
+final class SearchQuery {
+
+	private static final Pattern CLAUSE = Pattern.compile("\"([^\"]*)\"?|(\\S+)");
+
+	private final List<Clause> clauses;
+
+	private SearchQuery(List<Clause> clauses) {
+		this.clauses = clauses;
+	}
+
+	static SearchQuery parse(String text) {
+		List<Clause> clauses = new ArrayList<>();
+		Matcher matcher = CLAUSE.matcher((text != null) ? text : "");
+		while (matcher.find()) {
+			if (matcher.group(1) != null) {
+				addPhrase(clauses, VisitIndex.tokenize(matcher.group(1)));
+			}
+			else {
+				String word = matcher.group(2);
+				List<String> terms = VisitIndex.tokenize(word);
+				if (word.endsWith("*") && terms.size() == 1) {
+					clauses.add(new Prefix(terms.get(0)));
+				}
+				else {
+					// "check-up" is tokenized as two terms that must follow each other
+					addPhrase(clauses, terms);
+				}
+			}
+		}
+		return new SearchQuery(List.copyOf(clauses));
+	}
+
+	private static void addPhrase(List<Clause> clauses, List<String> terms) {
+		if (terms.size() == 1) {
+			clauses.add(new Term(terms.get(0)));
+		}
+		else if (terms.size() > 1) {
+			clauses.add(new Phrase(terms));
+		}
+	}
+
+	List<Clause> getClauses() {
+		return this.clauses;
+	}
+
+	boolean isEmpty() {
+		return this.clauses.isEmpty();
+	}
+
+	sealed interface Clause permits Term, Prefix, Phrase {
+
+	}
+
+	record Term(String term) implements Clause {
+
+	}
+
+	record Prefix(String prefix) implements Clause {
+
+	}
+
+	record Phrase(List<String> terms) implements Clause {
+
+	}
+
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index of visit descriptions. Each term maps to the sorted ids of the visits
+ * whose description contains it, and for each visit to the positions of the term in the
+ * description, which is what phrase queries are checked against. Terms are kept sorted so
+ * that a prefix query reads a contiguous range of them.
+ * <p>
+ * Safe for concurrent use: visits are added under a write lock and searched under a read
+ * lock.
+ */
+final class VisitIndex {
+
+	private static final int MAGIC = 0x50435649;
+
+	private static final int VERSION = 1;
+
+	private final NavigableMap<String, Postings> terms = new TreeMap<>();
+
+	private final BitSet visits = new BitSet();
+
+	private int maxVisitId;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Split text into lower case terms of letters and digits.
+	 */
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean partOfToken = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (partOfToken && start < 0) {
+				start = i;
+			}
+			else if (!partOfToken && start >= 0) {
+				tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Index the description of a visit. Visits already indexed are ignored, so adding the
+	 * same visit twice is harmless.
+	 */
+	void add(int visitId, String description) {
+		this.lock.writeLock().lock();
+		try {
+			if (this.visits.get(visitId)) {
+				return;
+			}
+			this.visits.set(visitId);
+			this.maxVisitId = Math.max(this.maxVisitId, visitId);
+			Map<String, List<Integer>> positions = new HashMap<>();
+			List<String> tokens = tokenize(description);
+			for (int position = 0; position < tokens.size(); position++) {
+				positions.computeIfAbsent(tokens.get(position), (term) -> new ArrayList<>()).add(position);
+			}
+			positions.forEach((term, list) -> this.terms.computeIfAbsent(term, (t) -> new Postings())
+				.add(visitId, list.stream().mapToInt(Integer::intValue).toArray()));
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	int getMaxVisitId() {
+		this.lock.readLock().lock();
+		try {
+			return this.maxVisitId;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	int getVisitCount() {
+		this.lock.readLock().lock();
+		try {
+			return this.visits.cardinality();
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Return the ids of the visits matching all clauses of the query, newest first.
+	 * @param query the query
+	 * @param limit the maximum number of ids to return
+	 */
+	List<Integer> search(SearchQuery query, int limit) {
+		if (query.isEmpty()) {
+			return List.of();
+		}
+		this.lock.readLock().lock();
+		try {
+			int[] matches = null;
+			for (SearchQuery.Clause clause : query.getClauses()) {
+				int[] clauseMatches = matches(clause);
+				matches = (matches != null) ? intersect(matches, clauseMatches) : clauseMatches;
+				if (matches.length == 0) {
+					return List.of();
+				}
+			}
+			List<Integer> newestFirst = new ArrayList<>(Math.min(limit, matches.length));
+			for (int i = matches.length - 1; i >= 0 && newestFirst.size() < limit; i--) {
+				newestFirst.add(matches[i]);
+			}
+			return newestFirst;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private int[] matches(SearchQuery.Clause clause) {
+		if (clause instanceof SearchQuery.Prefix prefix) {
+			return prefix(prefix.prefix());
+		}
+		if (clause instanceof SearchQuery.Phrase phrase) {
+			return phrase(phrase.terms());
+		}
+		return docs(this.terms.get(((SearchQuery.Term) clause).term()));
+	}
+
+	private static int[] docs(Postings postings) {
+		return (postings != null) ? Arrays.copyOf(postings.docs, postings.size) : new int[0];
+	}
+
+	private int[] prefix(String prefix) {
+		return this.terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true)
+			.values()
+			.stream()
+			.flatMapToInt((postings) -> IntStream.of(postings.docs).limit(postings.size))
+			.sorted()
+			.distinct()
+			.toArray();
+	}
+
+	private int[] phrase(List<String> phrase) {
+		Postings[] postings = new Postings[phrase.size()];
+		int[] candidates = null;
+		for (int i = 0; i < postings.length; i++) {
+			postings[i] = this.terms.get(phrase.get(i));
+			if (postings[i] == null) {
+				return new int[0];
+			}
+			candidates = (candidates != null) ? intersect(candidates, docs(postings[i])) : docs(postings[i]);
+		}
+		return IntStream.of(candidates).filter((doc) -> containsPhrase(postings, doc)).toArray();
+	}
+
+	private static boolean containsPhrase(Postings[] phrase, int doc) {
+		int[] first = phrase[0].positions(doc);
+		for (int start : first) {
+			boolean matches = true;
+			for (int i = 1; i < phrase.length && matches; i++) {
+				matches = Arrays.binarySearch(phrase[i].positions(doc), start + i) >= 0;
+			}
+			if (matches) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int[] intersect(int[] left, int[] right) {
+		int[] result = new int[Math.min(left.length, right.length)];
+		int size = 0;
+		for (int i = 0, j = 0; i < left.length && j < right.length;) {
+			if (left[i] < right[j]) {
+				i++;
+			}
+			else if (left[i] > right[j]) {
+				j++;
+			}
+			else {
+				result[size++] = left[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * Write the index in a compact binary form that {@link #readFrom(DataInputStream)}
+	 * reads back.
+	 */
+	void writeTo(DataOutputStream out) throws IOException {
+		this.lock.readLock().lock();
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(this.maxVisitId);
+			long[] visits = this.visits.toLongArray();
+			out.writeInt(visits.length);
+			for (long word : visits) {
+				out.writeLong(word);
+			}
+			out.writeInt(this.terms.size());
+			for (Map.Entry<String, Postings> entry : this.terms.entrySet()) {
+				Postings postings = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeInt(postings.size);
+				int previous = 0;
+				for (int i = 0; i < postings.size; i++) {
+					// ids are sorted, deltas keep them small
+					out.writeInt(postings.docs[i] - previous);
+					previous = postings.docs[i];
+					out.writeShort(postings.positions[i].length);
+					for (int position : postings.positions[i]) {
+						out.writeShort(position);
+					}
+				}
+			}
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Read an index written by {@link #writeTo(DataOutputStream)}.
+	 * @throws IOException if the data cannot be read or was not written by this version
+	 */
+	static VisitIndex readFrom(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException("Not a visit index of version " + VERSION);
+		}
+		VisitIndex index = new VisitIndex();
+		index.maxVisitId = in.readInt();
+		long[] visits = new long[in.readInt()];
+		for (int i = 0; i < visits.length; i++) {
+			visits[i] = in.readLong();
+		}
+		index.visits.or(BitSet.valueOf(visits));
+		int terms = in.readInt();
+		for (int t = 0; t < terms; t++) {
+			String term = in.readUTF();
+			Postings postings = new Postings();
+			int size = in.readInt();
+			int doc = 0;
+			for (int i = 0; i < size; i++) {
+				doc += in.readInt();
+				int[] positions = new int[in.readUnsignedShort()];
+				for (int p = 0; p < positions.length; p++) {
+					positions[p] = in.readUnsignedShort();
+				}
+				postings.add(doc, positions);
+			}
+			index.terms.put(term, postings);
+		}
+		return index;
+	}
+
+	/**
+	 * Visits containing a term, sorted by id, with the positions of the term in each.
+	 */
+	private static final class Postings {
+
+		private int size;
+
+		private int[] docs = new int[4];
+
+		private int[][] positions = new int[4][];
+
+		void add(int doc, int[] docPositions) {
+			if (this.size == this.docs.length) {
+				this.docs = Arrays.copyOf(this.docs, this.size * 2);
+				this.positions = Arrays.copyOf(this.positions, this.size * 2);
+			}
+			// visits are nearly always added in id order, except for concurrent bookings
+			int index = this.size;
+			while (index > 0 && this.docs[index - 1] > doc) {
+				index--;
+			}
+			System.arraycopy(this.docs, index, this.docs, index + 1, this.size - index);
+			System.arraycopy(this.positions, index, this.positions, index + 1, this.size - index);
+			this.docs[index] = doc;
+			this.positions[index] = docPositions;
+			this.size++;
+		}
+
+		int[] positions(int doc) {
+			return this.positions[Arrays.binarySearch(this.docs, 0, this.size, doc)];
+		}
+
+	}
+
+}
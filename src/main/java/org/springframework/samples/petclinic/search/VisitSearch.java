@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.samples.petclinic.owner.ScheduledVisit;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Full-text search over the descriptions of all visits, archived visits included, backed
+ * by a {@link VisitIndex} held in memory.
+ * <p>
+ * The index is built on first use by streaming the descriptions of all visits, and kept
+ * up to date as visits are booked, including while it is being built: a booking committed
+ * after the scan has read past it is added by its event instead. When
+ * {@code petclinic.search.index-file} is set the index is saved there after it is built
+ * and on shutdown, and loaded back on the next start, so only the visits booked since it
+ * was saved have to be read. A saved index that no longer matches the number of visits in
+ * the database is discarded and rebuilt.
+ */
+@Component
+class VisitSearch {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitSearch.class);
+
+	private static final String SCAN = """
+			SELECT id, description FROM (
+			SELECT id, description FROM visits WHERE id > ?
+			UNION ALL
+			SELECT id, description FROM visits_archive WHERE id > ?
+			) history
+			ORDER BY id
+			""";
+
+	private static final String COUNT_VISITS = "SELECT COUNT(*) FROM visits WHERE id <= ?";
+
+	private static final String COUNT_ARCHIVED_VISITS = "SELECT COUNT(*) FROM visits_archive WHERE id <= ?";
+
+	private static final int FETCH_SIZE = 10_000;
+
+	private final VisitRepository visits;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Path indexFile;
+
+	private volatile VisitIndex index;
+
+	/**
+	 * The index booked visits are added to, set before it is filled so that none is
+	 * missed while the database is scanned.
+	 */
+	private volatile VisitIndex building;
+
+	VisitSearch(VisitRepository visits, DataSource dataSource, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.search.index-file:}") String indexFile) {
+		this.visits = visits;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.indexFile = StringUtils.hasText(indexFile) ? Path.of(indexFile) : null;
+	}
+
+	@TransactionalEventListener
+	void visitBooked(VisitBookedEvent event) {
+		VisitIndex index = this.building;
+		if (index != null) {
+			index.add(event.visitId(), event.description());
+		}
+	}
+
+	/**
+	 * Find the visits whose description matches the query, with their pet and owner.
+	 * @param query the query, see {@link SearchQuery} for the syntax
+	 * @param limit the maximum number of visits to return
+	 * @return the matching visits, most recently booked first
+	 */
+	List<ScheduledVisit> search(String query, int limit) {
+		SearchQuery parsed = SearchQuery.parse(query);
+		if (parsed.isEmpty()) {
+			return List.of();
+		}
+		return this.visits.findVisitsByIds(index().search(parsed, limit));
+	}
+
+	private VisitIndex index() {
+		VisitIndex index = this.index;
+		if (index == null) {
+			synchronized (this) {
+				index = this.index;
+				if (index == null) {
+					long start = System.nanoTime();
+					index = load();
+					this.building = index;
+					int saved = index.getVisitCount();
+					catchUp(index);
+					logger.info("Indexed {} visit descriptions, {} read from the database ({} ms)",
+							index.getVisitCount(), index.getVisitCount() - saved,
+							(System.nanoTime() - start) / 1_000_000);
+					if (saved == 0) {
+						save(index);
+					}
+					this.index = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	private VisitIndex load() {
+		if (this.indexFile == null || !Files.exists(this.indexFile)) {
+			return new VisitIndex();
+		}
+		try (InputStream in = Files.newInputStream(this.indexFile)) {
+			VisitIndex index = VisitIndex.readFrom(new DataInputStream(new BufferedInputStream(in)));
+			long count = this.jdbcTemplate.queryForObject(COUNT_VISITS, Long.class, index.getMaxVisitId())
+					+ this.jdbcTemplate.queryForObject(COUNT_ARCHIVED_VISITS, Long.class, index.getMaxVisitId());
+			if (count == index.getVisitCount()) {
+				return index;
+			}
+			logger.warn("Search index {} holds {} visits but the database has {}, rebuilding it", this.indexFile,
+					index.getVisitCount(), count);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read search index {}, rebuilding it", this.indexFile, ex);
+		}
+		return new VisitIndex();
+	}
+
+	private void catchUp(VisitIndex index) {
+		int afterId = index.getMaxVisitId();
+		this.transactionTemplate.executeWithoutResult((status) -> this.jdbcTemplate.query(SCAN,
+				(RowCallbackHandler) (rs) -> index.add(rs.getInt(1), rs.getString(2)), afterId, afterId));
+	}
+
+	@PreDestroy
+	void save() {
+		VisitIndex index = this.index;
+		if (index != null) {
+			save(index);
+		}
+	}
+
+	private void save(VisitIndex index) {
+		if (this.indexFile == null) {
+			return;
+		}
+		try {
+			Path directory = this.indexFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, this.indexFile.getFileName().toString(), ".tmp");
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+				index.writeTo(data);
+				data.flush();
+			}
+			// readers never see a partially written index
+			Files.move(temp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not save search index to {}", this.indexFile, ex);
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.ScheduledVisit;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Finds visits by the words of their description, see {@link SearchQuery} for the query
+ * syntax.
+ */
+@Controller
+class VisitSearchController {
+
+	static final int RESULT_LIMIT = 50;
+
+	private final VisitSearch search;
+
+	VisitSearchController(VisitSearch search) {
+		this.search = search;
+	}
+
+	@GetMapping("/visits/search")
+	public String searchVisits(@RequestParam(defaultValue = "") String q, Model model) {
+		model.addAttribute("q", q);
+		model.addAttribute("visits", this.search.search(q, RESULT_LIMIT));
+		return "visits/search";
+	}
+
+	@GetMapping(path = "/visits/search", produces = MediaType.APPLICATION_JSON_VALUE)
+	public @ResponseBody List<ScheduledVisit> searchVisitsResource(@RequestParam(defaultValue = "") String q) {
+		return this.search.search(q, RESULT_LIMIT);
+	}
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ad-hoc filter and group-by queries over all visits, archived visits included, served
+ * from a columnar snapshot held in memory.
+ * <p>
+ * The snapshot is built by a single streaming scan of the visits joined with their pet,
+ * pet type and owner, and stored as primitive arrays in {@link VisitColumns} segments,
+ * with pet types and cities encoded through dictionaries. It is refreshed incrementally:
+ * the ids of booked visits are queued once their transaction commits and the next query
+ * appends a segment with those visits and any visit above the highest id seen so far. Ids
+ * are not committed in the order they are allocated, so a booking committed after one
+ * with a higher id is only found through its queued id; a set of the ids already scanned
+ * keeps a visit from being counted twice. Queries split the rows into ranges that are
+ * counted in parallel into dense primitive histograms, which are then summed.
+ * <p>
+ * The snapshot reflects the pet type and city at the time a visit was scanned, later
+ * changes are only picked up by {@link #reload()}.
+ */
+@Component
+class VisitAnalytics {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitAnalytics.class);
+
+	private static final String SCAN = """
+			SELECT history.id, history.visit_date, pets.birth_date, types.name, owners.city
+			FROM (
+			SELECT id, pet_id, visit_date FROM visits WHERE %1$s
+			UNION ALL
+			SELECT id, pet_id, visit_date FROM visits_archive WHERE %1$s
+			) history
+			JOIN pets ON history.pet_id = pets.id
+			JOIN types ON pets.type_id = types.id
+			JOIN owners ON pets.owner_id = owners.id
+			WHERE history.visit_date IS NOT NULL
+			""";
+
+	private static final String SCAN_AFTER = SCAN.formatted("id > :afterId");
+
+	private static final String SCAN_AFTER_OR_BOOKED = SCAN.formatted("(id > :afterId OR id IN (:bookedIds))");
+
+	private static final int FETCH_SIZE = 10_000;
+
+	/**
+	 * Rows counted by one parallel task.
+	 */
+	static final int TASK_ROWS = 1 << 18;
+
+	/**
+	 * Upper bound on the number of groups of a query, as each task allocates a histogram
+	 * of that size.
+	 */
+	static final int MAX_GROUPS = 1 << 20;
+
+	private static final int MAX_SEGMENTS = 8;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Map<String, Integer> petTypeCodes = new HashMap<>();
+
+	private final Map<String, Integer> cityCodes = new HashMap<>();
+
+	/**
+	 * Ids of the visits in the snapshot, guarded by this instance's monitor.
+	 */
+	private final BitSet scannedIds = new BitSet();
+
+	private final Queue<Integer> bookedIds = new ConcurrentLinkedQueue<>();
+
+	private volatile Snapshot snapshot;
+
+	private volatile boolean stale;
+
+	VisitAnalytics(DataSource dataSource, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+		this.jdbcTemplate.getJdbcTemplate().setFetchSize(FETCH_SIZE);
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@TransactionalEventListener
+	void visitBooked(VisitBookedEvent event) {
+		this.bookedIds.add(event.visitId());
+		this.stale = true;
+	}
+
+	/**
+	 * Count the visits matching the query, per group.
+	 * @return the non-empty groups, largest first
+	 * @throws IllegalArgumentException if the query has more than {@link #MAX_GROUPS}
+	 * possible groups
+	 */
+	List<VisitGroup> query(VisitAnalyticsQuery query) {
+		if (this.stale) {
+			refresh();
+		}
+		return snapshot().execute(query);
+	}
+
+	/**
+	 * Append the visits booked since the last scan to the snapshot.
+	 */
+	synchronized void refresh() {
+		this.stale = false;
+		List<Integer> booked = new ArrayList<>();
+		for (Integer id = this.bookedIds.poll(); id != null; id = this.bookedIds.poll()) {
+			booked.add(id);
+		}
+		Snapshot current = this.snapshot;
+		if (current == null) {
+			snapshot();
+			return;
+		}
+		VisitColumns added = scan(current.maxVisitId(), booked);
+		if (added.size > 0) {
+			List<VisitColumns> segments = new ArrayList<>(current.segments);
+			segments.add(added);
+			if (segments.size() > MAX_SEGMENTS) {
+				segments = List.of(VisitColumns.merge(segments.toArray(VisitColumns[]::new)));
+			}
+			this.snapshot = new Snapshot(segments, dictionary(this.petTypeCodes), dictionary(this.cityCodes));
+		}
+	}
+
+	/**
+	 * Discard the snapshot, to be scanned again from scratch on next use.
+	 */
+	synchronized void reload() {
+		this.snapshot = null;
+	}
+
+	private Snapshot snapshot() {
+		Snapshot snapshot = this.snapshot;
+		if (snapshot == null) {
+			synchronized (this) {
+				snapshot = this.snapshot;
+				if (snapshot == null) {
+					this.petTypeCodes.clear();
+					this.cityCodes.clear();
+					this.scannedIds.clear();
+					long start = System.nanoTime();
+					VisitColumns all = scan(0, List.of());
+					snapshot = new Snapshot(List.of(all), dictionary(this.petTypeCodes), dictionary(this.cityCodes));
+					logger.info("Scanned {} visits into the analytics snapshot ({} ms)", all.size,
+							(System.nanoTime() - start) / 1_000_000);
+					this.snapshot = snapshot;
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Scan the visits above the given id or with one of the given ids, skipping those
+	 * already in the snapshot.
+	 */
+	private VisitColumns scan(int afterId, List<Integer> bookedIds) {
+		VisitColumns.Builder builder = new VisitColumns.Builder(FETCH_SIZE);
+		MapSqlParameterSource parameters = new MapSqlParameterSource("afterId", afterId);
+		String sql = SCAN_AFTER;
+		if (!bookedIds.isEmpty()) {
+			parameters.addValue("bookedIds", bookedIds);
+			sql = SCAN_AFTER_OR_BOOKED;
+		}
+		String scan = sql;
+		this.transactionTemplate.executeWithoutResult((status) -> this.jdbcTemplate.query(scan, parameters, (rs) -> {
+			int id = rs.getInt(1);
+			if (this.scannedIds.get(id)) {
+				return;
+			}
+			this.scannedIds.set(id);
+			LocalDate birthDate = rs.getObject(3, LocalDate.class);
+			builder.add(id, (int) rs.getObject(2, LocalDate.class).toEpochDay(),
+					(birthDate != null) ? birthDate.getYear() : 0, encode(this.petTypeCodes, rs.getString(4)),
+					encode(this.cityCodes, rs.getString(5)));
+		}));
+		return builder.build();
+	}
+
+	private static int encode(Map<String, Integer> codes, String value) {
+		return codes.computeIfAbsent(value, (v) -> codes.size());
+	}
+
+	private static String[] dictionary(Map<String, Integer> codes) {
+		String[] values = new String[codes.size()];
+		codes.forEach((value, code) -> values[code] = value);
+		return values;
+	}
+
+	/**
+	 * Immutable state of the columnar store, replaced as a whole on refresh.
+	 */
+	static final class Snapshot {
+
+		private final List<VisitColumns> segments;
+
+		private final String[] petTypes;
+
+		private final String[] cities;
+
+		private final int minDay;
+
+		private final int maxDay;
+
+		private final int minBirthYear;
+
+		private final int maxBirthYear;
+
+		Snapshot(List<VisitColumns> segments, String[] petTypes, String[] cities) {
+			this.segments = segments;
+			this.petTypes = petTypes;
+			this.cities = cities;
+			this.minDay = segments.stream().mapToInt((segment) -> segment.minDay).min().orElse(Integer.MAX_VALUE);
+			this.maxDay = segments.stream().mapToInt((segment) -> segment.maxDay).max().orElse(Integer.MIN_VALUE);
+			this.minBirthYear = segments.stream()
+				.mapToInt((segment) -> segment.minBirthYear)
+				.min()
+				.orElse(Integer.MAX_VALUE);
+			this.maxBirthYear = segments.stream()
+				.mapToInt((segment) -> segment.maxBirthYear)
+				.max()
+				.orElse(Integer.MIN_VALUE);
+		}
+
+		int maxVisitId() {
+			return this.segments.stream().mapToInt((segment) -> segment.maxVisitId).max().orElse(0);
+		}
+
+		List<VisitGroup> execute(VisitAnalyticsQuery query) {
+			if (this.minDay > this.maxDay) {
+				return List.of();
+			}
+			int petType = (query.petType != null) ? indexOf(this.petTypes, query.petType) : -1;
+			int city = (query.city != null) ? indexOf(this.cities, query.city) : -1;
+			if ((query.petType != null && petType < 0) || (query.city != null && city < 0)) {
+				return List.of();
+			}
+			Plan plan = new Plan(this, query, petType, city);
+			List<int[]> tasks = new ArrayList<>();
+			for (int segment = 0; segment < this.segments.size(); segment++) {
+				for (int start = 0; start < this.segments.get(segment).size; start += TASK_ROWS) {
+					tasks.add(
+							new int[] { segment, start, Math.min(start + TASK_ROWS, this.segments.get(segment).size) });
+				}
+			}
+			long[] counts = tasks.parallelStream()
+				.map((task) -> plan.count(this.segments.get(task[0]), task[1], task[2]))
+				.reduce(Plan::sum)
+				.orElseGet(() -> new long[plan.groups]);
+			List<VisitGroup> groups = new ArrayList<>();
+			for (int key = 0; key < counts.length; key++) {
+				if (counts[key] > 0) {
+					groups.add(new VisitGroup(plan.labels(key), counts[key]));
+				}
+			}
+			groups.sort(Comparator.comparingLong(VisitGroup::visits).reversed());
+			return groups;
+		}
+
+		private static int indexOf(String[] dictionary, String value) {
+			return Arrays.asList(dictionary).indexOf(value);
+		}
+
+	}
+
+	/**
+	 * A query resolved against a snapshot: dictionary codes of the filters, cardinality
+	 * of each dimension and the day to month lookup table.
+	 */
+	private static final class Plan {
+
+		private final Snapshot snapshot;
+
+		private final VisitAnalyticsQuery.Dimension[] dimensions;
+
+		private final int[] cardinalities;
+
+		private final int groups;
+
+		private final int fromDay;
+
+		private final int toDay;
+
+		private final int petType;
+
+		private final int city;
+
+		private final YearMonth firstMonth;
+
+		private final int[] monthOfDay;
+
+		Plan(Snapshot snapshot, VisitAnalyticsQuery query, int petType, int city) {
+			this.snapshot = snapshot;
+			this.dimensions = query.groupBy.toArray(VisitAnalyticsQuery.Dimension[]::new);
+			this.fromDay = (query.from != null) ? (int) query.from.toEpochDay() : Integer.MIN_VALUE;
+			this.toDay = (query.to != null) ? (int) query.to.toEpochDay() : Integer.MAX_VALUE;
+			this.petType = petType;
+			this.city = city;
+			this.firstMonth = YearMonth.from(LocalDate.ofEpochDay(snapshot.minDay));
+			this.monthOfDay = query.groupBy.contains(VisitAnalyticsQuery.Dimension.MONTH)
+					? monthOfDay(snapshot.minDay, snapshot.maxDay) : null;
+			this.cardinalities = new int[this.dimensions.length];
+			long groups = 1;
+			for (int i = 0; i < this.dimensions.length; i++) {
+				this.cardinalities[i] = cardinality(this.dimensions[i]);
+				groups *= this.cardinalities[i];
+				if (groups > MAX_GROUPS) {
+					throw new IllegalArgumentException("Grouping by " + query.groupBy + " exceeds " + MAX_GROUPS
+							+ " groups, add a filter or group by fewer dimensions");
+				}
+			}
+			this.groups = (int) groups;
+		}
+
+		/**
+		 * Return the month of each day between the given days, as an offset from the
+		 * first month, so that grouping by month needs no date arithmetic per row.
+		 */
+		private static int[] monthOfDay(int minDay, int maxDay) {
+			int[] monthOfDay = new int[maxDay - minDay + 1];
+			YearMonth month = YearMonth.from(LocalDate.ofEpochDay(minDay));
+			int offset = 0;
+			int day = minDay;
+			while (day <= maxDay) {
+				int endOfMonth = (int) Math.min(month.atEndOfMonth().toEpochDay(), maxDay);
+				Arrays.fill(monthOfDay, day - minDay, endOfMonth - minDay + 1, offset);
+				day = endOfMonth + 1;
+				month = month.plusMonths(1);
+				offset++;
+			}
+			return monthOfDay;
+		}
+
+		private int cardinality(VisitAnalyticsQuery.Dimension dimension) {
+			return switch (dimension) {
+				case PET_TYPE -> this.snapshot.petTypes.length;
+				case CITY -> this.snapshot.cities.length;
+				case BIRTH_YEAR -> (this.snapshot.minBirthYear <= this.snapshot.maxBirthYear)
+						? this.snapshot.maxBirthYear - this.snapshot.minBirthYear + 2 : 1;
+				case WEEKDAY -> 7;
+				case MONTH -> this.monthOfDay[this.monthOfDay.length - 1] + 1;
+			};
+		}
+
+		long[] count(VisitColumns columns, int start, int end) {
+			long[] counts = new long[this.groups];
+			int[] epochDays = columns.epochDays;
+			short[] petTypes = columns.petTypes;
+			int[] cities = columns.cities;
+			for (int row = start; row < end; row++) {
+				int day = epochDays[row];
+				if (day < this.fromDay || day > this.toDay || (this.petType >= 0 && petTypes[row] != this.petType)
+						|| (this.city >= 0 && cities[row] != this.city)) {
+					continue;
+				}
+				int key = 0;
+				for (int i = 0; i < this.dimensions.length; i++) {
+					key = key * this.cardinalities[i] + value(this.dimensions[i], columns, row, day);
+				}
+				counts[key]++;
+			}
+			return counts;
+		}
+
+		private int value(VisitAnalyticsQuery.Dimension dimension, VisitColumns columns, int row, int day) {
+			return switch (dimension) {
+				case PET_TYPE -> columns.petTypes[row];
+				case CITY -> columns.cities[row];
+				case BIRTH_YEAR ->
+					(columns.birthYears[row] != 0) ? columns.birthYears[row] - this.snapshot.minBirthYear + 1 : 0;
+				// the epoch, day 0, was a Thursday
+				case WEEKDAY -> Math.floorMod(day + 3, 7);
+				case MONTH -> this.monthOfDay[day - this.snapshot.minDay];
+			};
+		}
+
+		List<String> labels(int key) {
+			String[] labels = new String[this.dimensions.length];
+			for (int i = this.dimensions.length - 1; i >= 0; i--) {
+				int value = key % this.cardinalities[i];
+				key /= this.cardinalities[i];
+				labels[i] = label(this.dimensions[i], value);
+			}
+			return List.of(labels);
+		}
+
+		private String label(VisitAnalyticsQuery.Dimension dimension, int value) {
+			return switch (dimension) {
+				case PET_TYPE -> this.snapshot.petTypes[value];
+				case CITY -> this.snapshot.cities[value];
+				case BIRTH_YEAR -> (value != 0) ? String.valueOf(this.snapshot.minBirthYear + value - 1) : "unknown";
+				case WEEKDAY -> DayOfWeek.of(value + 1).name();
+				case MONTH -> this.firstMonth.plusMonths(value).toString();
+			};
+		}
+
+		static long[] sum(long[] left, long[] right) {
+			for (int i = 0; i < left.length; i++) {
+				left[i] += right[i];
+			}
+			return left;
+		}
+
+	}
+
+}
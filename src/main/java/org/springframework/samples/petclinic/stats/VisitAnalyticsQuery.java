@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter and group-by over the visits, run by {@link VisitAnalytics}. All filters are
+ * optional; without any dimension to group by the query counts all matching visits.
+ */
+final class VisitAnalyticsQuery {
+
+	LocalDate from;
+
+	LocalDate to;
+
+	String petType;
+
+	String city;
+
+	final List<Dimension> groupBy = new ArrayList<>();
+
+	/**
+	 * Only count visits between the given dates, inclusive.
+	 */
+	VisitAnalyticsQuery visitedBetween(LocalDate from, LocalDate to) {
+		this.from = from;
+		this.to = to;
+		return this;
+	}
+
+	/**
+	 * Only count visits of pets of the given type.
+	 */
+	VisitAnalyticsQuery petType(String petType) {
+		this.petType = petType;
+		return this;
+	}
+
+	/**
+	 * Only count visits of pets whose owner lives in the given city.
+	 */
+	VisitAnalyticsQuery city(String city) {
+		this.city = city;
+		return this;
+	}
+
+	VisitAnalyticsQuery groupBy(Dimension... dimensions) {
+		this.groupBy.addAll(Arrays.asList(dimensions));
+		return this;
+	}
+
+	/**
+	 * Attributes visits can be grouped by.
+	 */
+	enum Dimension {
+
+		PET_TYPE("petType"), CITY("city"), BIRTH_YEAR("birthYear"), WEEKDAY("weekday"), MONTH("month");
+
+		private final String name;
+
+		Dimension(String name) {
+			this.name = name;
+		}
+
+		String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the dimension with the given request parameter name.
+		 * @throws IllegalArgumentException if there is no such dimension
+		 */
+		static Dimension of(String name) {
+			for (Dimension dimension : values()) {
+				if (dimension.name.equals(name)) {
+					return dimension;
+				}
+			}
+			throw new IllegalArgumentException("Unknown dimension '" + name + "', expected one of "
+					+ Arrays.stream(values()).map(Dimension::getName).toList());
+		}
+
+	}
+
+}
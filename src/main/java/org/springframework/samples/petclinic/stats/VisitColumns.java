@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.util.Arrays;
+
+/**
+ * An immutable segment of the columnar visit snapshot held by {@link VisitAnalytics}: one
+ * primitive array per attribute, indexed by row. Pet types and cities are stored as codes
+ * of the snapshot's dictionaries, birth years as years with {@code 0} for unknown.
+ */
+final class VisitColumns {
+
+	final int size;
+
+	/**
+	 * Highest visit id of the segment.
+	 */
+	final int maxVisitId;
+
+	final int[] epochDays;
+
+	final short[] birthYears;
+
+	final short[] petTypes;
+
+	final int[] cities;
+
+	final int minDay;
+
+	final int maxDay;
+
+	/**
+	 * Lowest known birth year, {@link Integer#MAX_VALUE} if none is known.
+	 */
+	final int minBirthYear;
+
+	/**
+	 * Highest known birth year, {@link Integer#MIN_VALUE} if none is known.
+	 */
+	final int maxBirthYear;
+
+	VisitColumns(int size, int maxVisitId, int[] epochDays, short[] birthYears, short[] petTypes, int[] cities) {
+		this.size = size;
+		this.maxVisitId = maxVisitId;
+		this.epochDays = epochDays;
+		this.birthYears = birthYears;
+		this.petTypes = petTypes;
+		this.cities = cities;
+		int minDay = Integer.MAX_VALUE;
+		int maxDay = Integer.MIN_VALUE;
+		int minBirthYear = Integer.MAX_VALUE;
+		int maxBirthYear = Integer.MIN_VALUE;
+		for (int row = 0; row < size; row++) {
+			minDay = Math.min(minDay, epochDays[row]);
+			maxDay = Math.max(maxDay, epochDays[row]);
+			if (birthYears[row] != 0) {
+				minBirthYear = Math.min(minBirthYear, birthYears[row]);
+				maxBirthYear = Math.max(maxBirthYear, birthYears[row]);
+			}
+		}
+		this.minDay = minDay;
+		this.maxDay = maxDay;
+		this.minBirthYear = minBirthYear;
+		this.maxBirthYear = maxBirthYear;
+	}
+
+	/**
+	 * Concatenate segments into one.
+	 */
+	static VisitColumns merge(VisitColumns... segments) {
+		Builder builder = new Builder(Arrays.stream(segments).mapToInt((segment) -> segment.size).sum());
+		for (VisitColumns segment : segments) {
+			for (int row = 0; row < segment.size; row++) {
+				builder.add(segment.maxVisitId, segment.epochDays[row], segment.birthYears[row], segment.petTypes[row],
+						segment.cities[row]);
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Appends rows to growing arrays, then trims them to size.
+	 */
+	static final class Builder {
+
+		private int size;
+
+		private int maxVisitId;
+
+		private int[] epochDays;
+
+		private short[] birthYears;
+
+		private short[] petTypes;
+
+		private int[] cities;
+
+		Builder(int capacity) {
+			int initial = Math.max(capacity, 16);
+			this.epochDays = new int[initial];
+			this.birthYears = new short[initial];
+			this.petTypes = new short[initial];
+			this.cities = new int[initial];
+		}
+
+		void add(int visitId, int epochDay, int birthYear, int petType, int city) {
+			if (this.size == this.epochDays.length) {
+				int capacity = this.size + (this.size >> 1);
+				this.epochDays = Arrays.copyOf(this.epochDays, capacity);
+				this.birthYears = Arrays.copyOf(this.birthYears, capacity);
+				this.petTypes = Arrays.copyOf(this.petTypes, capacity);
+				this.cities = Arrays.copyOf(this.cities, capacity);
+			}
+			this.epochDays[this.size] = epochDay;
+			this.birthYears[this.size] = (short) birthYear;
+			this.petTypes[this.size] = (short) petType;
+			this.cities[this.size] = city;
+			this.maxVisitId = Math.max(this.maxVisitId, visitId);
+			this.size++;
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		VisitColumns build() {
+			return new VisitColumns(this.size, this.maxVisitId, Arrays.copyOf(this.epochDays, this.size),
+					Arrays.copyOf(this.birthYears, this.size), Arrays.copyOf(this.petTypes, this.size),
+					Arrays.copyOf(this.cities, this.size));
+		}
+
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Visit counts per month, by pet type and by owner city, kept in memory so that reports
+ * are served without touching the database.
+ * <p>
+ * The daily counts in the <code>visit_stats</code> table are the source of truth: each
+ * booking increments them in its own transaction, and the monthly counts held here are
+ * loaded from that table on first use and incremented once the booking has committed.
+ * {@link VisitStatsRebuild} recomputes the table from the visits and reloads the counts.
+ * <p>
+ * A booking committed before the counts are loaded is read from the table, so it is not
+ * incremented in memory as well. Bookings hold off loading from their increment of the
+ * table until their transaction has completed, so that a load never reads a booking whose
+ * in-memory increment is still to come.
+ */
+@Component
+class VisitStatistics {
+
+	private final VisitStatsStore store;
+
+	private volatile Counts counts;
+
+	/**
+	 * Read-locked by bookings until they complete, write-locked while loading.
+	 */
+	private final ReentrantReadWriteLock bookings = new ReentrantReadWriteLock();
+
+	VisitStatistics(VisitStatsStore store) {
+		this.store = store;
+	}
+
+	@EventListener
+	void updateDailyCounts(VisitBookedEvent event) {
+		if (isCounted(event)) {
+			holdOffLoadingUntilCompletion();
+			this.store.increment(event.date(), event.petType(), event.city());
+		}
+	}
+
+	@TransactionalEventListener
+	void updateMonthlyCounts(VisitBookedEvent event) {
+		Counts counts = this.counts;
+		// counts not loaded yet will be read from the table, including this booking
+		if (isCounted(event) && counts != null) {
+			counts.add(YearMonth.from(event.date()), event.petType(), event.city(), 1);
+		}
+	}
+
+	private void holdOffLoadingUntilCompletion() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return;
+		}
+		Lock lock = this.bookings.readLock();
+		lock.lock();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCompletion(int status) {
+				lock.unlock();
+			}
+
+		});
+	}
+
+	private static boolean isCounted(VisitBookedEvent event) {
+		return event.date() != null && event.petType() != null && event.city() != null;
+	}
+
+	/**
+	 * Return the number of visits of each month between the given months, inclusive.
+	 */
+	VisitStatsReport report(YearMonth from, YearMonth to) {
+		Counts counts = counts();
+		return new VisitStatsReport(from, to, snapshot(counts.petTypes, from, to), snapshot(counts.cities, from, to));
+	}
+
+	/**
+	 * Discard the counts held in memory, to be loaded again from the
+	 * <code>visit_stats</code> table on next use.
+	 */
+	void reload() {
+		this.counts = null;
+	}
+
+	private Counts counts() {
+		Counts counts = this.counts;
+		if (counts != null) {
+			return counts;
+		}
+		if (this.bookings.getReadHoldCount() > 0) {
+			// within a booking, which cannot wait for itself to complete
+			return load();
+		}
+		this.bookings.writeLock().lock();
+		try {
+			counts = this.counts;
+			if (counts == null) {
+				counts = load();
+				this.counts = counts;
+			}
+			return counts;
+		}
+		finally {
+			this.bookings.writeLock().unlock();
+		}
+	}
+
+	private Counts load() {
+		Counts counts = new Counts();
+		for (VisitStatsStore.DailyCount daily : this.store.findAll()) {
+			counts.add(YearMonth.from(daily.date()), daily.petType(), daily.city(), daily.visits());
+		}
+		return counts;
+	}
+
+	private static Map<YearMonth, Map<String, Long>> snapshot(
+			ConcurrentSkipListMap<YearMonth, Map<String, LongAdder>> counts, YearMonth from, YearMonth to) {
+		Map<YearMonth, Map<String, Long>> snapshot = new TreeMap<>();
+		counts.subMap(from, true, to, true).forEach((month, values) -> {
+			Map<String, Long> copy = new TreeMap<>();
+			values.forEach((key, value) -> copy.put(key, value.sum()));
+			snapshot.put(month, copy);
+		});
+		return snapshot;
+	}
+
+	private static final class Counts {
+
+		private final ConcurrentSkipListMap<YearMonth, Map<String, LongAdder>> petTypes = new ConcurrentSkipListMap<>();
+
+		private final ConcurrentSkipListMap<YearMonth, Map<String, LongAdder>> cities = new ConcurrentSkipListMap<>();
+
+		void add(YearMonth month, String petType, String city, int visits) {
+			increment(this.petTypes, month, petType, visits);
+			increment(this.cities, month, city, visits);
+		}
+
+		private static void increment(ConcurrentSkipListMap<YearMonth, Map<String, LongAdder>> counts, YearMonth month,
+				String key, int visits) {
+			counts.computeIfAbsent(month, (m) -> new ConcurrentHashMap<>())
+				.computeIfAbsent(key, (k) -> new LongAdder())
+				.add(visits);
+		}
+
+	}
+
+}
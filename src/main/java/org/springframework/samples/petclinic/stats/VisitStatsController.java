@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serves the number of visits per month, by pet type and by owner city, from the counts
+ * held in memory by {@link VisitStatistics}, and ad-hoc group-by queries over all visits
+ * from the columnar snapshot of {@link VisitAnalytics}.
+ */
+@Controller
+class VisitStatsController {
+
+	static final int DEFAULT_MONTHS = 12;
+
+	private final VisitStatistics statistics;
+
+	private final VisitAnalytics analytics;
+
+	VisitStatsController(VisitStatistics statistics, VisitAnalytics analytics) {
+		this.statistics = statistics;
+		this.analytics = analytics;
+	}
+
+	@GetMapping("/stats")
+	public @ResponseBody VisitStatsReport showStats(
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+		YearMonth last = (to != null) ? to : YearMonth.now();
+		YearMonth first = (from != null) ? from : last.minusMonths(DEFAULT_MONTHS - 1);
+		if (last.isBefore(first)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+		}
+		return this.statistics.report(first, last);
+	}
+
+	@GetMapping("/stats/visits")
+	public @ResponseBody List<VisitGroup> analyzeVisits(@RequestParam(defaultValue = "") List<String> groupBy,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+			@RequestParam(required = false) String petType, @RequestParam(required = false) String city) {
+		try {
+			VisitAnalyticsQuery query = new VisitAnalyticsQuery().visitedBetween(from, to).petType(petType).city(city);
+			for (String dimension : groupBy) {
+				query.groupBy(VisitAnalyticsQuery.Dimension.of(dimension));
+			}
+			return this.analytics.query(query);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code POST /actuator/visitstats}) running the
+ * {@link VisitStatsRebuild} job. The snapshot of {@link VisitAnalytics} is discarded as
+ * well, to be scanned again on next use.
+ */
+@Component
+@Endpoint(id = "visitstats")
+class VisitStatsEndpoint {
+
+	private final VisitStatsRebuild rebuild;
+
+	private final VisitAnalytics analytics;
+
+	VisitStatsEndpoint(VisitStatsRebuild rebuild, VisitAnalytics analytics) {
+		this.rebuild = rebuild;
+		this.analytics = analytics;
+	}
+
+	@WriteOperation
+	public VisitStatsRebuild.Result rebuild() {
+		this.analytics.reload();
+		return this.rebuild.rebuildAll();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the <code>visit_stats</code> table from the visits and the visits archive.
+ * <p>
+ * The counts are normally maintained as visits are booked; this job builds them for
+ * existing data and repairs drift. The range of visit dates is split into one chunk per
+ * month, each recomputed in its own transaction, and chunks are processed in parallel.
+ * Chunks never share a row of <code>visit_stats</code> since the day is part of its key.
+ *
+ * @see VisitStatsEndpoint
+ */
+@Component
+class VisitStatsRebuild {
+
+	private static final Logger logger = LoggerFactory.getLogger(VisitStatsRebuild.class);
+
+	private final VisitStatsStore store;
+
+	private final VisitStatistics statistics;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int threads;
+
+	VisitStatsRebuild(VisitStatsStore store, VisitStatistics statistics, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.stats.rebuild-threads:4}") int threads) {
+		this.store = store;
+		this.statistics = statistics;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.threads = threads;
+	}
+
+	/**
+	 * Recompute the visit counts of all days.
+	 * @return the number of months recomputed
+	 */
+	Result rebuildAll() {
+		long start = System.nanoTime();
+		VisitStatsStore.DateRange range = this.store.findVisitDateRange();
+		this.transactionTemplate.executeWithoutResult((status) -> this.store.deleteOutside(range));
+		List<VisitStatsStore.DateRange> chunks = (range != null) ? monthsOf(range) : List.of();
+		ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (VisitStatsStore.DateRange chunk : chunks) {
+				results.add(executor.submit(() -> this.transactionTemplate
+					.executeWithoutResult((status) -> this.store.rebuild(chunk.first(), chunk.last()))));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rebuilding visit statistics", ex);
+		}
+		catch (ExecutionException ex) {
+			throw new IllegalStateException("Failed to rebuild visit statistics", ex.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		this.statistics.reload();
+		Result result = new Result(chunks.size(), (System.nanoTime() - start) / 1_000_000);
+		logger.info("Rebuilt visit statistics of {} months ({} ms)", result.months(), result.elapsedMillis());
+		return result;
+	}
+
+	private static List<VisitStatsStore.DateRange> monthsOf(VisitStatsStore.DateRange range) {
+		List<VisitStatsStore.DateRange> months = new ArrayList<>();
+		for (YearMonth month = YearMonth.from(range.first()); !month
+			.isAfter(YearMonth.from(range.last())); month = month.plusMonths(1)) {
+			LocalDate first = month.atDay(1);
+			months.add(new VisitStatsStore.DateRange(first, month.atEndOfMonth()));
+		}
+		return months;
+	}
+
+	/**
+	 * Outcome of a rebuild.
+	 *
+	 * @param months number of months recomputed, one transaction each
+	 * @param elapsedMillis duration of the run
+	 */
+	public record Result(int months, long elapsedMillis) {
+
+	}
+
+}
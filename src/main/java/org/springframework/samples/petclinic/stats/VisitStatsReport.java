@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Number of visits per month, by pet type and by owner city, as returned by the
+ * <code>/stats</code> endpoint.
+ *
+ * @param from the first month of the report
+ * @param to the last month of the report
+ * @param petTypes the number of visits per month and pet type
+ * @param cities the number of visits per month and owner city
+ */
+public record VisitStatsReport(YearMonth from, YearMonth to, Map<YearMonth, Map<String, Long>> petTypes,
+		Map<YearMonth, Map<String, Long>> cities) {
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Access to the <code>visit_stats</code> table, holding the number of visits per day, pet
+ * type and owner city.
+ */
+@Component
+class VisitStatsStore {
+
+	// a single statement per database: a failed INSERT would abort the booking
+	// transaction on PostgreSQL, so it cannot be retried as an UPDATE
+	private static final String MERGE = """
+			MERGE INTO visit_stats USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR(80)), CAST(? AS VARCHAR(80))))
+			AS booked (visit_date, pet_type, city)
+			ON visit_stats.visit_date = booked.visit_date AND visit_stats.pet_type = booked.pet_type
+			AND visit_stats.city = booked.city
+			WHEN MATCHED THEN UPDATE SET visit_count = visit_stats.visit_count + 1
+			WHEN NOT MATCHED THEN INSERT (visit_date, pet_type, city, visit_count)
+			VALUES (booked.visit_date, booked.pet_type, booked.city, 1)
+			""";
+
+	private static final String MYSQL_UPSERT = """
+			INSERT INTO visit_stats (visit_date, pet_type, city, visit_count) VALUES (?, ?, ?, 1)
+			ON DUPLICATE KEY UPDATE visit_count = visit_count + 1
+			""";
+
+	private static final String POSTGRES_UPSERT = """
+			INSERT INTO visit_stats (visit_date, pet_type, city, visit_count) VALUES (?, ?, ?, 1)
+			ON CONFLICT (visit_date, pet_type, city) DO UPDATE SET visit_count = visit_stats.visit_count + 1
+			""";
+
+	private static final String FIND_ALL = "SELECT visit_date, pet_type, city, visit_count FROM visit_stats";
+
+	private static final String DATE_RANGE = """
+			SELECT MIN(visit_date), MAX(visit_date) FROM (
+			SELECT visit_date FROM visits
+			UNION ALL
+			SELECT visit_date FROM visits_archive
+			) history
+			""";
+
+	private static final String DELETE_OUTSIDE = "DELETE FROM visit_stats WHERE visit_date < ? OR visit_date > ?";
+
+	private static final String DELETE_ALL = "DELETE FROM visit_stats";
+
+	private static final String DELETE_RANGE = "DELETE FROM visit_stats WHERE visit_date BETWEEN ? AND ?";
+
+	private static final String AGGREGATE_RANGE = """
+			INSERT INTO visit_stats (visit_date, pet_type, city, visit_count)
+			SELECT history.visit_date, types.name, owners.city, COUNT(*)
+			FROM (
+			SELECT pet_id, visit_date FROM visits WHERE visit_date BETWEEN ? AND ?
+			UNION ALL
+			SELECT pet_id, visit_date FROM visits_archive WHERE visit_date BETWEEN ? AND ?
+			) history
+			JOIN pets ON history.pet_id = pets.id
+			JOIN types ON pets.type_id = types.id
+			JOIN owners ON pets.owner_id = owners.id
+			GROUP BY history.visit_date, types.name, owners.city
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String increment;
+
+	VisitStatsStore(JdbcTemplate jdbcTemplate, @Value("${database:h2}") String database) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.increment = switch (database) {
+			case "mysql" -> MYSQL_UPSERT;
+			case "postgres" -> POSTGRES_UPSERT;
+			default -> MERGE;
+		};
+	}
+
+	/**
+	 * Count one more visit, in the caller's transaction. The count is created or
+	 * incremented with a single upsert, so that concurrent bookings for the same day,
+	 * type and city neither fail nor lose a visit.
+	 */
+	void increment(LocalDate date, String petType, String city) {
+		this.jdbcTemplate.update(this.increment, date, petType, city);
+	}
+
+	List<DailyCount> findAll() {
+		return this.jdbcTemplate.query(FIND_ALL,
+				(rs, rowNum) -> new DailyCount(rs.getObject("visit_date", LocalDate.class), rs.getString("pet_type"),
+						rs.getString("city"), rs.getInt("visit_count")));
+	}
+
+	/**
+	 * Return the dates of the oldest and latest visits, archived visits included.
+	 * @return the first and last day with visits, or <code>null</code> if there are no
+	 * visits
+	 */
+	DateRange findVisitDateRange() {
+		return this.jdbcTemplate.queryForObject(DATE_RANGE, (rs, rowNum) -> {
+			LocalDate first = rs.getObject(1, LocalDate.class);
+			return (first != null) ? new DateRange(first, rs.getObject(2, LocalDate.class)) : null;
+		});
+	}
+
+	/**
+	 * Remove the counts of the days outside the given range, or all counts if the range
+	 * is <code>null</code>.
+	 */
+	void deleteOutside(DateRange range) {
+		if (range == null) {
+			this.jdbcTemplate.update(DELETE_ALL);
+		}
+		else {
+			this.jdbcTemplate.update(DELETE_OUTSIDE, range.first(), range.last());
+		}
+	}
+
+	/**
+	 * Recompute the counts of the days between the given dates, inclusive, from the
+	 * visits and the visits archive.
+	 */
+	void rebuild(LocalDate from, LocalDate to) {
+		this.jdbcTemplate.update(DELETE_RANGE, from, to);
+		this.jdbcTemplate.update(AGGREGATE_RANGE, from, to, from, to);
+	}
+
+	/**
+	 * Days between two dates, inclusive.
+	 */
+	record DateRange(LocalDate first, LocalDate last) {
+
+	}
+
+	/**
+	 * Number of visits of a day for a pet type and a city.
+	 */
+	record DailyCount(LocalDate date, String petType, String city, int visits) {
+
+	}
+
+}
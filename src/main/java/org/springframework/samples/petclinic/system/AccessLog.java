@@ -0,0 +1,248 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes one JSON object per request to the {@code petclinic.access} logger, for example:
+ *
+ * <pre class="code">
+ * {"time":"2024-05-06T10:15:30.123Z","method":"GET","route":"/owners/{ownerId}","path":"/owners/6",
+ *  "status":200,"durationMicros":1834,"handler":"OwnerController.showOwner","remote":"127.0.0.1"}
+ * </pre>
+ *
+ * Request threads only copy the request's values into a preallocated slot of a ring
+ * buffer: a slot is claimed with a compare-and-set on a shared counter and published by
+ * writing its sequence number, so logging neither locks nor allocates. A single writer
+ * thread formats the published slots in order into a reused buffer and writes them. When
+ * every slot is waiting to be written the request is not logged, and counted in
+ * {@link #getDroppedCount()}, rather than made to wait.
+ *
+ * @see AccessLogFilter
+ */
+class AccessLog implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger("petclinic.access");
+
+	private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final Entry[] entries;
+
+	private final int mask;
+
+	private final AtomicLong claimed = new AtomicLong();
+
+	private volatile long consumed;
+
+	private final LongAdder dropped = new LongAdder();
+
+	private final Consumer<String> output;
+
+	private final StringBuilder line = new StringBuilder(256);
+
+	private final Thread writer;
+
+	private volatile boolean running = true;
+
+	AccessLog(int bufferSize) {
+		this(bufferSize, null);
+		start();
+	}
+
+	/**
+	 * Create an access log writing to the given output rather than the logger, without
+	 * starting the writer thread, so that {@link #drain()} can be called directly.
+	 * @see #start()
+	 */
+	AccessLog(int bufferSize, Consumer<String> output) {
+		int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+		this.entries = new Entry[capacity];
+		for (int i = 0; i < capacity; i++) {
+			this.entries[i] = new Entry();
+		}
+		this.mask = capacity - 1;
+		this.output = output;
+		this.writer = new Thread(this::write, "access-log-writer");
+		this.writer.setDaemon(true);
+	}
+
+	/**
+	 * Start the thread writing queued requests in the background.
+	 */
+	void start() {
+		this.writer.start();
+	}
+
+	/**
+	 * Queue a request to be logged.
+	 * @return whether the request was queued, {@code false} when the buffer was full
+	 */
+	boolean log(long timestamp, String method, String route, String path, int status, long durationNanos,
+			String handler, String remoteAddress) {
+		long sequence;
+		do {
+			sequence = this.claimed.get();
+			if (sequence - this.consumed >= this.entries.length) {
+				this.dropped.increment();
+				return false;
+			}
+		}
+		while (!this.claimed.compareAndSet(sequence, sequence + 1));
+		Entry entry = this.entries[(int) (sequence & this.mask)];
+		entry.timestamp = timestamp;
+		entry.method = method;
+		entry.route = route;
+		entry.path = path;
+		entry.status = status;
+		entry.durationNanos = durationNanos;
+		entry.handler = handler;
+		entry.remoteAddress = remoteAddress;
+		entry.sequence = sequence;
+		return true;
+	}
+
+	/**
+	 * Write the requests queued so far, on the calling thread.
+	 * @return the number of requests written
+	 */
+	int drain() {
+		int count = 0;
+		long next = this.consumed;
+		Entry entry;
+		while ((entry = this.entries[(int) (next & this.mask)]).sequence == next) {
+			if (this.output != null) {
+				this.output.accept(format(entry));
+			}
+			else if (logger.isInfoEnabled()) {
+				logger.info(format(entry));
+			}
+			entry.clear();
+			this.consumed = ++next;
+			count++;
+		}
+		return count;
+	}
+
+	private void write() {
+		while (this.running) {
+			if (drain() == 0) {
+				LockSupport.parkNanos(IDLE_WAIT_NANOS);
+			}
+		}
+		drain();
+	}
+
+	private String format(Entry entry) {
+		StringBuilder line = this.line;
+		line.setLength(0);
+		line.append("{\"time\":\"");
+		DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(entry.timestamp), line);
+		line.append('"');
+		appendString(line, "method", entry.method);
+		appendString(line, "route", entry.route);
+		appendString(line, "path", entry.path);
+		line.append(",\"status\":").append(entry.status);
+		line.append(",\"durationMicros\":").append(entry.durationNanos / 1000);
+		appendString(line, "handler", entry.handler);
+		appendString(line, "remote", entry.remoteAddress);
+		return line.append('}').toString();
+	}
+
+	private static void appendString(StringBuilder line, String name, String value) {
+		if (value == null) {
+			return;
+		}
+		line.append(",\"").append(name).append("\":\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"' -> line.append("\\\"");
+				case '\\' -> line.append("\\\\");
+				case '\n' -> line.append("\\n");
+				case '\r' -> line.append("\\r");
+				case '\t' -> line.append("\\t");
+				default -> {
+					if (c < 0x20) {
+						line.append(String.format("\\u%04x", (int) c));
+					}
+					else {
+						line.append(c);
+					}
+				}
+			}
+		}
+		line.append('"');
+	}
+
+	/**
+	 * Return the number of requests that were not logged because the buffer was full.
+	 */
+	long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	/**
+	 * Stop the writer thread once it has written the requests already queued.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		this.running = false;
+		LockSupport.unpark(this.writer);
+		this.writer.join(TimeUnit.SECONDS.toMillis(5));
+	}
+
+	private static final class Entry {
+
+		private volatile long sequence = -1;
+
+		private long timestamp;
+
+		private String method;
+
+		private String route;
+
+		private String path;
+
+		private int status;
+
+		private long durationNanos;
+
+		private String handler;
+
+		private String remoteAddress;
+
+		void clear() {
+			this.method = null;
+			this.route = null;
+			this.path = null;
+			this.handler = null;
+			this.remoteAddress = null;
+		}
+
+	}
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the {@link AccessLog}.
+ *
+ * @param enabled whether requests are written to the access log
+ * @param bufferSize number of requests that can wait to be written, rounded up to a power
+ * of two, requests arriving while it is full are not logged
+ */
+@ConfigurationProperties("petclinic.access-log")
+record AccessLogProperties(@DefaultValue("true") boolean enabled, @DefaultValue("8192") int bufferSize) {
+
+}
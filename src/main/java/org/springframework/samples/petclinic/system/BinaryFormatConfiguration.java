@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.samples.petclinic.owner.OwnerDetails;
+import org.springframework.samples.petclinic.vet.Vets;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adds compact binary representations of the API responses, negotiated with the
+ * {@code Accept} header: CBOR ({@code application/cbor}) and Protocol Buffers
+ * ({@code application/x-protobuf}). Both are written with the same Jackson settings as
+ * JSON, and are appended after the other converters so that clients accepting any type
+ * still get JSON.
+ */
+@Configuration(proxyBeanMethods = false)
+class BinaryFormatConfiguration implements WebMvcConfigurer {
+
+	private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+	private final ProtobufSchemas protobufSchemas;
+
+	BinaryFormatConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> builders) {
+		this.builders = builders;
+		ProtobufMapper mapper = new ProtobufMapper();
+		builders.getObject().configure(mapper);
+		this.protobufSchemas = new ProtobufSchemas(mapper);
+		// the messages of the API responses, served before any of them is written
+		this.protobufSchemas.register(Vets.class, OwnerDetails.class);
+	}
+
+	@Bean
+	ProtobufSchemas protobufSchemas() {
+		return this.protobufSchemas;
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+		converters.add(new MappingJackson2CborHttpMessageConverter(
+				this.builders.getObject().factory(new CBORFactory()).build()));
+		converters.add(new ProtobufJacksonHttpMessageConverter(this.protobufSchemas));
+	}
+
+}
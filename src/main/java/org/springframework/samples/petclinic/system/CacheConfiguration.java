@@ -16,6 +16,9 @@
 
 package org.springframework.samples.petclinic.system;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -26,7 +29,8 @@ import javax.cache.configuration.MutableConfiguration;
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
  * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * accessible via JMX. It also provides the {@link RequestCacheResolver} used to memoize
+ * repository lookups for the duration of a request.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
@@ -37,6 +41,11 @@ class CacheConfiguration {
 		return cm -> cm.createCache("vets", cacheConfiguration());
 	}
 
+	@Bean
+	public RequestCacheResolver requestCacheResolver(ObjectProvider<MeterRegistry> registry) {
+		return new RequestCacheResolver(registry);
+	}
+
 	/**
 	 * Create a simple configuration that enable statistics via the JCache programmatic
 	 * configuration API.
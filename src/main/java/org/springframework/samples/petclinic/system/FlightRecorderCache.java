@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} decorator recording every synchronous lookup as a
+ * {@link CacheLookupEvent} while a flight recording is running.
+ *
+ * @see FlightRecorderCacheResolver
+ */
+class FlightRecorderCache implements Cache {
+
+	private final Cache cache;
+
+	FlightRecorderCache(Cache cache) {
+		this.cache = cache;
+	}
+
+	@Override
+	public String getName() {
+		return this.cache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.cache.getNativeCache();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		CacheLookupEvent event = new CacheLookupEvent();
+		event.begin();
+		ValueWrapper value = this.cache.get(key);
+		commit(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	public <T> T get(Object key, Class<T> type) {
+		CacheLookupEvent event = new CacheLookupEvent();
+		event.begin();
+		// a cached null cannot be told apart from a miss here
+		T value = this.cache.get(key, type);
+		commit(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		CacheLookupEvent event = new CacheLookupEvent();
+		event.begin();
+		boolean[] loaded = new boolean[1];
+		T value = this.cache.get(key, () -> {
+			loaded[0] = true;
+			return valueLoader.call();
+		});
+		commit(event, key, !loaded[0]);
+		return value;
+	}
+
+	private void commit(CacheLookupEvent event, Object key, boolean hit) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = getName();
+			event.key = String.valueOf(key);
+			event.hit = hit;
+			event.commit();
+		}
+	}
+
+	@Override
+	public CompletableFuture<?> retrieve(Object key) {
+		return this.cache.retrieve(key);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		return this.cache.retrieve(key, valueLoader);
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		this.cache.put(key, value);
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return this.cache.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.cache.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		return this.cache.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		this.cache.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		return this.cache.invalidate();
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+
+/**
+ * Resolves caches by name like the default resolver, wrapping the given caches into a
+ * {@link FlightRecorderCache} so that their lookups show up in flight recordings. The
+ * caches themselves are left untouched, so their statistics and metrics are unaffected.
+ *
+ * @see FlightRecorderConfiguration
+ */
+class FlightRecorderCacheResolver extends SimpleCacheResolver {
+
+	private final Set<String> cacheNames;
+
+	private final Map<Cache, Cache> decorated = new ConcurrentHashMap<>();
+
+	FlightRecorderCacheResolver(CacheManager cacheManager, Set<String> cacheNames) {
+		super(cacheManager);
+		this.cacheNames = cacheNames;
+	}
+
+	@Override
+	public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+		Collection<? extends Cache> caches = super.resolveCaches(context);
+		if (caches.stream().noneMatch((cache) -> this.cacheNames.contains(cache.getName()))) {
+			return caches;
+		}
+		List<Cache> resolved = new ArrayList<>(caches.size());
+		for (Cache cache : caches) {
+			resolved.add(this.cacheNames.contains(cache.getName())
+					? this.decorated.computeIfAbsent(cache, FlightRecorderCache::new) : cache);
+		}
+		return resolved;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Makes it possible to profile a running instance without restarting it or attaching an
+ * agent.
+ * <p>
+ * Repository calls, lookups in the caches listed in {@code petclinic.jfr.caches},
+ * template renders and validations are recorded as JDK Flight Recorder events, which cost
+ * next to nothing while no recording is running. The {@link FlightRecordingEndpoint}
+ * starts a recording of a given duration and returns the file, to be opened in JDK
+ * Mission Control or with the {@code jfr} tool. Recordings can equally be started with
+ * {@code jcmd <pid> JFR.start}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(FlightRecorderProperties.class)
+class FlightRecorderConfiguration implements WebMvcConfigurer {
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new TemplateRenderInterceptor());
+	}
+
+	@Bean
+	WebMvcRegistrations flightRecorderWebMvcRegistrations() {
+		return new WebMvcRegistrations() {
+
+			@Override
+			public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+				return new FlightRecorderRequestMappingHandlerAdapter();
+			}
+
+		};
+	}
+
+	@Bean
+	CachingConfigurer flightRecorderCachingConfigurer(ObjectProvider<CacheManager> cacheManager,
+			FlightRecorderProperties properties) {
+		return new CachingConfigurer() {
+
+			@Override
+			public CacheResolver cacheResolver() {
+				return new FlightRecorderCacheResolver(cacheManager.getObject(), properties.caches());
+			}
+
+		};
+	}
+
+	@Bean
+	FlightRecordingEndpoint flightRecordingEndpoint(FlightRecorderProperties properties) {
+		return new FlightRecordingEndpoint(properties.defaultDuration(), properties.maxDuration());
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for on-demand flight recordings.
+ *
+ * @param defaultDuration how long a recording runs when no duration is requested
+ * @param maxDuration longest recording that can be requested
+ * @param caches names of the caches whose lookups are recorded
+ */
+@ConfigurationProperties("petclinic.jfr")
+record FlightRecorderProperties(@DefaultValue("30s") Duration defaultDuration, @DefaultValue("5m") Duration maxDuration,
+		@DefaultValue("vets") Set<String> caches) {
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.support.WebBindingInitializer;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.annotation.InitBinderDataBinderFactory;
+import org.springframework.web.method.support.InvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+/**
+ * {@link RequestMappingHandlerAdapter} wrapping the validators of every data binder into
+ * a {@link FlightRecorderValidator}. This happens after the {@code @InitBinder} methods
+ * have run, so that validators set by the controllers themselves, such as the
+ * {@code PetValidator}, are included.
+ */
+class FlightRecorderRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+	@Override
+	protected InitBinderDataBinderFactory createDataBinderFactory(List<InvocableHandlerMethod> binderMethods) {
+		return new FlightRecorderDataBinderFactory(binderMethods, getWebBindingInitializer());
+	}
+
+	private static final class FlightRecorderDataBinderFactory extends ServletRequestDataBinderFactory {
+
+		FlightRecorderDataBinderFactory(List<InvocableHandlerMethod> binderMethods, WebBindingInitializer initializer) {
+			super(binderMethods, initializer);
+		}
+
+		@Override
+		public void initBinder(WebDataBinder dataBinder, NativeWebRequest request) throws Exception {
+			super.initBinder(dataBinder, request);
+			List<Validator> validators = dataBinder.getValidators();
+			if (!validators.isEmpty()) {
+				dataBinder
+					.replaceValidators(validators.stream().map(FlightRecorderValidator::new).toArray(Validator[]::new));
+			}
+		}
+
+	}
+
+}
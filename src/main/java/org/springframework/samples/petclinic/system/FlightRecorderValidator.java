@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+
+/**
+ * {@link Validator} decorator recording every validation as a {@link ValidationEvent}
+ * while a flight recording is running.
+ *
+ * @see FlightRecorderRequestMappingHandlerAdapter
+ */
+class FlightRecorderValidator implements SmartValidator {
+
+	private final Validator validator;
+
+	FlightRecorderValidator(Validator validator) {
+		this.validator = validator;
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return this.validator.supports(clazz);
+	}
+
+	@Override
+	public void validate(Object target, Errors errors) {
+		validate(target, errors, new Object[0]);
+	}
+
+	@Override
+	public void validate(Object target, Errors errors, Object... validationHints) {
+		ValidationEvent event = new ValidationEvent();
+		int errorCount = errors.getErrorCount();
+		event.begin();
+		if (validationHints.length > 0 && this.validator instanceof SmartValidator smartValidator) {
+			smartValidator.validate(target, errors, validationHints);
+		}
+		else {
+			this.validator.validate(target, errors);
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.validator = this.validator.getClass().getSimpleName();
+			event.target = target.getClass().getSimpleName();
+			event.errors = errors.getErrorCount() - errorCount;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+			Object... validationHints) {
+		if (!(this.validator instanceof SmartValidator smartValidator)) {
+			throw new IllegalArgumentException("Cannot validate individual value for " + targetType);
+		}
+		smartValidator.validateValue(targetType, fieldName, value, errors, validationHints);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> type) {
+		return (this.validator instanceof SmartValidator smartValidator) ? smartValidator.unwrap(type)
+				: SmartValidator.super.unwrap(type);
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint ({@code POST /actuator/flightrecording}) running a JDK Flight
+ * Recorder recording for the requested {@code duration}, at most
+ * {@code petclinic.jfr.max-duration}, and returning the {@code .jfr} file. The
+ * {@code settings} select the JDK's {@code default} (low overhead, the default) or
+ * {@code profile} (more detail) configuration. Besides the JDK's own events the recording
+ * contains repository calls, cache lookups, template renders and validations.
+ * <p>
+ * Only one recording runs at a time, further requests are answered with
+ * {@code 429 Too Many Requests}.
+ */
+@Endpoint(id = "flightrecording")
+class FlightRecordingEndpoint {
+
+	private static final Logger logger = LoggerFactory.getLogger(FlightRecordingEndpoint.class);
+
+	private final Lock lock = new ReentrantLock();
+
+	private final Duration defaultDuration;
+
+	private final Duration maxDuration;
+
+	FlightRecordingEndpoint(Duration defaultDuration, Duration maxDuration) {
+		this.defaultDuration = defaultDuration;
+		this.maxDuration = maxDuration;
+	}
+
+	@WriteOperation(produces = "application/octet-stream")
+	public WebEndpointResponse<Resource> record(@Nullable Duration duration, @Nullable String settings) {
+		Duration recordingDuration = (duration != null) ? duration : this.defaultDuration;
+		if (recordingDuration.isNegative() || recordingDuration.isZero()
+				|| recordingDuration.compareTo(this.maxDuration) > 0) {
+			throw new InvalidEndpointRequestException("Duration must be positive and at most " + this.maxDuration,
+					"Invalid duration");
+		}
+		Configuration configuration = configuration((settings != null) ? settings : "default");
+		if (!this.lock.tryLock()) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+		}
+		try {
+			return new WebEndpointResponse<>(new TemporaryFileSystemResource(record(configuration, recordingDuration)));
+		}
+		catch (IOException ex) {
+			logger.warn("Failed to write flight recording", ex);
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private static Configuration configuration(String settings) {
+		try {
+			return Configuration.getConfiguration(settings);
+		}
+		catch (IOException | ParseException ex) {
+			throw new InvalidEndpointRequestException("Unknown settings '" + settings + "', use default or profile",
+					"Invalid settings");
+		}
+	}
+
+	private static Path record(Configuration configuration, Duration duration) throws IOException {
+		Path file = Files.createTempFile("petclinic-", ".jfr");
+		try (Recording recording = new Recording(configuration)) {
+			recording.setName("petclinic");
+			recording.start();
+			logger.info("Started {} flight recording for {}", configuration.getName(), duration);
+			try {
+				Thread.sleep(duration.toMillis());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			recording.stop();
+			recording.dump(file);
+		}
+		catch (IOException | RuntimeException ex) {
+			Files.deleteIfExists(file);
+			throw ex;
+		}
+		return file;
+	}
+
+	/**
+	 * Recording file deleted once it has been sent.
+	 */
+	private static final class TemporaryFileSystemResource extends FileSystemResource {
+
+		TemporaryFileSystemResource(Path path) {
+			super(path);
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return new FilterInputStream(super.getInputStream()) {
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					}
+					finally {
+						Files.deleteIfExists(getFile().toPath());
+					}
+				}
+
+			};
+		}
+
+		@Override
+		public boolean isFile() {
+			// prevent zero-copy, which would bypass the deletion on close
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.GraphQLFieldDefinition;
+
+/**
+ * Rejects GraphQL queries nested too deeply or selecting too much before running them.
+ * Every field costs one plus its selections, and the selections of a field bounded by a
+ * {@code first} or {@code last} argument count that many times, so asking for the visits
+ * of the pets of a hundred owners costs a hundred times what one owner does. Leaving the
+ * argument out of such a field, to select all its items, counts as
+ * {@code petclinic.graphql.unbounded-size} items.
+ */
+@Configuration(proxyBeanMethods = false)
+class GraphQlConfiguration {
+
+	@Bean
+	MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${petclinic.graphql.max-depth:8}") int maxDepth) {
+		return new MaxQueryDepthInstrumentation(maxDepth);
+	}
+
+	@Bean
+	MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+			@Value("${petclinic.graphql.max-complexity:2000}") int maxComplexity,
+			@Value("${petclinic.graphql.unbounded-size:100}") int unboundedSize) {
+		return new MaxQueryComplexityInstrumentation(maxComplexity, fieldComplexityCalculator(unboundedSize));
+	}
+
+	static FieldComplexityCalculator fieldComplexityCalculator(int unboundedSize) {
+		return (environment, childComplexity) -> {
+			Map<String, Object> arguments = environment.getArguments();
+			Object limit = (arguments.get("first") != null) ? arguments.get("first") : arguments.get("last");
+			int times = 1;
+			if (limit instanceof Integer count) {
+				times = Math.max(count, 1);
+			}
+			else if (isBounded(environment.getFieldDefinition())) {
+				times = unboundedSize;
+			}
+			return 1 + times * childComplexity;
+		};
+	}
+
+	private static boolean isBounded(GraphQLFieldDefinition field) {
+		return field.getArgument("first") != null || field.getArgument("last") != null;
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.common.KeyValues;
+
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Adds a {@code handler} tag naming the controller method that handled the request, such
+ * as {@code OwnerController.showOwner}, to the {@code http.server.requests} observations
+ * that Spring Boot already tags with the route template ({@code uri}), method, status and
+ * outcome.
+ */
+class HandlerObservationConvention extends DefaultServerRequestObservationConvention {
+
+	static final String NONE = "none";
+
+	private static final Map<Method, String> names = new ConcurrentHashMap<>();
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+		return super.getLowCardinalityKeyValues(context).and("handler", handlerName(context.getCarrier()));
+	}
+
+	/**
+	 * Return the simple name of the controller and method that handled the request, or
+	 * {@value #NONE} when it was not handled by a controller method.
+	 * @param request the request, after it has been handled
+	 * @return the name of the handler
+	 */
+	static String handlerName(HttpServletRequest request) {
+		if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+			return names.computeIfAbsent(handler.getMethod(),
+					(method) -> handler.getBeanType().getSimpleName() + "." + method.getName());
+		}
+		return NONE;
+	}
+
+}
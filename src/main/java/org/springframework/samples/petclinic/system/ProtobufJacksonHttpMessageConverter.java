@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Writes objects as Protocol Buffers messages, with a schema generated from their class
+ * by Jackson rather than with classes generated by {@code protoc}. A collection is
+ * written as a stream of length-delimited messages, one per element, as
+ * {@code parseDelimitedFrom} reads them, and flagged with a {@code delimited=true}
+ * content type parameter. The message name and the location of the {@code .proto} source
+ * describing it are sent in the {@code X-Protobuf-Message} and {@code X-Protobuf-Schema}
+ * headers.
+ *
+ * @see ProtobufSchemas
+ */
+public class ProtobufJacksonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final String PROTOBUF_VALUE = "application/x-protobuf";
+
+	public static final MediaType PROTOBUF = MediaType.parseMediaType(PROTOBUF_VALUE);
+
+	static final String MESSAGE_HEADER = "X-Protobuf-Message";
+
+	static final String SCHEMA_HEADER = "X-Protobuf-Schema";
+
+	private final ProtobufSchemas schemas;
+
+	ProtobufJacksonHttpMessageConverter(ProtobufSchemas schemas) {
+		super(PROTOBUF);
+		this.schemas = schemas;
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return !BeanUtils.isSimpleValueType(clazz) && !Map.class.isAssignableFrom(clazz) && !clazz.isArray();
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+		throw new UnsupportedOperationException("Reading Protocol Buffers messages is not supported");
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+		throw new UnsupportedOperationException("Reading Protocol Buffers messages is not supported");
+	}
+
+	@Override
+	protected void addDefaultHeaders(HttpHeaders headers, Object object, MediaType contentType) throws IOException {
+		super.addDefaultHeaders(headers, object, contentType);
+		if (object instanceof Collection<?> collection) {
+			headers.setContentType(new MediaType(headers.getContentType(), Map.of("delimited", "true")));
+			if (collection.isEmpty()) {
+				return;
+			}
+			object = collection.iterator().next();
+		}
+		String message = this.schemas.schemaFor(object.getClass()).getRootType().getName();
+		headers.set(MESSAGE_HEADER, message);
+		headers.set(SCHEMA_HEADER, ProtobufSchemaController.PATH.replace("{message}", message));
+	}
+
+	@Override
+	protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+		OutputStream body = outputMessage.getBody();
+		if (object instanceof Collection<?> collection) {
+			ByteArrayOutputStream message = new ByteArrayOutputStream();
+			byte[] length = new byte[5];
+			for (Object element : collection) {
+				message.reset();
+				writer(element).writeValue(message, element);
+				body.write(length, 0, writeVarint(message.size(), length));
+				message.writeTo(body);
+			}
+		}
+		else {
+			writer(object).writeValue(body, object);
+		}
+	}
+
+	private ObjectWriter writer(Object object) throws IOException {
+		if (object == null) {
+			throw new HttpMessageNotWritableException("Cannot write a null Protocol Buffers message");
+		}
+		ProtobufSchema schema = this.schemas.schemaFor(object.getClass());
+		return this.schemas.getMapper().writerFor(object.getClass()).with(schema);
+	}
+
+	/**
+	 * Encode the given non-negative value as a base 128 varint.
+	 * @return the number of bytes written to the buffer
+	 */
+	static int writeVarint(int value, byte[] buffer) {
+		int length = 0;
+		while ((value & ~0x7F) != 0) {
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte) value;
+		return length;
+	}
+
+}
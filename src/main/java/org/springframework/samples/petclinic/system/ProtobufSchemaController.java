@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serves the {@code .proto} source of the schemas generated for Protocol Buffers
+ * responses, at the location sent in their {@code X-Protobuf-Schema} header.
+ */
+@Controller
+class ProtobufSchemaController {
+
+	static final String PATH = "/protobuf/{message}.proto";
+
+	private final ProtobufSchemas schemas;
+
+	ProtobufSchemaController(ProtobufSchemas schemas) {
+		this.schemas = schemas;
+	}
+
+	@GetMapping(path = PATH, produces = MediaType.TEXT_PLAIN_VALUE)
+	public @ResponseBody String showSchema(@PathVariable String message) {
+		return this.schemas.source(message)
+			.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No schema for message " + message));
+	}
+
+}
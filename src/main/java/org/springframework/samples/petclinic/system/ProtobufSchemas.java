@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Protocol Buffers schemas generated from the classes of the objects written by the
+ * {@link ProtobufJacksonHttpMessageConverter}, once per class. The message of a class is
+ * named after it, and the {@code .proto} source of the schemas generated so far is served
+ * by the {@link ProtobufSchemaController}. The schemas of the API responses are
+ * {@link #register registered} up front, so that clients can fetch them before their
+ * first request.
+ */
+class ProtobufSchemas {
+
+	private final ProtobufMapper mapper;
+
+	private final Map<Class<?>, ProtobufSchema> schemas = new ConcurrentHashMap<>();
+
+	private final Map<String, ProtobufSchema> schemasByName = new ConcurrentHashMap<>();
+
+	ProtobufSchemas(ProtobufMapper mapper) {
+		this.mapper = mapper;
+	}
+
+	ProtobufMapper getMapper() {
+		return this.mapper;
+	}
+
+	/**
+	 * Generate the schemas of the given classes now rather than on first use.
+	 * @throws IllegalStateException if a class cannot be described by a schema
+	 */
+	void register(Class<?>... types) {
+		for (Class<?> type : types) {
+			try {
+				schemaFor(type);
+			}
+			catch (JsonMappingException ex) {
+				throw new IllegalStateException("Cannot generate Protocol Buffers schema for " + type.getName(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Return the schema whose root message describes the given class, generating it on
+	 * first use.
+	 * @throws JsonMappingException if the class cannot be described by a schema
+	 */
+	ProtobufSchema schemaFor(Class<?> type) throws JsonMappingException {
+		ProtobufSchema schema = this.schemas.get(type);
+		if (schema == null) {
+			schema = this.mapper.generateSchemaFor(type);
+			this.schemas.putIfAbsent(type, schema);
+			this.schemasByName.putIfAbsent(schema.getRootType().getName(), schema);
+		}
+		return schema;
+	}
+
+	/**
+	 * Return the {@code .proto} source of the schema generated for the message with the
+	 * given name, if any.
+	 */
+	Optional<String> source(String messageName) {
+		return Optional.ofNullable(this.schemasByName.get(messageName)).map((schema) -> schema.getSource().toString());
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.ttddyy.dsproxy.QueryType;
+
+/**
+ * Counts the JDBC statements issued by the current thread while a {@link Scope} is open.
+ * Used by the {@link RepeatedQueryFilter} to spot N+1 selects at runtime and by tests to
+ * assert an upper bound on the number of statements an operation needs:
+ *
+ * <pre class="code">
+ * try (QueryCounter.Scope queries = QueryCounter.start()) {
+ *     this.owners.findById(1);
+ *     assertThat(queries.getSelectCount()).isLessThanOrEqualTo(2);
+ * }
+ * </pre>
+ *
+ * Statements are only seen when they go through the {@link javax.sql.DataSource}
+ * instrumented by {@link QueryMetricsConfiguration}.
+ */
+public final class QueryCounter {
+
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+	private QueryCounter() {
+	}
+
+	/**
+	 * Open a new counting scope on the current thread. Scopes nest: statements are
+	 * counted by every scope that is open when they are executed.
+	 * @return the new scope, to be closed by the caller
+	 */
+	public static Scope start() {
+		Scope scope = new Scope(CURRENT.get());
+		CURRENT.set(scope);
+		return scope;
+	}
+
+	static void record(QueryType type, String sql) {
+		for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+			scope.add(type, sql);
+		}
+	}
+
+	/**
+	 * Statement counts collected while the scope was open.
+	 */
+	public static final class Scope implements AutoCloseable {
+
+		private final Scope parent;
+
+		private final Map<QueryType, Integer> counts = new EnumMap<>(QueryType.class);
+
+		private final Map<String, Integer> statements = new HashMap<>();
+
+		private boolean closed;
+
+		private Scope(Scope parent) {
+			this.parent = parent;
+		}
+
+		private void add(QueryType type, String sql) {
+			if (!this.closed) {
+				this.counts.merge(type, 1, Integer::sum);
+				this.statements.merge(sql, 1, Integer::sum);
+			}
+		}
+
+		public int getSelectCount() {
+			return getCount(QueryType.SELECT);
+		}
+
+		public int getInsertCount() {
+			return getCount(QueryType.INSERT);
+		}
+
+		public int getUpdateCount() {
+			return getCount(QueryType.UPDATE);
+		}
+
+		public int getDeleteCount() {
+			return getCount(QueryType.DELETE);
+		}
+
+		public int getCount(QueryType type) {
+			return this.counts.getOrDefault(type, 0);
+		}
+
+		public int getTotalCount() {
+			return this.counts.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		/**
+		 * Return how often each distinct statement text was executed.
+		 */
+		public Map<String, Integer> getStatementCounts() {
+			return Map.copyOf(this.statements);
+		}
+
+		@Override
+		public void close() {
+			if (!this.closed) {
+				this.closed = true;
+				if (CURRENT.get() == this) {
+					if (this.parent == null) {
+						CURRENT.remove();
+					}
+					else {
+						CURRENT.set(this.parent);
+					}
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Instruments data access so that it is possible to tell which repository method is
+ * responsible for database time.
+ * <p>
+ * Spring Boot already records {@code spring.data.repository.invocations} per repository
+ * method and {@code hikaricp.connections.acquire}/{@code usage} for the connection pool.
+ * This configuration adds a proxy around the {@link DataSource} that times every JDBC
+ * statement, tags it with the repository method that issued it and reports statements
+ * slower than {@code petclinic.jdbc.slow-query-threshold} to the {@link SlowQueryLog}.
+ * Requests that repeat the same statement more than
+ * {@code petclinic.jdbc.repeated-query-threshold} times are reported by the
+ * {@link RepeatedQueryFilter}. Percentiles for all of these timers are configured in
+ * {@code application.properties} and everything can be browsed via the {@code metrics}
+ * and {@code slowqueries} actuator endpoints.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(QueryMetricsProperties.class)
+public class QueryMetricsConfiguration {
+
+	@Bean
+	static BeanPostProcessor repositoryInvocationBeanPostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+					repositoryFactoryBean.addRepositoryFactoryCustomizer(factory -> factory
+						.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> proxyFactory
+							.addAdvice(new RepositoryInvocationInterceptor(
+									repositoryInformation.getRepositoryInterface()))));
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	static BeanPostProcessor queryMetricsDataSourceBeanPostProcessor(ObjectProvider<MeterRegistry> registry,
+			ObjectProvider<SlowQueryLog> slowQueryLog) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(dataSource)
+						.name(beanName)
+						.listener(new QueryMetricsListener(registry, slowQueryLog.getObject()))
+						.build();
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	SlowQueryLog slowQueryLog(QueryMetricsProperties properties) {
+		return new SlowQueryLog(properties.slowQueryThreshold(), properties.slowQueryLogSize());
+	}
+
+	@Bean
+	FilterRegistrationBean<RepeatedQueryFilter> repeatedQueryFilter(QueryMetricsProperties properties) {
+		FilterRegistrationBean<RepeatedQueryFilter> registration = new FilterRegistrationBean<>(
+				new RepeatedQueryFilter(properties.repeatedQueryThreshold()));
+		registration.setEnabled(properties.repeatedQueryThreshold() > 0);
+		return registration;
+	}
+
+	@Bean
+	SlowQueryEndpoint slowQueryEndpoint(SlowQueryLog slowQueryLog) {
+		return new SlowQueryEndpoint(slowQueryLog);
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Records a {@code petclinic.jdbc.statements} timer for every statement executed through
+ * the application {@link javax.sql.DataSource}, tagged with the repository method that
+ * issued it and the statement type, counts it for any open {@link QueryCounter} scope and
+ * feeds slow statements to the {@link SlowQueryLog}.
+ *
+ * @see QueryMetricsConfiguration
+ */
+class QueryMetricsListener implements QueryExecutionListener {
+
+	static final String METRIC_NAME = "petclinic.jdbc.statements";
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	private final SlowQueryLog slowQueryLog;
+
+	QueryMetricsListener(ObjectProvider<MeterRegistry> registry, SlowQueryLog slowQueryLog) {
+		this.registry = registry;
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		RepositoryInvocation invocation = RepositoryInvocation.current();
+		Duration elapsed = Duration.ofMillis(execInfo.getElapsedTime());
+		MeterRegistry meterRegistry = this.registry.getIfAvailable();
+		for (QueryInfo queryInfo : queryInfoList) {
+			String sql = queryInfo.getQuery();
+			QueryType type = QueryUtils.getQueryType(sql);
+			QueryCounter.record(type, sql);
+			if (meterRegistry != null) {
+				Timer.builder(METRIC_NAME)
+					.description("JDBC statements issued per repository method")
+					.tag("repository", invocation.repository())
+					.tag("method", invocation.method())
+					.tag("type", type.name().toLowerCase())
+					.tag("outcome", execInfo.isSuccess() ? "success" : "error")
+					.register(meterRegistry)
+					.record(execInfo.getElapsedTime(), TimeUnit.MILLISECONDS);
+			}
+			this.slowQueryLog.record(sql, parameterCount(queryInfo), elapsed, invocation);
+		}
+	}
+
+	private static int parameterCount(QueryInfo queryInfo) {
+		return queryInfo.getParametersList().isEmpty() ? 0 : queryInfo.getParametersList().get(0).size();
+	}
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the JDBC statement instrumentation.
+ *
+ * @param slowQueryThreshold statements running at least this long are written to the slow
+ * query log
+ * @param slowQueryLogSize number of slow statements kept for the {@code slowqueries}
+ * actuator endpoint
+ * @param repeatedQueryThreshold a request executing the same statement more often than
+ * this is logged as a likely N+1 select, {@code 0} disables the check
+ */
+@ConfigurationProperties("petclinic.jdbc")
+record QueryMetricsProperties(@DefaultValue("200ms") Duration slowQueryThreshold,
+		@DefaultValue("100") int slowQueryLogSize, @DefaultValue("5") int repeatedQueryThreshold) {
+
+}
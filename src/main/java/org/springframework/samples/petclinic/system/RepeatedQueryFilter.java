@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Logs a warning when a single request executes the same statement more often than the
+ * configured threshold, which usually means an association is being loaded one row at a
+ * time (the "N+1 selects" problem).
+ *
+ * @see QueryCounter
+ */
+class RepeatedQueryFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepeatedQueryFilter.class);
+
+	private final int threshold;
+
+	RepeatedQueryFilter(int threshold) {
+		this.threshold = threshold;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			filterChain.doFilter(request, response);
+			for (Map.Entry<String, Integer> statement : queries.getStatementCounts().entrySet()) {
+				if (statement.getValue() > this.threshold) {
+					logger.warn("{} {} executed the same statement {} times ({} statements in total): {}",
+							request.getMethod(), request.getRequestURI(), statement.getValue(), queries.getTotalCount(),
+							SlowQueryLog.redact(statement.getKey()));
+				}
+			}
+		}
+	}
+
+}
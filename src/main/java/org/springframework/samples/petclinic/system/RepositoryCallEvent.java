@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning a call to a Spring Data repository method.
+ *
+ * @see RepositoryInvocationInterceptor
+ */
+@Name("org.springframework.samples.petclinic.RepositoryCall")
+@Label("Repository Call")
+@Category({ "PetClinic", "Data Access" })
+@Description("Call to a Spring Data repository method, including the statements it executed")
+class RepositoryCallEvent extends Event {
+
+	@Label("Repository")
+	String repository;
+
+	@Label("Method")
+	String method;
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+/**
+ * The Spring Data repository method currently executing on this thread, used to attribute
+ * JDBC statements to the repository call that issued them.
+ *
+ * @param repository simple name of the repository interface
+ * @param method name of the invoked repository method
+ */
+public record RepositoryInvocation(String repository, String method) {
+
+	/**
+	 * Placeholder used for statements issued outside of any repository call (for example
+	 * by the SQL initializer).
+	 */
+	public static final RepositoryInvocation NONE = new RepositoryInvocation("none", "none");
+
+	private static final ThreadLocal<RepositoryInvocation> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Return the innermost repository invocation on the current thread, or {@link #NONE}
+	 * if no repository method is executing.
+	 */
+	public static RepositoryInvocation current() {
+		RepositoryInvocation invocation = CURRENT.get();
+		return (invocation != null) ? invocation : NONE;
+	}
+
+	static RepositoryInvocation enter(RepositoryInvocation invocation) {
+		RepositoryInvocation previous = CURRENT.get();
+		CURRENT.set(invocation);
+		return previous;
+	}
+
+	static void exit(RepositoryInvocation previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(previous);
+		}
+	}
+
+}
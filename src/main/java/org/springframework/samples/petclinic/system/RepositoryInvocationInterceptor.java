@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Exposes the {@link RepositoryInvocation} for the duration of a repository method call
+ * so that the statements it issues can be tagged with the repository and method name, and
+ * records the call as a {@link RepositoryCallEvent} while a flight recording is running.
+ *
+ * @see QueryMetricsConfiguration
+ */
+class RepositoryInvocationInterceptor implements MethodInterceptor {
+
+	private final String repository;
+
+	RepositoryInvocationInterceptor(Class<?> repositoryInterface) {
+		this.repository = repositoryInterface.getSimpleName();
+	}
+
+	@Override
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		RepositoryInvocation previous = RepositoryInvocation
+			.enter(new RepositoryInvocation(this.repository, invocation.getMethod().getName()));
+		RepositoryCallEvent event = new RepositoryCallEvent();
+		event.begin();
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			RepositoryInvocation.exit(previous);
+			event.end();
+			if (event.shouldCommit()) {
+				event.repository = this.repository;
+				event.method = invocation.getMethod().getName();
+				event.commit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.support.NoOpCache;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * {@link CacheResolver} backing an identity map that lives as long as the current web
+ * request: repeated repository lookups of the same entity within one request are served
+ * from memory, while the next request reads fresh data again. Outside of a request no
+ * caching takes place.
+ * <p>
+ * Select it with {@code @Cacheable(cacheNames = "...", cacheResolver =
+ * "requestCacheResolver")}. Lookups served from the map are counted by the
+ * {@code petclinic.repository.memoized} counter, tagged with the cache name.
+ *
+ * @see CacheConfiguration
+ */
+class RequestCacheResolver implements CacheResolver {
+
+	static final String METRIC_NAME = "petclinic.repository.memoized";
+
+	private static final String ATTRIBUTE_NAME = RequestCacheResolver.class.getName() + ".CACHES";
+
+	private final ObjectProvider<MeterRegistry> registry;
+
+	RequestCacheResolver(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+		RequestAttributes request = RequestContextHolder.getRequestAttributes();
+		return context.getOperation().getCacheNames().stream().map((name) -> getCache(request, name)).toList();
+	}
+
+	private Cache getCache(RequestAttributes request, String name) {
+		if (request == null) {
+			return new NoOpCache(name);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Cache> caches = (Map<String, Cache>) request.getAttribute(ATTRIBUTE_NAME,
+				RequestAttributes.SCOPE_REQUEST);
+		if (caches == null) {
+			caches = new HashMap<>();
+			request.setAttribute(ATTRIBUTE_NAME, caches, RequestAttributes.SCOPE_REQUEST);
+		}
+		return caches.computeIfAbsent(name, this::createCache);
+	}
+
+	private Cache createCache(String name) {
+		MeterRegistry meterRegistry = this.registry.getIfAvailable();
+		Counter hits = (meterRegistry != null) ? Counter.builder(METRIC_NAME)
+			.description("Repository calls served from the request-scoped identity map")
+			.tag("cache", name)
+			.register(meterRegistry) : null;
+		return new RequestCache(name, hits);
+	}
+
+	/**
+	 * Cache counting the lookups it answers.
+	 */
+	private static final class RequestCache extends ConcurrentMapCache {
+
+		private final Counter hits;
+
+		RequestCache(String name, Counter hits) {
+			super(name);
+			this.hits = hits;
+		}
+
+		@Override
+		protected Object lookup(Object key) {
+			Object value = super.lookup(key);
+			if (value != null && this.hits != null) {
+				this.hits.increment();
+			}
+			return value;
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Makes it possible to tell which routes are slow and to look at individual slow
+ * requests.
+ * <p>
+ * Spring Boot already times every request as {@code http.server.requests}, tagged with
+ * the route template, method, status and outcome. The
+ * {@link HandlerObservationConvention} adds the controller method, and
+ * {@code application.properties} publishes the timer as a histogram with SLO buckets and
+ * percentiles, so per-route latency distributions can be aggregated across instances. The
+ * {@link AccessLog} additionally writes one structured line per request, off the request
+ * thread, unless {@code petclinic.access-log.enabled} is {@code false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class RequestMetricsConfiguration {
+
+	@Bean
+	HandlerObservationConvention handlerObservationConvention() {
+		return new HandlerObservationConvention();
+	}
+
+	@Bean(destroyMethod = "close")
+	AccessLog accessLog(AccessLogProperties properties, ObjectProvider<MeterRegistry> registry) {
+		AccessLog accessLog = new AccessLog(properties.bufferSize());
+		registry.ifAvailable((meterRegistry) -> FunctionCounter
+			.builder("petclinic.access-log.dropped", accessLog, AccessLog::getDroppedCount)
+			.description("Requests not written to the access log because its buffer was full")
+			.register(meterRegistry));
+		return accessLog;
+	}
+
+	@Bean
+	FilterRegistrationBean<AccessLogFilter> accessLogFilter(AccessLogProperties properties, AccessLog accessLog) {
+		FilterRegistrationBean<AccessLogFilter> registration = new FilterRegistrationBean<>(
+				new AccessLogFilter(accessLog));
+		registration.setEnabled(properties.enabled());
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+}
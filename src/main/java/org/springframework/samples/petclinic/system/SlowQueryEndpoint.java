@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Actuator endpoint ({@code /actuator/slowqueries}) exposing the most recent statements
+ * recorded by the {@link SlowQueryLog}.
+ */
+@Endpoint(id = "slowqueries")
+class SlowQueryEndpoint {
+
+	private final SlowQueryLog slowQueryLog;
+
+	SlowQueryEndpoint(SlowQueryLog slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@ReadOperation
+	public SlowQueries slowQueries() {
+		return new SlowQueries(this.slowQueryLog.getThreshold().toMillis(), this.slowQueryLog.getEntries());
+	}
+
+	/**
+	 * Response body of the endpoint.
+	 */
+	public record SlowQueries(long thresholdMillis, List<SlowQueryLog.Entry> queries) {
+
+	}
+
+}
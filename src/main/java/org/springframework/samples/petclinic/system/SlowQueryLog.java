@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the most recent statements that took longer than the configured threshold and
+ * writes them to the log. Bound parameters are never recorded, and literals inlined into
+ * the SQL text are replaced by {@code ?} so that no customer data ends up in the log.
+ *
+ * @see SlowQueryEndpoint
+ */
+public class SlowQueryLog {
+
+	private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+	private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+	private final Duration threshold;
+
+	private final int capacity;
+
+	private final Deque<Entry> entries;
+
+	public SlowQueryLog(Duration threshold, int capacity) {
+		this.threshold = threshold;
+		this.capacity = capacity;
+		this.entries = new ArrayDeque<>(capacity);
+	}
+
+	public Duration getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * Record the given statement if its execution time reached the threshold.
+	 * @param sql the statement text as sent to the driver
+	 * @param parameterCount number of bound parameters (values are not recorded)
+	 * @param elapsed execution time of the statement
+	 * @param invocation the repository call that issued the statement
+	 */
+	public void record(String sql, int parameterCount, Duration elapsed, RepositoryInvocation invocation) {
+		if (elapsed.compareTo(this.threshold) < 0) {
+			return;
+		}
+		Entry entry = new Entry(Instant.now(), elapsed.toMillis(), invocation.repository(), invocation.method(),
+				redact(sql), parameterCount);
+		logger.warn("Slow query ({} ms) in {}.{} with {} bound parameter(s): {}", entry.elapsedMillis(),
+				entry.repository(), entry.method(), entry.parameterCount(), entry.sql());
+		synchronized (this.entries) {
+			if (this.entries.size() == this.capacity) {
+				this.entries.removeFirst();
+			}
+			this.entries.addLast(entry);
+		}
+	}
+
+	/**
+	 * Return the recorded slow statements, most recent first.
+	 */
+	public List<Entry> getEntries() {
+		synchronized (this.entries) {
+			List<Entry> result = new ArrayList<>(this.entries);
+			Collections.reverse(result);
+			return result;
+		}
+	}
+
+	static String redact(String sql) {
+		String redacted = STRING_LITERAL.matcher(sql).replaceAll("?");
+		return NUMERIC_LITERAL.matcher(redacted).replaceAll("?");
+	}
+
+	/**
+	 * A single slow statement.
+	 */
+	public record Entry(Instant timestamp, long elapsedMillis, String repository, String method, String sql,
+			int parameterCount) {
+
+	}
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the rendering of the view returned by a controller.
+ *
+ * @see TemplateRenderInterceptor
+ */
+@Name("org.springframework.samples.petclinic.TemplateRender")
+@Label("Template Render")
+@Category({ "PetClinic", "Web" })
+@Description("Rendering of the view selected by a controller, including lazy loading triggered by the template")
+@StackTrace(false)
+class TemplateRenderEvent extends Event {
+
+	@Label("View")
+	String view;
+
+	@Label("Path")
+	String path;
+
+}
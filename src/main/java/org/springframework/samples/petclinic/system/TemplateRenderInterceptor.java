@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the rendering of the view returned by a controller as a
+ * {@link TemplateRenderEvent} while a flight recording is running. Rendering happens
+ * between {@link #postHandle} and {@link #afterCompletion}.
+ */
+class TemplateRenderInterceptor implements HandlerInterceptor {
+
+	private static final String EVENT_ATTRIBUTE = TemplateRenderInterceptor.class.getName() + ".EVENT";
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+		if (modelAndView == null || modelAndView.getViewName() == null) {
+			return;
+		}
+		TemplateRenderEvent event = new TemplateRenderEvent();
+		if (event.isEnabled()) {
+			event.view = modelAndView.getViewName();
+			event.path = request.getRequestURI();
+			event.begin();
+			request.setAttribute(EVENT_ATTRIBUTE, event);
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (request.getAttribute(EVENT_ATTRIBUTE) instanceof TemplateRenderEvent event) {
+			request.removeAttribute(EVENT_ATTRIBUTE);
+			event.commit();
+		}
+	}
+
+}
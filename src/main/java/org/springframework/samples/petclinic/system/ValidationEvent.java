@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the validation of a bound request parameter or form.
+ *
+ * @see FlightRecorderValidator
+ */
+@Name("org.springframework.samples.petclinic.Validation")
+@Label("Validation")
+@Category({ "PetClinic", "Web" })
+@Description("Validation of a form or request body bound by a controller")
+@StackTrace(false)
+class ValidationEvent extends Event {
+
+	@Label("Validator")
+	String validator;
+
+	@Label("Target")
+	String target;
+
+	@Label("Errors")
+	int errors;
+
+}
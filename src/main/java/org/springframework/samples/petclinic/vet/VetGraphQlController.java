@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.samples.petclinic.vet.VetBatchLoader.SpecialtyRow;
+import org.springframework.samples.petclinic.vet.VetBatchLoader.VetRow;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Resolves the vets of the GraphQL schema, reading the specialties of all the vets in a
+ * response with one statement.
+ */
+@Controller
+class VetGraphQlController {
+
+	private final VetBatchLoader loader;
+
+	VetGraphQlController(VetBatchLoader loader) {
+		this.loader = loader;
+	}
+
+	@QueryMapping
+	public List<VetRow> vets() {
+		return this.loader.loadVets();
+	}
+
+	@BatchMapping(typeName = "Vet")
+	public List<List<SpecialtyRow>> specialties(List<VetRow> vets) {
+		Map<Integer, List<SpecialtyRow>> specialties = this.loader
+			.loadSpecialties(vets.stream().map(VetRow::id).toList());
+		return vets.stream().map((vet) -> specialties.getOrDefault(vet.id(), List.of())).toList();
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Writes {@link Vets} as XML with a StAX {@link XMLStreamWriter}, element by element as
+ * the vets are iterated, rather than marshalling the whole graph with JAXB. The document
+ * is the one JAXB writes for the {@code @XmlRootElement} mapping of {@link Vets}: the
+ * same declaration, element order and escaping, properties that are {@code null} omitted
+ * and elements without content written as empty-element tags.
+ */
+class VetsXmlHttpMessageConverter extends AbstractHttpMessageConverter<Vets> {
+
+	private static final byte[] DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+		.getBytes(StandardCharsets.UTF_8);
+
+	private final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+	VetsXmlHttpMessageConverter() {
+		super(MediaType.APPLICATION_XML, MediaType.TEXT_XML, new MediaType("application", "*+xml"));
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Vets.class == clazz;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected Vets readInternal(Class<? extends Vets> clazz, HttpInputMessage inputMessage) {
+		throw new UnsupportedOperationException("Reading vets is not supported");
+	}
+
+	@Override
+	protected void writeInternal(Vets vets, HttpOutputMessage outputMessage) throws IOException {
+		OutputStream body = outputMessage.getBody();
+		body.write(DECLARATION);
+		try {
+			XMLStreamWriter writer = this.outputFactory.createXMLStreamWriter(body, StandardCharsets.UTF_8.name());
+			List<Vet> vetList = vets.getVetList();
+			startElement(writer, "vets", !vetList.isEmpty());
+			for (Vet vet : vetList) {
+				writeVet(writer, vet);
+			}
+			endElement(writer, !vetList.isEmpty());
+			writer.writeEndDocument();
+			writer.flush();
+			writer.close();
+		}
+		catch (XMLStreamException ex) {
+			throw new HttpMessageNotWritableException("Could not write vets: " + ex.getMessage(), ex);
+		}
+	}
+
+	private static void writeVet(XMLStreamWriter writer, Vet vet) throws XMLStreamException {
+		List<Specialty> specialties = vet.getSpecialties();
+		boolean content = vet.getId() != null || vet.getFirstName() != null || vet.getLastName() != null
+				|| !specialties.isEmpty();
+		startElement(writer, "vetList", content);
+		writeProperty(writer, "id", vet.getId());
+		writeProperty(writer, "firstName", vet.getFirstName());
+		writeProperty(writer, "lastName", vet.getLastName());
+		for (Specialty specialty : specialties) {
+			boolean specialtyContent = specialty.getId() != null || specialty.getName() != null;
+			startElement(writer, "specialties", specialtyContent);
+			writeProperty(writer, "id", specialty.getId());
+			writeProperty(writer, "name", specialty.getName());
+			endElement(writer, specialtyContent);
+		}
+		endElement(writer, content);
+	}
+
+	private static void writeProperty(XMLStreamWriter writer, String name, Object value) throws XMLStreamException {
+		if (value != null) {
+			writer.writeStartElement(name);
+			writer.writeCharacters(value.toString());
+			writer.writeEndElement();
+		}
+	}
+
+	private static void startElement(XMLStreamWriter writer, String name, boolean content) throws XMLStreamException {
+		if (content) {
+			writer.writeStartElement(name);
+		}
+		else {
+			writer.writeEmptyElement(name);
+		}
+	}
+
+	private static void endElement(XMLStreamWriter writer, boolean content) throws XMLStreamException {
+		if (content) {
+			writer.writeEndElement();
+		}
+	}
+
+}
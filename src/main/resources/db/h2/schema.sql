@@ -1,6 +1,10 @@
+DROP TABLE audit_log IF EXISTS;
+DROP TABLE event_outbox IF EXISTS;
 DROP TABLE vet_specialties IF EXISTS;
+DROP TABLE visit_stats IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
+DROP TABLE visits_archive IF EXISTS;
 DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
@@ -39,9 +43,14 @@ CREATE TABLE owners (
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  pet_count       INTEGER DEFAULT 0 NOT NULL,
+  visit_count     INTEGER DEFAULT 0 NOT NULL,
+  last_visit_date DATE
 );
 CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_last_visit_date ON owners (last_visit_date);
+CREATE INDEX owners_telephone ON owners (telephone);
 
 CREATE TABLE pets (
   id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -61,4 +70,42 @@ CREATE TABLE visits (
   description VARCHAR(255)
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+CREATE INDEX visits_visit_date_id ON visits (visit_date, id);
+
+CREATE TABLE visits_archive (
+  id          INTEGER NOT NULL PRIMARY KEY,
+  pet_id      INTEGER,
+  visit_date  DATE,
+  description VARCHAR(255)
+);
+ALTER TABLE visits_archive ADD CONSTRAINT fk_visits_archive_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
+CREATE INDEX visits_archive_pet_id_visit_date ON visits_archive (pet_id, visit_date);
+CREATE INDEX visits_archive_visit_date_id ON visits_archive (visit_date, id);
+
+CREATE TABLE visit_stats (
+  visit_date  DATE NOT NULL,
+  pet_type    VARCHAR(80) NOT NULL,
+  city        VARCHAR(80) NOT NULL,
+  visit_count INTEGER NOT NULL,
+  PRIMARY KEY (visit_date, pet_type, city)
+);
+
+CREATE TABLE event_outbox (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  event_type VARCHAR(40) NOT NULL,
+  payload    VARCHAR(4000) NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE audit_log (
+  id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  owner_id    INTEGER,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id   INTEGER NOT NULL,
+  action      VARCHAR(10) NOT NULL,
+  changes     VARCHAR(4000) NOT NULL,
+  actor       VARCHAR(80) NOT NULL,
+  changed_at  TIMESTAMP NOT NULL
+);
+CREATE INDEX audit_log_owner_id_changed_at ON audit_log (owner_id, changed_at);
@@ -32,7 +32,12 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  pet_count INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  visit_count INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  last_visit_date DATE,
+  INDEX(last_name),
+  INDEX(last_visit_date),
+  INDEX(telephone)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
@@ -51,5 +56,44 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED,
   visit_date DATE,
   description VARCHAR(255),
+  INDEX(pet_id, visit_date),
+  INDEX(visit_date, id),
+  FOREIGN KEY (pet_id) REFERENCES pets(id)
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  pet_id INT(4) UNSIGNED,
+  visit_date DATE,
+  description VARCHAR(255),
+  INDEX(pet_id, visit_date),
+  INDEX(visit_date, id),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS visit_stats (
+  visit_date DATE NOT NULL,
+  pet_type VARCHAR(80) NOT NULL,
+  city VARCHAR(80) NOT NULL,
+  visit_count INT(4) UNSIGNED NOT NULL,
+  PRIMARY KEY (visit_date, pet_type, city)
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS event_outbox (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  event_type VARCHAR(40) NOT NULL,
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS audit_log (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  owner_id INT(4) UNSIGNED,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id INT(4) UNSIGNED NOT NULL,
+  action VARCHAR(10) NOT NULL,
+  changes TEXT NOT NULL,
+  actor VARCHAR(80) NOT NULL,
+  changed_at TIMESTAMP NOT NULL,
+  INDEX(owner_id, changed_at)
+) engine=InnoDB;
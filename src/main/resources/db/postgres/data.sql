@@ -51,3 +51,19 @@ INSERT INTO visits (pet_id, visit_date, description) SELECT 7, '2010-03-04', 'ra
 INSERT INTO visits (pet_id, visit_date, description) SELECT 8, '2011-03-04', 'rabies shot' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=2);
 INSERT INTO visits (pet_id, visit_date, description) SELECT 8, '2009-06-04', 'neutered' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=3);
 INSERT INTO visits (pet_id, visit_date, description) SELECT 7, '2008-09-04', 'spayed' WHERE NOT EXISTS (SELECT * FROM visits WHERE id=4);
+
+UPDATE owners SET
+  pet_count = (SELECT COUNT(*) FROM pets WHERE pets.owner_id = owners.id),
+  visit_count = (SELECT COUNT(*)
+    FROM (SELECT pet_id FROM visits UNION ALL SELECT pet_id FROM visits_archive) all_visits
+    JOIN pets ON all_visits.pet_id = pets.id WHERE pets.owner_id = owners.id),
+  last_visit_date = (SELECT MAX(all_visits.visit_date)
+    FROM (SELECT pet_id, visit_date FROM visits UNION ALL SELECT pet_id, visit_date FROM visits_archive) all_visits
+    JOIN pets ON all_visits.pet_id = pets.id WHERE pets.owner_id = owners.id);
+
+INSERT INTO visit_stats (visit_date, pet_type, city, visit_count)
+SELECT visits.visit_date, types.name, owners.city, COUNT(*)
+FROM visits JOIN pets ON visits.pet_id = pets.id JOIN types ON pets.type_id = types.id
+  JOIN owners ON pets.owner_id = owners.id
+WHERE visits.visit_date IS NOT NULL AND NOT EXISTS (SELECT * FROM visit_stats)
+GROUP BY visits.visit_date, types.name, owners.city;
@@ -29,9 +29,14 @@ CREATE TABLE IF NOT EXISTS owners (
   last_name  TEXT,
   address    TEXT,
   city       TEXT,
-  telephone  TEXT
+  telephone  TEXT,
+  pet_count       INT NOT NULL DEFAULT 0,
+  visit_count     INT NOT NULL DEFAULT 0,
+  last_visit_date DATE
 );
 CREATE INDEX ON owners (last_name);
+CREATE INDEX ON owners (last_visit_date);
+CREATE INDEX ON owners (telephone);
 
 CREATE TABLE IF NOT EXISTS pets (
   id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -49,4 +54,51 @@ CREATE TABLE IF NOT EXISTS visits (
   visit_date  DATE,
   description TEXT
 );
-CREATE INDEX ON visits (pet_id);
+CREATE INDEX ON visits (pet_id, visit_date);
+CREATE INDEX ON visits (visit_date, id);
+
+-- Visits moved out of the hot table once older than petclinic.visits.archive-horizon,
+-- partitioned by decade so that old history can be detached or dropped as a whole
+CREATE TABLE IF NOT EXISTS visits_archive (
+  id          INT NOT NULL,
+  pet_id      INT REFERENCES pets (id),
+  visit_date  DATE NOT NULL,
+  description TEXT,
+  PRIMARY KEY (id, visit_date)
+) PARTITION BY RANGE (visit_date);
+CREATE TABLE IF NOT EXISTS visits_archive_2000s PARTITION OF visits_archive
+  FOR VALUES FROM ('2000-01-01') TO ('2010-01-01');
+CREATE TABLE IF NOT EXISTS visits_archive_2010s PARTITION OF visits_archive
+  FOR VALUES FROM ('2010-01-01') TO ('2020-01-01');
+CREATE TABLE IF NOT EXISTS visits_archive_2020s PARTITION OF visits_archive
+  FOR VALUES FROM ('2020-01-01') TO ('2030-01-01');
+CREATE TABLE IF NOT EXISTS visits_archive_other PARTITION OF visits_archive DEFAULT;
+CREATE INDEX ON visits_archive (pet_id, visit_date);
+CREATE INDEX ON visits_archive (visit_date, id);
+
+CREATE TABLE IF NOT EXISTS visit_stats (
+  visit_date  DATE NOT NULL,
+  pet_type    TEXT NOT NULL,
+  city        TEXT NOT NULL,
+  visit_count INT NOT NULL,
+  PRIMARY KEY (visit_date, pet_type, city)
+);
+
+CREATE TABLE IF NOT EXISTS event_outbox (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  event_type TEXT NOT NULL,
+  payload    TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS audit_log (
+  id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  owner_id    INT,
+  entity_type TEXT NOT NULL,
+  entity_id   INT NOT NULL,
+  action      TEXT NOT NULL,
+  changes     TEXT NOT NULL,
+  actor       TEXT NOT NULL,
+  changed_at  TIMESTAMP NOT NULL
+);
+CREATE INDEX ON audit_log (owner_id, changed_at);
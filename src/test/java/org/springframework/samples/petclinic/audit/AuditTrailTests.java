@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Test class for {@link AuditEntityListener}, {@link AuditTrail} and
+ * {@link AuditController}. Queued changes are flushed by the tests rather than on the
+ * schedule.
+ */
+@SpringBootTest(properties = "petclinic.audit.flush-interval=1h")
+@AutoConfigureMockMvc
+class AuditTrailTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private AuditTrail trail;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void shouldAuditOwnerChangesWithOldAndNewValues() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/edit", 1).param("firstName", "George")
+				.param("lastName", "Franklin")
+				.param("address", "110 W. Liberty St.")
+				.param("city", "Monona")
+				.param("telephone", "6085551023"))
+			.andExpect(status().is3xxRedirection());
+		this.trail.flush();
+
+		this.mockMvc.perform(get("/owners/{ownerId}/audit", 1))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(1))
+			.andExpect(jsonPath("$[0].entityType").value("Owner"))
+			.andExpect(jsonPath("$[0].entityId").value(1))
+			.andExpect(jsonPath("$[0].action").value("UPDATE"))
+			.andExpect(jsonPath("$[0].changes.city.old").value("Madison"))
+			.andExpect(jsonPath("$[0].changes.city.new").value("Monona"))
+			.andExpect(jsonPath("$[0].changes.address").doesNotExist())
+			.andExpect(jsonPath("$[0].actor").value("127.0.0.1"));
+	}
+
+	@Test
+	void shouldAuditPetsAndVisitsUnderTheirOwner() throws Exception {
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/new", 3).param("name", "Tiger")
+				.param("type", "cat")
+				.param("birthDate", "2021-04-03"))
+			.andExpect(status().is3xxRedirection());
+		this.mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 3, 4).param("date", "2024-05-06")
+				.param("description", "vaccination"))
+			.andExpect(status().is3xxRedirection());
+		this.trail.flush();
+
+		List<AuditEntry> entries = this.trail.findByOwner(3, 10);
+		// the owner's visit count and last visit date are not audited
+		assertThat(entries).extracting(AuditEntry::entityType, AuditEntry::action)
+			.containsExactlyInAnyOrder(tuple("Pet", "INSERT"), tuple("Visit", "INSERT"));
+		AuditEntry visit = entries.stream().filter((entry) -> entry.entityType().equals("Visit")).findFirst().get();
+		assertThat(this.objectMapper.readTree(visit.changes()).get("pet").get("new").asText()).isEqualTo("4");
+		AuditEntry pet = entries.stream().filter((entry) -> entry.entityType().equals("Pet")).findFirst().get();
+		assertThat(this.objectMapper.readTree(pet.changes()).get("type").get("new").asText()).isEqualTo("cat");
+	}
+
+	@Test
+	void shouldRecordChangesOutsideRequestsAsSystem() {
+		// the test thread is bound to a mock request, so change the owner like a
+		// background job
+		CompletableFuture
+			.runAsync(() -> new TransactionTemplate(this.transactionManager)
+				.executeWithoutResult((status) -> this.owners.findById(2).orElseThrow().setTelephone("6085551750")))
+			.join();
+		this.trail.flush();
+
+		assertThat(this.trail.findByOwner(2, 10)).singleElement().satisfies((entry) -> {
+			assertThat(entry.actor()).isEqualTo("system");
+			assertThat(entry.changes()).isEqualTo("{\"telephone\":{\"old\":\"6085551749\",\"new\":\"6085551750\"}}");
+		});
+	}
+
+	@Test
+	void shouldNotAuditRolledBackChanges() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+		transactionTemplate.executeWithoutResult((status) -> {
+			this.owners.findById(5).orElseThrow().setCity("Nowhere");
+			this.owners.flush();
+			status.setRollbackOnly();
+		});
+		this.trail.flush();
+
+		assertThat(this.trail.findByOwner(5, 10)).isEmpty();
+	}
+
+	@Test
+	void shouldApplyOverflowPolicyWhenQueueIsFull() {
+		List<Runnable> flushes = new ArrayList<>();
+		AuditTrail dropping = new AuditTrail(this.dataSource, this.transactionManager, this.objectMapper, flushes::add,
+				2, 2, AuditTrail.Overflow.DROP);
+		for (int i = 0; i < 3; i++) {
+			dropping.record(change(7));
+		}
+		assertThat(dropping.getDroppedCount()).isEqualTo(1);
+		assertThat(flushes).hasSize(1);
+		flushes.get(0).run();
+		assertThat(this.trail.findByOwner(7, 10)).hasSize(2);
+
+		AuditTrail writingThrough = new AuditTrail(this.dataSource, this.transactionManager, this.objectMapper,
+				flushes::add, 0, 2, AuditTrail.Overflow.WRITE_THROUGH);
+		writingThrough.record(change(7));
+		assertThat(writingThrough.getDroppedCount()).isZero();
+		assertThat(this.trail.findByOwner(7, 10)).hasSize(3);
+	}
+
+	@Test
+	void shouldReturnLatestChangesUpToLimit() {
+		Instant now = Instant.now();
+		for (int i = 0; i < 3; i++) {
+			this.trail.record(change(8, Integer.toString(i), now.plusSeconds(i)));
+		}
+		this.trail.flush();
+
+		assertThat(this.trail.findByOwner(8, 2)).extracting(AuditEntry::changes)
+			.containsExactly("{\"city\":{\"old\":\"Madison\",\"new\":\"2\"}}",
+					"{\"city\":{\"old\":\"Madison\",\"new\":\"1\"}}");
+	}
+
+	private static AuditRecord change(int ownerId) {
+		return change(ownerId, "Monona", Instant.now());
+	}
+
+	private static AuditRecord change(int ownerId, String city, Instant time) {
+		return new AuditRecord("Owner", ownerId, null, "UPDATE",
+				Map.of("city", new AuditRecord.Change("Madison", city)), "system", time);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import jakarta.servlet.AsyncListener;
+
+/**
+ * Test class for {@link EventLogController}
+ */
+@WebMvcTest(EventLogController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class EventLogControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EventLog log;
+
+	@Test
+	void testReadEventsFromOffset() throws Exception {
+		performAsync(get("/events").param("from", "1").param("limit", "2")).andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].offset").value(1))
+			.andExpect(jsonPath("$[0].event.type").value("OwnerUpdated"))
+			.andExpect(jsonPath("$[1].event.data.petId").value(14));
+	}
+
+	@Test
+	void testReturnNothingPastEndAfterWaiting() throws Exception {
+		MvcResult waiting = this.mockMvc.perform(get("/events").param("from", "1000").param("wait", "1"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		// the timeout of the container
+		MockAsyncContext asyncContext = (MockAsyncContext) waiting.getRequest().getAsyncContext();
+		for (AsyncListener listener : asyncContext.getListeners()) {
+			listener.onTimeout(null);
+		}
+
+		this.mockMvc.perform(asyncDispatch(waiting))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void testCompleteWaitingRequestWhenEventsAreSynced() throws Exception {
+		long end = this.log.getEndOffset();
+		MvcResult waiting = this.mockMvc.perform(get("/events").param("from", Long.toString(end)).param("wait", "30"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		this.log.append(event("{\"id\":4,\"type\":\"VisitBooked\",\"data\":{\"visitId\":9}}"));
+		this.log.sync();
+
+		this.mockMvc.perform(asyncDispatch(waiting))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(1))
+			.andExpect(jsonPath("$[0].offset").value(end))
+			.andExpect(jsonPath("$[0].event.data.visitId").value(9));
+	}
+
+	private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult result = this.mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return this.mockMvc.perform(asyncDispatch(result));
+	}
+
+	private static byte[] event(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@TestConfiguration(proxyBeanMethods = false)
+	static class EventLogTestConfiguration {
+
+		@Bean
+		EventLog eventLog() throws IOException {
+			EventLog log = EventLog.openTemporary(64 * 1024);
+			log.append(event("{\"id\":1,\"type\":\"OwnerCreated\",\"data\":{\"ownerId\":11}}"));
+			log.append(event("{\"id\":2,\"type\":\"OwnerUpdated\",\"data\":{\"ownerId\":11}}"));
+			log.append(event("{\"id\":3,\"type\":\"PetAdded\",\"data\":{\"ownerId\":11,\"petId\":14}}"));
+			log.sync();
+			return log;
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link EventLog}
+ */
+class EventLogTests {
+
+	private static final int SEGMENT_SIZE = 64 * 1024;
+
+	@TempDir
+	private Path directory;
+
+	@Test
+	void shouldOnlyReadSyncedRecords() throws IOException {
+		try (EventLog log = EventLog.open(this.directory, SEGMENT_SIZE)) {
+			assertThat(log.append(bytes("first"))).isZero();
+			assertThat(log.append(bytes("second"))).isEqualTo(1);
+			assertThat(log.read(0, 10)).isEmpty();
+
+			log.sync();
+
+			assertThat(log.getEndOffset()).isEqualTo(2);
+			assertThat(log.read(0, 10)).extracting(EventLogTests::text).containsExactly("first", "second");
+			assertThat(log.read(1, 10)).extracting(EventLog.Entry::offset).containsExactly(1L);
+			assertThat(log.read(2, 10)).isEmpty();
+		}
+	}
+
+	@Test
+	void shouldFindRecordsBetweenIndexedPositions() throws IOException {
+		try (EventLog log = EventLog.open(this.directory, SEGMENT_SIZE)) {
+			for (int i = 0; i < 300; i++) {
+				log.append(bytes("event " + "x".repeat(i % 7) + i));
+			}
+			log.sync();
+
+			assertThat(log.read(150, 2)).extracting(EventLogTests::text)
+				.containsExactly("event xxx150", "event xxxx151");
+			assertThat(log.read(299, 10)).extracting(EventLogTests::text).containsExactly("event xxxxx299");
+		}
+	}
+
+	@Test
+	void shouldStartNewSegmentWhenRecordDoesNotFit() throws IOException {
+		try (EventLog log = EventLog.open(this.directory, 64)) {
+			for (int i = 0; i < 5; i++) {
+				log.append(bytes("event number " + i));
+			}
+			log.sync();
+
+			assertThat(log.getSegmentCount()).isEqualTo(3);
+			assertThat(log.read(1, 3)).extracting(EventLogTests::text)
+				.containsExactly("event number 1", "event number 2", "event number 3");
+			assertThatIllegalArgumentException().isThrownBy(() -> log.append(new byte[64]));
+		}
+		try (EventLog log = EventLog.open(this.directory, 64)) {
+			assertThat(log.getEndOffset()).isEqualTo(5);
+			assertThat(log.append(bytes("after restart"))).isEqualTo(5);
+			log.sync();
+			assertThat(log.read(4, 10)).extracting(EventLogTests::text)
+				.containsExactly("event number 4", "after restart");
+		}
+	}
+
+	@Test
+	void shouldTruncateTornRecordWhenReopened() throws IOException {
+		try (EventLog log = EventLog.open(this.directory, SEGMENT_SIZE)) {
+			log.append(bytes("one"));
+			log.append(bytes("two"));
+			log.append(bytes("three"));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(this.directory.resolve("00000000000000000000.log").toFile(),
+				"rw")) {
+			// damage the payload of the last record
+			file.seek(2 * (EventLog.HEADER_SIZE + 3) + EventLog.HEADER_SIZE + 1);
+			file.write('X');
+		}
+		try (EventLog log = EventLog.open(this.directory, SEGMENT_SIZE)) {
+			assertThat(log.getEndOffset()).isEqualTo(2);
+			assertThat(log.append(bytes("four"))).isEqualTo(2);
+			log.sync();
+			assertThat(log.read(0, 10)).extracting(EventLogTests::text).containsExactly("one", "two", "four");
+		}
+	}
+
+	@Test
+	void shouldWaitForRecordsWhenTailing() throws Exception {
+		try (EventLog log = EventLog.open(this.directory, SEGMENT_SIZE)) {
+			log.append(bytes("old"));
+			log.sync();
+			EventLog.Tail tail = log.tail(1);
+			assertThat(tail.poll(10, Duration.ofMillis(10))).isEmpty();
+
+			CompletableFuture<List<EventLog.Entry>> polled = CompletableFuture.supplyAsync(() -> {
+				try {
+					return tail.poll(10, Duration.ofSeconds(10));
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+			});
+			log.append(bytes("new"));
+			log.sync();
+
+			assertThat(polled.get(10, TimeUnit.SECONDS)).extracting(EventLogTests::text).containsExactly("new");
+			assertThat(tail.getPosition()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void shouldKeepOffsetsDenseWithConcurrentAppenders() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (EventLog log = EventLog.open(this.directory, 4096)) {
+			List<CompletableFuture<Void>> appenders = new ArrayList<>();
+			for (int thread = 0; thread < 4; thread++) {
+				int id = thread;
+				appenders.add(CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 500; i++) {
+						try {
+							log.append(bytes(id + ":" + i));
+						}
+						catch (IOException ex) {
+							throw new IllegalStateException(ex);
+						}
+						if (i % 50 == 49) {
+							log.sync();
+						}
+					}
+				}, executor));
+			}
+			CompletableFuture.allOf(appenders.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+			List<EventLog.Entry> entries = log.read(0, 3000);
+			assertThat(entries).hasSize(2000);
+			for (int i = 0; i < entries.size(); i++) {
+				assertThat(entries.get(i).offset()).isEqualTo(i);
+			}
+			assertThat(entries).filteredOn((entry) -> text(entry).startsWith("2:"))
+				.extracting(EventLogTests::text)
+				.startsWith("2:0", "2:1", "2:2")
+				.endsWith("2:499");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void shouldDeleteTemporaryLogWhenClosed() throws IOException {
+		EventLog log = EventLog.openTemporary(SEGMENT_SIZE);
+		log.append(bytes("gone"));
+		Path directory = log.getDirectory();
+		assertThat(directory).isDirectoryContaining("glob:**.log");
+		log.close();
+		assertThat(directory).doesNotExist();
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(EventLog.Entry entry) {
+		return new String(entry.payload(), StandardCharsets.UTF_8);
+	}
+
+}
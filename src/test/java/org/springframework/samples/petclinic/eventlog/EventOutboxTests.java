@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.eventlog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.EntityChangeListener;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.transaction.TestTransaction;
+
+/**
+ * Test class for {@link EventOutbox} and {@link OutboxRelay}. The relay is run by the
+ * tests rather than on its schedule.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ EventLogConfiguration.class, EventOutbox.class, OutboxRelay.class, EntityChangeListener.class })
+@TestPropertySource(properties = "petclinic.events.relay-interval=1h")
+class EventOutboxTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private OutboxRelay relay;
+
+	@Autowired
+	private EventLog log;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void shouldRecordChangesInOutbox() {
+		Owner owner = newOwner();
+		this.owners.saveOwner(owner);
+		owner.setCity("Middleton");
+		this.owners.saveOwner(owner);
+		this.owners.flush();
+
+		assertThat(this.jdbcTemplate.queryForList("SELECT event_type FROM event_outbox ORDER BY id", String.class))
+			.containsExactly("OwnerCreated", "OwnerUpdated");
+	}
+
+	@Test
+	void shouldRelayOutboxToEventLogInOrder() throws IOException {
+		long start = this.log.getEndOffset();
+		Owner owner = newOwner();
+		this.owners.saveOwner(owner);
+		Owner coleman = this.owners.findById(6).orElseThrow();
+		Pet pet = new Pet();
+		pet.setName("Rex");
+		pet.setBirthDate(LocalDate.of(2020, 5, 1));
+		pet.setType(this.owners.findPetTypes().get(2));
+		this.owners.savePet(coleman, pet);
+		Visit visit = new Visit();
+		visit.setDate(LocalDate.of(2024, 3, 1));
+		visit.setDescription("check-up");
+		this.visits.bookVisit(coleman, 8, visit);
+
+		assertThat(this.relay.relay()).isEqualTo(3);
+
+		List<EventLog.Entry> entries = this.log.read(start, 10);
+		assertThat(entries).extracting(EventLog.Entry::offset).containsExactly(start, start + 1, start + 2);
+		List<JsonNode> events = entries.stream().map(this::json).toList();
+		assertThat(events).extracting((event) -> event.get("type").asText())
+			.containsExactly("OwnerCreated", "PetAdded", "VisitBooked");
+		assertThat(events.get(0).get("data").get("ownerId").asInt()).isEqualTo(owner.getId());
+		assertThat(events.get(0).get("data").get("lastName").asText()).isEqualTo("Schultz");
+		JsonNode added = events.get(1).get("data");
+		assertThat(added.get("ownerId").asInt()).isEqualTo(6);
+		assertThat(added.get("petId").asInt()).isEqualTo(coleman.getPet("Rex").getId());
+		assertThat(added.get("birthDate").asText()).isEqualTo("2020-05-01");
+		assertThat(added.get("type").asText()).isEqualTo("dog");
+		assertThat(events.get(2).get("data").get("description").asText()).isEqualTo("check-up");
+		assertThat(events.get(0).get("id").asLong()).isLessThan(events.get(2).get("id").asLong());
+
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM event_outbox", Integer.class)).isZero();
+		assertThat(this.relay.relay()).isZero();
+	}
+
+	@Test
+	void shouldNotRecordRolledBackChanges() {
+		this.owners.saveOwner(newOwner());
+		TestTransaction.flagForRollback();
+		TestTransaction.end();
+
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM event_outbox", Integer.class)).isZero();
+	}
+
+	private JsonNode json(EventLog.Entry entry) {
+		try {
+			return this.objectMapper.readTree(entry.payload());
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Owner newOwner() {
+		Owner owner = new Owner();
+		owner.setFirstName("Sam");
+		owner.setLastName("Schultz");
+		owner.setAddress("4, Evans Street");
+		owner.setCity("Wollongong");
+		owner.setTelephone("4444444444");
+		return owner;
+	}
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a scenario against a running application with an open-loop arrival rate: new
+ * scenario runs are started on a fixed schedule whether or not earlier ones have
+ * finished, and run on at most {@link LoadTestSettings#concurrency()} threads.
+ * <p>
+ * The latency of the first step of a run is measured from the time the run was scheduled
+ * to start, and the latency of every following step from the completion of the previous
+ * one. Time spent waiting for a free thread while the application falls behind is
+ * therefore part of the recorded latency instead of silently lowering the request rate
+ * (the "coordinated omission" problem of closed-loop load generators).
+ */
+class LoadGenerator {
+
+	/**
+	 * Request header carrying the name of the step a request belongs to.
+	 */
+	static final String STEP_HEADER = "X-Load-Step";
+
+	private final URI baseUri;
+
+	private final List<LoadStep> steps;
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+
+	LoadGenerator(URI baseUri, List<LoadStep> steps) {
+		this.baseUri = baseUri;
+		this.steps = steps;
+	}
+
+	LoadReport run(LoadTestSettings settings) throws InterruptedException {
+		LoadReport report = new LoadReport(settings, this.steps);
+		ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+		long interval = (long) (TimeUnit.SECONDS.toNanos(1) / settings.arrivalRate());
+		long start = System.nanoTime();
+		long measureFrom = start + settings.warmup().toNanos();
+		long measureUntil = measureFrom + settings.duration().toNanos();
+		try {
+			for (long iteration = 0;; iteration++) {
+				long intendedStart = start + iteration * interval;
+				if (intendedStart >= measureUntil) {
+					break;
+				}
+				waitUntil(intendedStart);
+				LoadReport target = (intendedStart >= measureFrom) ? report : null;
+				LoadSession session = PetClinicScenario.newSession(this.baseUri, iteration);
+				workers.execute(() -> runScenario(session, intendedStart, target));
+			}
+		}
+		finally {
+			workers.shutdown();
+		}
+		if (!workers.awaitTermination(Math.max(settings.duration().toSeconds(), 60), TimeUnit.SECONDS)) {
+			workers.shutdownNow();
+		}
+		report.finish(System.nanoTime() - measureFrom);
+		return report;
+	}
+
+	private void runScenario(LoadSession session, long intendedStart, LoadReport report) {
+		long stepStart = intendedStart;
+		for (LoadStep step : this.steps) {
+			boolean success;
+			try {
+				HttpRequest request = HttpRequest.newBuilder(step.request().apply(session), (name, value) -> true)
+					.header(STEP_HEADER, step.name())
+					.build();
+				HttpResponse<Void> response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+				success = response.statusCode() < 400;
+			}
+			catch (IOException ex) {
+				success = false;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			long now = System.nanoTime();
+			if (report != null) {
+				report.record(step.name(), now - stepStart, success);
+			}
+			stepStart = now;
+		}
+	}
+
+	private static void waitUntil(long nanoTime) throws InterruptedException {
+		for (long delay = nanoTime - System.nanoTime(); delay > 0; delay = nanoTime - System.nanoTime()) {
+			LockSupport.parkNanos(delay);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+}
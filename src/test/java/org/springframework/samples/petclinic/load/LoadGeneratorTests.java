@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Runs a short load test to check that every step of the {@link PetClinicScenario} is
+ * still served successfully.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class LoadGeneratorTests {
+
+	@LocalServerPort
+	int port;
+
+	@Test
+	void shouldServeEveryStepOfTheScenario(@TempDir Path reports) throws Exception {
+		Path file = reports.resolve("report.txt");
+		LoadTestSettings settings = new LoadTestSettings(4, 5, Duration.ZERO, Duration.ofSeconds(1), file, null);
+
+		LoadReport report = new LoadGenerator(URI.create("http://localhost:" + port), PetClinicScenario.steps())
+			.run(settings);
+		report.write(settings.report());
+
+		assertThat(report.getSteps()).hasSize(11).allSatisfy((step) -> {
+			assertThat(step.getCount()).as(step.getName()).isPositive();
+			assertThat(step.getErrorCount()).as(step.getName()).isZero();
+		});
+		assertThat(report.getTotal().getCount()).isEqualTo(11 * report.getStep("home").getCount());
+		assertThat(Files.readString(file)).contains("new visit", "p99.9", LoadReport.TOTAL);
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles, error counts and throughput per step of a {@link LoadGenerator}
+ * run.
+ */
+class LoadReport {
+
+	static final String TOTAL = "total";
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+	private final LoadTestSettings settings;
+
+	private final Map<String, StepStatistics> steps = new LinkedHashMap<>();
+
+	private final Instant started = Instant.now();
+
+	private long elapsedNanos;
+
+	LoadReport(LoadTestSettings settings, List<LoadStep> steps) {
+		this.settings = settings;
+		for (LoadStep step : steps) {
+			this.steps.put(step.name(), new StepStatistics(step.name()));
+		}
+	}
+
+	void record(String step, long latencyNanos, boolean success) {
+		this.steps.get(step).record(latencyNanos, success);
+	}
+
+	void finish(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	Collection<StepStatistics> getSteps() {
+		return Collections.unmodifiableCollection(this.steps.values());
+	}
+
+	StepStatistics getStep(String name) {
+		return this.steps.get(name);
+	}
+
+	/**
+	 * Return the statistics of all steps combined.
+	 */
+	StepStatistics getTotal() {
+		StepStatistics total = new StepStatistics(TOTAL);
+		for (StepStatistics step : this.steps.values()) {
+			total.histogram.add(step.histogram);
+			total.errors.add(step.getErrorCount());
+		}
+		return total;
+	}
+
+	void write(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		Files.writeString(file, toString());
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("PetClinic load test started %s%n", this.started));
+		report.append(String.format("%s, measured for %.1fs%n", this.settings, this.elapsedNanos / 1e9));
+		report.append(String.format("Latencies in milliseconds, measured from the intended start of each request%n%n"));
+		report.append(String.format("%-16s %8s %7s %8s %8s %8s %8s %8s %8s %8s%n", "step", "count", "errors", "req/s",
+				"mean", "p50", "p90", "p99", "p99.9", "max"));
+		List<StepStatistics> rows = new ArrayList<>(this.steps.values());
+		rows.add(getTotal());
+		for (StepStatistics step : rows) {
+			report.append(String.format("%-16s %8d %7d %8.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n", step.getName(),
+					step.getCount(), step.getErrorCount(), step.getThroughput(), millis(step.histogram.getMean()),
+					step.getPercentile(50), step.getPercentile(90), step.getPercentile(99), step.getPercentile(99.9),
+					millis(step.histogram.getMaxValue())));
+		}
+		return report.toString();
+	}
+
+	private static double millis(double micros) {
+		return micros / 1000;
+	}
+
+	/**
+	 * Statistics of a single step.
+	 */
+	final class StepStatistics {
+
+		private final String name;
+
+		private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+
+		private final LongAdder errors = new LongAdder();
+
+		private StepStatistics(String name) {
+			this.name = name;
+		}
+
+		private void record(long latencyNanos, boolean success) {
+			this.histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+			if (!success) {
+				this.errors.increment();
+			}
+		}
+
+		String getName() {
+			return this.name;
+		}
+
+		long getCount() {
+			return this.histogram.getTotalCount();
+		}
+
+		long getErrorCount() {
+			return this.errors.sum();
+		}
+
+		/**
+		 * Return the number of completed requests per second.
+		 */
+		double getThroughput() {
+			return (LoadReport.this.elapsedNanos > 0) ? getCount() / (LoadReport.this.elapsedNanos / 1e9) : 0;
+		}
+
+		/**
+		 * Return the given latency percentile in milliseconds.
+		 */
+		double getPercentile(double percentile) {
+			return millis(this.histogram.getValueAtPercentile(percentile));
+		}
+
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * State shared by the steps of one scenario run.
+ *
+ * @param baseUri the root URI of the application under test
+ * @param iteration sequence number of the run, used to create unique names
+ * @param ownerId the owner the run works on
+ * @param petId a pet of that owner
+ */
+record LoadSession(URI baseUri, long iteration, int ownerId, int petId) {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+	HttpRequest get(String path) {
+		return HttpRequest.newBuilder(this.baseUri.resolve(path)).timeout(TIMEOUT).GET().build();
+	}
+
+	HttpRequest post(String path, Map<String, String> form) {
+		String body = form.entrySet()
+			.stream()
+			.map((entry) -> encode(entry.getKey()) + "=" + encode(entry.getValue()))
+			.collect(Collectors.joining("&"));
+		return HttpRequest.newBuilder(this.baseUri.resolve(path))
+			.timeout(TIMEOUT)
+			.header("Content-Type", "application/x-www-form-urlencoded")
+			.POST(HttpRequest.BodyPublishers.ofString(body))
+			.build();
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.http.HttpRequest;
+import java.util.function.Function;
+
+/**
+ * A single request of a load test scenario. Latencies and throughput are reported per
+ * step.
+ *
+ * @param name the name the step is reported under
+ * @param request creates the request for a given scenario run
+ */
+record LoadStep(String name, Function<LoadSession, HttpRequest> request) {
+
+}
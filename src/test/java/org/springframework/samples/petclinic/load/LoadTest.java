@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.URI;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Runs the {@link PetClinicScenario} against the application started on the embedded H2
+ * database, or against the one at {@code load.url}, and writes a {@link LoadReport}.
+ * <p>
+ * Configured with system properties: {@code load.concurrency} (default 50),
+ * {@code load.rate} in scenarios per second (default 20), {@code load.warmup} (default
+ * 10s), {@code load.duration} (default 60s) and {@code load.report} (default
+ * {@code target/load-test/report.txt}).
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+		if (settings.target() != null) {
+			run(settings.target(), settings);
+			return;
+		}
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+			.properties("server.port=0", "spring.docker.compose.enabled=false")
+			.run(args)) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			run(URI.create("http://localhost:" + port), settings);
+		}
+	}
+
+	private static void run(URI baseUri, LoadTestSettings settings) throws Exception {
+		LoadReport report = new LoadGenerator(baseUri, PetClinicScenario.steps()).run(settings);
+		report.write(settings.report());
+		System.out.print(report);
+	}
+
+}
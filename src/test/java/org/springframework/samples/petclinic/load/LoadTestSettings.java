@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Settings for a {@link LoadGenerator} run, read from {@code load.*} system properties.
+ *
+ * @param concurrency maximum number of scenarios in flight at the same time
+ * @param arrivalRate number of scenarios started per second, independently of how fast
+ * the application answers
+ * @param warmup time spent driving load before latencies are recorded
+ * @param duration time during which latencies are recorded
+ * @param report file the report is written to
+ * @param target URL of an already running application, or {@code null} to start one on
+ * the embedded H2 database
+ */
+record LoadTestSettings(int concurrency, double arrivalRate, Duration warmup, Duration duration, Path report,
+		URI target) {
+
+	LoadTestSettings {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency must be positive");
+		}
+		if (arrivalRate <= 0) {
+			throw new IllegalArgumentException("Arrival rate must be positive");
+		}
+	}
+
+	static LoadTestSettings fromSystemProperties() {
+		String target = System.getProperty("load.url");
+		return new LoadTestSettings(Integer.getInteger("load.concurrency", 50),
+				Double.parseDouble(System.getProperty("load.rate", "20")),
+				DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s")),
+				DurationStyle.detectAndParse(System.getProperty("load.duration", "60s")),
+				Path.of(System.getProperty("load.report", "target/load-test/report.txt")),
+				(target != null) ? URI.create(target) : null);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("concurrency %d, arrival rate %.1f scenarios/s, warmup %ss, duration %ss",
+				this.concurrency, this.arrivalRate, this.warmup.toSeconds(), this.duration.toSeconds());
+	}
+
+}
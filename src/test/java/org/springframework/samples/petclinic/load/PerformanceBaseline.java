@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Reference results of the {@link PerformanceRegressionTests}, together with the load
+ * they were measured under and the change tolerated for each {@link Metric}.
+ * <p>
+ * Results are stored as {@code <step>.<metric>} properties. Tolerances are percentages
+ * read from {@code tolerance.<metric>} and can be overridden with
+ * {@code perf.tolerance.<metric>} system properties.
+ */
+class PerformanceBaseline {
+
+	/**
+	 * A measured property of a load test step, higher values being worse. Throughput is
+	 * not one of them: the load is generated at a fixed arrival rate, so it only tells
+	 * whether the rate was kept up with, which the error count and p99 latency already
+	 * do.
+	 */
+	enum Metric {
+
+		P99("p99", "ms"), ALLOCATION("allocation", "KB/req"), QUERIES("queries", "stmt/req");
+
+		private final String key;
+
+		private final String unit;
+
+		Metric(String key, String unit) {
+			this.key = key;
+			this.unit = unit;
+		}
+
+		String key(String step) {
+			return step.replace(' ', '-') + "." + this.key;
+		}
+
+	}
+
+	private final Path file;
+
+	private final Properties properties = new Properties();
+
+	PerformanceBaseline(Path file) throws IOException {
+		this.file = file;
+		try (Reader reader = Files.newBufferedReader(file)) {
+			this.properties.load(reader);
+		}
+	}
+
+	/**
+	 * Return the load the baseline was measured under.
+	 */
+	LoadTestSettings getSettings(Path report) {
+		return new LoadTestSettings(Integer.parseInt(this.properties.getProperty("settings.concurrency")),
+				Double.parseDouble(this.properties.getProperty("settings.rate")),
+				DurationStyle.detectAndParse(this.properties.getProperty("settings.warmup")),
+				DurationStyle.detectAndParse(this.properties.getProperty("settings.duration")), report, null);
+	}
+
+	double getTolerance(Metric metric) {
+		String tolerance = System.getProperty("perf.tolerance." + metric.key,
+				this.properties.getProperty("tolerance." + metric.key, "0"));
+		return Double.parseDouble(tolerance);
+	}
+
+	/**
+	 * Compare the given results, keyed like the baseline, with the baseline.
+	 */
+	List<Comparison> compare(Map<String, Double> results) {
+		List<Comparison> comparisons = new ArrayList<>();
+		for (Map.Entry<String, Double> result : results.entrySet()) {
+			Metric metric = metricOf(result.getKey());
+			String baseline = this.properties.getProperty(result.getKey());
+			comparisons.add(new Comparison(result.getKey(), metric,
+					(baseline != null) ? Double.valueOf(baseline) : null, result.getValue(), getTolerance(metric)));
+		}
+		return comparisons;
+	}
+
+	/**
+	 * Replace the results stored in the baseline file with the given ones, keeping the
+	 * settings and tolerances.
+	 */
+	void update(Map<String, Double> results) throws IOException {
+		StringBuilder content = new StringBuilder();
+		content
+			.append("# Reference results of PerformanceRegressionTests, regenerate with -Dperf.updateBaseline=true\n");
+		content.append("# Tolerances are the change in percent allowed before a metric counts as a regression\n");
+		this.properties.stringPropertyNames()
+			.stream()
+			.filter((name) -> name.startsWith("settings.") || name.startsWith("tolerance."))
+			.sorted()
+			.forEach((name) -> content.append(name).append('=').append(this.properties.getProperty(name)).append('\n'));
+		content.append('\n');
+		results.forEach((key, value) -> content.append(key).append('=').append(format(value)).append('\n'));
+		Files.writeString(this.file, content);
+	}
+
+	/**
+	 * Render the comparisons as a table, marking the regressions.
+	 */
+	static String describe(List<Comparison> comparisons) {
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("%-30s %-9s %10s %10s %9s %9s%n", "metric", "unit", "baseline", "current", "change",
+				"tolerance"));
+		for (Comparison comparison : comparisons) {
+			table.append(String.format("%-30s %-9s %10s %10s %9s %8s%%%s%n", comparison.key(), comparison.metric().unit,
+					(comparison.baseline() != null) ? format(comparison.baseline()) : "-", format(comparison.current()),
+					comparison.describeChange(), format(comparison.tolerance()),
+					comparison.isRegression() ? "  REGRESSION" : ""));
+		}
+		return table.toString();
+	}
+
+	private static Metric metricOf(String key) {
+		String name = key.substring(key.lastIndexOf('.') + 1);
+		for (Metric metric : Metric.values()) {
+			if (metric.key.equals(name)) {
+				return metric;
+			}
+		}
+		throw new IllegalArgumentException("Unknown metric in " + key);
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.2f", value);
+	}
+
+	/**
+	 * A result compared with its baseline value.
+	 *
+	 * @param key the property key of the result
+	 * @param metric the metric that was measured
+	 * @param baseline the baseline value, or {@code null} for a new result
+	 * @param current the measured value
+	 * @param tolerance the increase in percent tolerated
+	 */
+	record Comparison(String key, Metric metric, Double baseline, double current, double tolerance) {
+
+		/**
+		 * Return the change relative to the baseline in percent.
+		 */
+		double getChange() {
+			if (this.baseline == null || this.baseline == this.current) {
+				return 0;
+			}
+			if (this.baseline == 0) {
+				return Math.copySign(Double.POSITIVE_INFINITY, this.current);
+			}
+			return (this.current - this.baseline) / this.baseline * 100;
+		}
+
+		boolean isRegression() {
+			return getChange() > this.tolerance;
+		}
+
+		private String describeChange() {
+			if (this.baseline == null) {
+				return "new";
+			}
+			double change = getChange();
+			return Double.isInfinite(change) ? "from 0" : String.format(Locale.ROOT, "%+.1f%%", change);
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.load.PerformanceBaseline.Comparison;
+
+/**
+ * Test class for {@link PerformanceBaseline}
+ */
+class PerformanceBaselineTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shouldFlagMetricsWorseThanTolerance() throws Exception {
+		PerformanceBaseline baseline = baseline("""
+				tolerance.p99=50
+				tolerance.allocation=10
+				tolerance.queries=0
+				owner.p99=10.00
+				owner.allocation=500.00
+				owner.queries=2.00
+				""");
+
+		List<Comparison> comparisons = baseline
+			.compare(Map.of("owner.p99", 14.0, "owner.allocation", 600.0, "owner.queries", 1.0));
+
+		assertThat(comparisons).filteredOn(Comparison::isRegression)
+			.extracting(Comparison::key)
+			.containsExactly("owner.allocation");
+		assertThat(PerformanceBaseline.describe(comparisons)).contains("owner.allocation", "+20.0%", "REGRESSION");
+	}
+
+	@Test
+	void shouldFlagStatementsWhereThereWereNone() throws Exception {
+		PerformanceBaseline baseline = baseline("""
+				tolerance.queries=10
+				home.queries=0.00
+				""");
+
+		List<Comparison> comparisons = baseline.compare(Map.of("home.queries", 1.0, "vets.queries", 3.0));
+
+		assertThat(comparisons).filteredOn(Comparison::isRegression)
+			.extracting(Comparison::key)
+			.containsExactly("home.queries");
+		assertThat(PerformanceBaseline.describe(comparisons)).contains("from 0", "new");
+	}
+
+	@Test
+	void shouldKeepSettingsWhenUpdated() throws Exception {
+		PerformanceBaseline baseline = baseline("""
+				settings.concurrency=4
+				settings.rate=2
+				settings.warmup=1s
+				settings.duration=2s
+				tolerance.p99=50
+				owner.p99=10.00
+				""");
+		Map<String, Double> results = new LinkedHashMap<>();
+		results.put("owner.p99", 12.5);
+
+		baseline.update(results);
+
+		PerformanceBaseline updated = new PerformanceBaseline(this.directory.resolve("baseline.properties"));
+		assertThat(updated.getSettings(this.directory.resolve("report.txt")).concurrency()).isEqualTo(4);
+		assertThat(updated.compare(results)).singleElement().satisfies((comparison) -> {
+			assertThat(comparison.baseline()).isEqualTo(12.5);
+			assertThat(comparison.tolerance()).isEqualTo(50);
+		});
+	}
+
+	private PerformanceBaseline baseline(String content) throws Exception {
+		Path file = this.directory.resolve("baseline.properties");
+		Files.writeString(file, content);
+		return new PerformanceBaseline(file);
+	}
+
+}
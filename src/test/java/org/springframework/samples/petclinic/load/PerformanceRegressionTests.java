@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.samples.petclinic.load.LoadReport.StepStatistics;
+import org.springframework.samples.petclinic.load.PerformanceBaseline.Comparison;
+import org.springframework.samples.petclinic.load.PerformanceBaseline.Metric;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Performance regression gate: runs the {@link PetClinicScenario} under the load recorded
+ * in the {@link PerformanceBaseline} and fails when the p99 latency, allocation or number
+ * of statements per request of a step is worse than the baseline by more than the
+ * tolerance.
+ * <p>
+ * Excluded from the regular build, run with {@code ./mvnw -Pperf test} or
+ * {@code ./gradlew perfTest}. Pass {@code -Dperf.updateBaseline=true} to record a new
+ * baseline instead.
+ */
+@Tag("perf")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+class PerformanceRegressionTests {
+
+	private static final Path BASELINE = Path
+		.of(System.getProperty("perf.baseline", "src/test/resources/perf/baseline.properties"));
+
+	private static final Path REPORT = Path.of(System.getProperty("perf.report", "target/perf-test/report.txt"));
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	private RequestCostFilter costs;
+
+	@Test
+	void shouldNotRegressAgainstBaseline() throws Exception {
+		PerformanceBaseline baseline = new PerformanceBaseline(BASELINE);
+		LoadTestSettings settings = baseline.getSettings(REPORT);
+		LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), PetClinicScenario.steps());
+
+		generator.run(new LoadTestSettings(settings.concurrency(), settings.arrivalRate(), settings.warmup(),
+				Duration.ZERO, REPORT, null));
+		this.costs.reset();
+		LoadReport report = generator.run(new LoadTestSettings(settings.concurrency(), settings.arrivalRate(),
+				Duration.ZERO, settings.duration(), REPORT, null));
+		report.write(REPORT);
+
+		assertThat(report.getTotal().getErrorCount()).as("failed requests").isZero();
+		Map<String, Double> results = measure(report);
+		if (Boolean.getBoolean("perf.updateBaseline")) {
+			baseline.update(results);
+			return;
+		}
+		List<Comparison> comparisons = baseline.compare(results);
+		assertThat(comparisons)
+			.withFailMessage(() -> "Performance regressed against %s:%n%n%s".formatted(BASELINE,
+					PerformanceBaseline.describe(comparisons)))
+			.noneMatch(Comparison::isRegression);
+	}
+
+	private Map<String, Double> measure(LoadReport report) {
+		Map<String, Double> results = new LinkedHashMap<>();
+		for (StepStatistics step : report.getSteps()) {
+			results.put(Metric.P99.key(step.getName()), step.getPercentile(99));
+			results.put(Metric.ALLOCATION.key(step.getName()),
+					this.costs.getAllocatedBytesPerRequest(step.getName()) / 1024);
+			results.put(Metric.QUERIES.key(step.getName()), this.costs.getStatementsPerRequest(step.getName()));
+		}
+		return results;
+	}
+
+	@TestConfiguration
+	static class RequestCostConfiguration {
+
+		@Bean
+		RequestCostFilter requestCostFilter() {
+			return new RequestCostFilter();
+		}
+
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The scenario of the former JMeter test plan: a visitor browses the home and vets pages,
+ * looks up an owner, edits it, registers a new pet and books a visit.
+ */
+final class PetClinicScenario {
+
+	/**
+	 * The first pet of each owner of the sample data.
+	 */
+	private static final int[] PETS = { 1, 2, 3, 5, 6, 7, 9, 10, 11, 12 };
+
+	private PetClinicScenario() {
+	}
+
+	/**
+	 * Create the session of a scenario run. Runs go round-robin through the owners so
+	 * that repeated load tests put the same data on each of them.
+	 */
+	static LoadSession newSession(URI baseUri, long iteration) {
+		int owner = (int) (iteration % PETS.length);
+		return new LoadSession(baseUri, iteration, owner + 1, PETS[owner]);
+	}
+
+	static List<LoadStep> steps() {
+		return List.of(new LoadStep("home", (session) -> session.get("/")),
+				new LoadStep("vets", (session) -> session.get("/vets.html")),
+				new LoadStep("find owner form", (session) -> session.get("/owners/find")),
+				new LoadStep("find owners", (session) -> session.get("/owners?lastName=")),
+				new LoadStep("owner", (session) -> session.get("/owners/" + session.ownerId())),
+				new LoadStep("edit owner form", (session) -> session.get("/owners/" + session.ownerId() + "/edit")),
+				new LoadStep("edit owner",
+						(session) -> session.post("/owners/" + session.ownerId() + "/edit", ownerForm(session))),
+				new LoadStep("new pet form", (session) -> session.get("/owners/" + session.ownerId() + "/pets/new")),
+				new LoadStep("new pet",
+						(session) -> session.post("/owners/" + session.ownerId() + "/pets/new", petForm(session))),
+				new LoadStep("new visit form",
+						(session) -> session
+							.get("/owners/" + session.ownerId() + "/pets/" + session.petId() + "/visits/new")),
+				new LoadStep("new visit", (session) -> session
+					.post("/owners/" + session.ownerId() + "/pets/" + session.petId() + "/visits/new", visitForm())));
+	}
+
+	private static Map<String, String> ownerForm(LoadSession session) {
+		Map<String, String> form = new LinkedHashMap<>();
+		form.put("firstName", "Test");
+		form.put("lastName", "Owner" + session.ownerId());
+		form.put("address", "1234 Test St.");
+		form.put("city", "TestCity");
+		form.put("telephone", "6085551234");
+		return form;
+	}
+
+	private static Map<String, String> petForm(LoadSession session) {
+		Map<String, String> form = new LinkedHashMap<>();
+		form.put("name", "Test Fluffy " + session.iteration());
+		form.put("birthDate", "2020-12-20");
+		form.put("type", "cat");
+		return form;
+	}
+
+	private static Map<String, String> visitForm() {
+		Map<String, String> form = new LinkedHashMap<>();
+		form.put("date", "2013-02-22");
+		form.put("description", "visit");
+		return form;
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.samples.petclinic.system.QueryCounter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.sun.management.ThreadMXBean;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Measures the heap allocated and the JDBC statements executed on the request thread for
+ * every request sent by the {@link LoadGenerator}, grouped by load test step.
+ */
+class RequestCostFilter extends OncePerRequestFilter {
+
+	private static final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private final Map<String, Cost> costs = new ConcurrentHashMap<>();
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String step = request.getHeader(LoadGenerator.STEP_HEADER);
+		if (step == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			filterChain.doFilter(request, response);
+			Cost cost = this.costs.computeIfAbsent(step, (name) -> new Cost());
+			cost.requests.increment();
+			cost.allocatedBytes.add(threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+			cost.statements.add(queries.getTotalCount());
+		}
+	}
+
+	void reset() {
+		this.costs.clear();
+	}
+
+	/**
+	 * Return the average number of bytes allocated per request of the given step.
+	 */
+	double getAllocatedBytesPerRequest(String step) {
+		Cost cost = this.costs.get(step);
+		return (cost != null) ? (double) cost.allocatedBytes.sum() / cost.requests.sum() : 0;
+	}
+
+	/**
+	 * Return the average number of JDBC statements per request of the given step.
+	 */
+	double getStatementsPerRequest(String step) {
+		Cost cost = this.costs.get(step);
+		return (cost != null) ? (double) cost.statements.sum() / cost.requests.sum() : 0;
+	}
+
+	private static final class Cost {
+
+		private final LongAdder requests = new LongAdder();
+
+		private final LongAdder allocatedBytes = new LongAdder();
+
+		private final LongAdder statements = new LongAdder();
+
+	}
+
+}
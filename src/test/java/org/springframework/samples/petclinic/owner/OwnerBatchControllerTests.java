@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.samples.petclinic.owner.OwnerDetails.PetDetails;
+import org.springframework.samples.petclinic.owner.OwnerDetails.VisitDetails;
+import org.springframework.samples.petclinic.system.ProtobufJacksonHttpMessageConverter;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+
+/**
+ * Test class for {@link OwnerBatchController}
+ */
+@WebMvcTest(OwnerBatchController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class OwnerBatchControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private OwnerBatchLoader loader;
+
+	@Test
+	void testShowOwners() throws Exception {
+		given(this.loader.load(List.of(6, 1))).willReturn(List.of(new OwnerDetails(6, "Jean", "Coleman",
+				"105 N. Lake St.", "Monona", "6085552654", List.of(new PetDetails(8, "Max", LocalDate.of(2012, 9, 4),
+						"cat", List.of(new VisitDetails(2, LocalDate.of(2013, 1, 2), "rabies shot")))))));
+		mockMvc.perform(get("/owners").param("ids", "6,1").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].lastName").value("Coleman"))
+			.andExpect(jsonPath("$[0].pets[0].type").value("cat"))
+			.andExpect(jsonPath("$[0].pets[0].visits[0].date").value("2013-01-02"));
+	}
+
+	@Test
+	void testShowOwnersAsDelimitedProtobufMessages() throws Exception {
+		given(this.loader.load(List.of(6))).willReturn(
+				List.of(new OwnerDetails(6, "Jean", "Coleman", "105 N. Lake St.", "Monona", "6085552654", List.of())));
+		byte[] body = mockMvc
+			.perform(get("/owners").param("ids", "6").accept(ProtobufJacksonHttpMessageConverter.PROTOBUF))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType("application/x-protobuf;delimited=true"))
+			.andExpect(header().string("X-Protobuf-Message", "OwnerDetails"))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		ProtobufMapper mapper = new ProtobufMapper();
+		Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.configure(mapper);
+		// a single message shorter than 128 bytes, prefixed with its length
+		assertThat(body[0]).isEqualTo((byte) (body.length - 1));
+		JsonNode owner = mapper.readerFor(JsonNode.class)
+			.with(mapper.generateSchemaFor(OwnerDetails.class))
+			.readValue(Arrays.copyOfRange(body, 1, body.length));
+		assertThat(owner.get("lastName").asText()).isEqualTo("Coleman");
+	}
+
+	@Test
+	void testShowOwnersRejectsTooManyIds() throws Exception {
+		String ids = String.join(",", Collections.nCopies(OwnerBatchController.MAX_IDS + 1, "1"));
+		mockMvc.perform(get("/owners").param("ids", ids).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerDetails.PetDetails;
+import org.springframework.samples.petclinic.owner.OwnerDetails.VisitDetails;
+import org.springframework.samples.petclinic.system.QueryCounter;
+import org.springframework.samples.petclinic.system.QueryMetricsConfiguration;
+
+/**
+ * Test class for {@link OwnerBatchLoader}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OwnerBatchLoader.class, QueryMetricsConfiguration.class })
+class OwnerBatchLoaderTests {
+
+	@Autowired
+	private OwnerBatchLoader loader;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldLoadOwnersWithPetsAndVisitsInRequestedOrder() {
+		List<OwnerDetails> owners = this.loader.load(List.of(6, 1, 404, 6));
+
+		assertThat(owners).extracting(OwnerDetails::lastName).containsExactly("Coleman", "Franklin");
+		OwnerDetails coleman = owners.get(0);
+		assertThat(coleman.pets()).extracting(PetDetails::name).containsExactly("Max", "Samantha");
+		assertThat(coleman.pets().get(0).type()).isEqualTo("cat");
+		assertThat(coleman.pets().get(0).visits()).extracting(VisitDetails::date)
+			.containsExactly(LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 3));
+		assertThat(owners.get(1).pets()).extracting(PetDetails::name).containsExactly("Leo");
+		assertThat(owners.get(1).pets().get(0).visits()).isEmpty();
+	}
+
+	@Test
+	void shouldLoadArchivedVisitsWithCurrentOnes() {
+		this.jdbcTemplate.update("INSERT INTO visits_archive (id, pet_id, visit_date, description) "
+				+ "VALUES (1000, 8, '2010-06-01', 'rabies shot')");
+
+		List<OwnerDetails> owners = this.loader.load(List.of(6));
+
+		assertThat(owners.get(0).pets().get(0).visits()).extracting(VisitDetails::id, VisitDetails::date)
+			.containsExactly(tuple(1000, LocalDate.of(2010, 6, 1)), tuple(2, LocalDate.of(2013, 1, 2)),
+					tuple(3, LocalDate.of(2013, 1, 3)));
+	}
+
+	@Test
+	void shouldLoadManyOwnersWithBoundedNumberOfStatements() {
+		for (int i = 0; i < 150; i++) {
+			this.jdbcTemplate.update("INSERT INTO owners (first_name, last_name, address, city, telephone) "
+					+ "VALUES ('Test', ?, 'Main St.', 'Madison', '6085550000')", "Owner" + i);
+			this.jdbcTemplate
+				.update("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES ('Pet', '2020-01-01', 1, "
+						+ "(SELECT MAX(id) FROM owners))");
+		}
+		List<Integer> ids = IntStream.rangeClosed(1, 160).boxed().toList();
+
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			assertThat(this.loader.load(ids)).hasSize(160);
+			// owners, pets and visits each in two chunks of at most 100 ids
+			assertThat(queries.getSelectCount()).isEqualTo(6);
+		}
+	}
+
+}
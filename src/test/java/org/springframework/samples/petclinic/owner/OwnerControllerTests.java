@@ -22,7 +22,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.aot.DisabledInAotMode;
@@ -31,11 +30,17 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -44,6 +49,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -68,6 +75,15 @@ class OwnerControllerTests {
 	@MockitoBean
 	private OwnerRepository owners;
 
+	@MockitoBean
+	private VisitRepository visits;
+
+	@MockitoBean
+	private OwnerTelephoneIndex telephones;
+
+	@MockitoBean
+	private OwnerFacets facets;
+
 	private Owner george() {
 		Owner george = new Owner();
 		george.setId(TEST_OWNER_ID);
@@ -87,12 +103,24 @@ class OwnerControllerTests {
 		return george;
 	}
 
+	private OwnerSummary georgeSummary() {
+		return new OwnerSummary(TEST_OWNER_ID, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551023",
+				"Max", 1, LocalDate.of(2024, 5, 1));
+	}
+
+	private static OwnerFacets.Match match(int... ownerIds) {
+		BitSet owners = new BitSet();
+		IntStream.of(ownerIds).forEach(owners::set);
+		return new OwnerFacets.Match(owners, List.of(new OwnerFacets.Facet("Madison", ownerIds.length)),
+				List.of(new OwnerFacets.Facet("dog", ownerIds.length)));
+	}
+
 	@BeforeEach
 	void setup() {
 
 		Owner george = george();
-		given(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class)))
-			.willReturn(new PageImpl<>(Lists.newArrayList(george)));
+		given(this.facets.search("Franklin", null, null)).willReturn(match(TEST_OWNER_ID));
+		given(this.owners.findSummariesByIds(List.of(TEST_OWNER_ID))).willReturn(List.of(georgeSummary()));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<>(Lists.newArrayList(george)));
 
@@ -100,6 +128,8 @@ class OwnerControllerTests {
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
 		george.getPet("Max").getVisits().add(visit);
+		given(this.visits.findRecentVisits(List.of(1), VisitController.RECENT_VISITS))
+			.willReturn(Map.of(1, new VisitRepository.RecentVisits(List.of(visit), false)));
 
 	}
 
@@ -143,15 +173,84 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList(george(), new Owner()));
-		when(this.owners.findByLastNameStartingWith(anyString(), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
+		given(this.facets.search("", null, null)).willReturn(match(TEST_OWNER_ID, 2));
+		given(this.owners.findSummariesByIds(List.of(TEST_OWNER_ID, 2)))
+			.willReturn(List.of(georgeSummary(), new OwnerSummary(2, "Betty", "Davis", "638 Cardinal Ave.",
+					"Sun Prairie", "6085551749", null, 0, null)));
+		mockMvc.perform(get("/owners?page=1"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList"))
+			.andExpect(content().string(containsString("George Franklin")))
+			.andExpect(content().string(containsString("<span>Max</span>")))
+			.andExpect(content().string(containsString("2024-05-01")));
+	}
+
+	@Test
+	void testProcessFindFormShowsFacets() throws Exception {
+		given(this.facets.search("", null, null)).willReturn(match(TEST_OWNER_ID, 2, 3, 4, 5, 6));
+		given(this.owners.findSummariesByIds(List.of(TEST_OWNER_ID, 2, 3, 4, 5))).willReturn(List.of(georgeSummary()));
+		mockMvc.perform(get("/owners"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("totalItems", 6L))
+			.andExpect(content().string(containsString("Madison (6)")))
+			.andExpect(content().string(containsString("/owners?lastName=&amp;city=Madison")));
+	}
+
+	@Test
+	void testProcessFindFormNarrowedByFacets() throws Exception {
+		given(this.facets.search("Da", "Madison", "dog")).willReturn(match(TEST_OWNER_ID, 2));
+		given(this.owners.findSummariesByIds(List.of(TEST_OWNER_ID, 2))).willReturn(List.of(georgeSummary(),
+				new OwnerSummary(2, "Betty", "Davis", "638 Cardinal Ave.", "Madison", "6085551749", null, 0, null)));
+		mockMvc.perform(get("/owners").param("lastName", "Da").param("city", "Madison").param("petType", "dog"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList"))
+			.andExpect(content().string(containsString("Betty Davis")))
+			.andExpect(content().string(containsString("Clear filters")));
+	}
+
+	@Test
+	void testProcessFindFormByTelephone() throws Exception {
+		given(this.telephones.findOwnerIds("6085551023")).willReturn(List.of(TEST_OWNER_ID));
+		mockMvc.perform(get("/owners").param("lastName", "(608) 555-1023"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
+	}
+
+	@Test
+	void testProcessFindFormBySharedTelephone() throws Exception {
+		given(this.telephones.findOwnerIds("6085551023")).willReturn(List.of(TEST_OWNER_ID, 2));
+		given(this.owners.findSummariesByTelephone(eq("6085551023"), any(Pageable.class)))
+			.willReturn(new PageImpl<>(Lists.newArrayList(georgeSummary(), new OwnerSummary(2, "Betty", "Franklin",
+					"110 W. Liberty St.", "Madison", "6085551023", null, 0, null))));
+		mockMvc.perform(get("/owners").param("lastName", "608-555-1023"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("owners/ownersList"))
+			.andExpect(content().string(containsString("Betty Franklin")));
+	}
+
+	@Test
+	void testProcessFindFormUnknownTelephone() throws Exception {
+		mockMvc.perform(get("/owners").param("lastName", "6085550000"))
+			.andExpect(status().isOk())
+			.andExpect(model().attributeHasFieldErrorCode("owner", "lastName", "notFound"))
+			.andExpect(view().name("owners/findOwners"));
+		verify(this.owners, never()).findSummariesByTelephone(anyString(), any(Pageable.class));
+	}
+
+	@Test
+	void testShowRecentlySeenOwners() throws Exception {
+		given(this.owners.findRecentlySeen(any(Pageable.class))).willReturn(List
+			.of(new OwnerActivity(TEST_OWNER_ID, "George", "Franklin", "Madison", 1, 3, LocalDate.of(2024, 5, 1))));
+		mockMvc.perform(get("/owners/recent"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("recentOwners", hasSize(1)))
+			.andExpect(content().string(containsString("George Franklin")))
+			.andExpect(content().string(containsString("2024-05-01")))
+			.andExpect(view().name("owners/recentOwners"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList(george()));
-		when(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -159,8 +258,7 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(Lists.newArrayList());
-		when(this.owners.findByLastNameStartingWith(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		given(this.facets.search("Unknown Surname", null, null)).willReturn(match());
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -227,6 +325,8 @@ class OwnerControllerTests {
 			.andExpect(model().attribute("owner", hasProperty("pets", not(empty()))))
 			.andExpect(model().attribute("owner",
 					hasProperty("pets", hasItem(hasProperty("visits", hasSize(greaterThan(0)))))))
+			.andExpect(model().attribute("recentVisits", hasKey(1)))
+			.andExpect(content().string(not(containsString("All visits"))))
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerFacets.Facet;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+/**
+ * Test class for {@link OwnerFacets}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OwnerFacets.class, EntityChangeListener.class })
+@RecordApplicationEvents
+class OwnerFacetsTests {
+
+	@Autowired
+	private OwnerFacets facets;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@BeforeEach
+	void setup() {
+		this.facets.reload();
+	}
+
+	@Test
+	void shouldMatchLastNamePrefixIgnoringCase() {
+		OwnerFacets.Match match = this.facets.search("da", null, null);
+
+		assertThat(match.ids(0, 10)).containsExactly(2, 4);
+		assertThat(match.cities()).containsExactly(new Facet("Sun Prairie", 1), new Facet("Windsor", 1));
+		assertThat(match.petTypes()).containsExactly(new Facet("hamster", 1), new Facet("lizard", 1));
+		assertThat(this.facets.search("", null, null).count()).isEqualTo(10);
+	}
+
+	@Test
+	void shouldNarrowDownByCityAndPetType() {
+		assertThat(this.facets.search("", "Madison", null).ids(0, 10)).containsExactly(1, 5, 8, 9);
+		OwnerFacets.Match match = this.facets.search("", "Madison", "bird");
+		assertThat(match.ids(0, 10)).containsExactly(9);
+		assertThat(match.cities()).containsExactly(new Facet("Madison", 1));
+		assertThat(match.petTypes()).containsExactly(new Facet("bird", 1));
+		assertThat(this.facets.search("", "Atlantis", null).count()).isZero();
+	}
+
+	@Test
+	void shouldPageThroughMatchesInIdOrder() {
+		OwnerFacets.Match match = this.facets.search("", null, null);
+
+		assertThat(match.ids(5, 3)).containsExactly(6, 7, 8);
+		assertThat(match.ids(9, 5)).containsExactly(10);
+		assertThat(match.ids(10, 5)).isEmpty();
+	}
+
+	@Test
+	void shouldFollowChangedOwnersAndPets() {
+		this.facets.search("", null, null);
+
+		this.facets.ownerChanged(
+				new OwnerChangedEvent(1, false, "George", "Davis", "110 W. Liberty St.", "Windsor", "6085551023"));
+		this.jdbcTemplate.update("UPDATE pets SET type_id = 3 WHERE id = 1");
+		this.facets.petChanged(new PetChangedEvent(1, false, 1, "Leo", LocalDate.of(2010, 9, 7), "lizard"));
+
+		assertThat(this.facets.search("Franklin", null, null).count()).isZero();
+		assertThat(this.facets.search("Davis", "Windsor", "lizard").ids(0, 10)).containsExactly(1, 4);
+		assertThat(this.facets.search("", null, "cat").ids(0, 10)).containsExactly(6, 10);
+	}
+
+	@Test
+	void shouldPublishEventWhenPetIsChanged() {
+		Owner owner = this.owners.findById(1).orElseThrow();
+		owner.getPet("Leo").setType(this.owners.findPetTypes().get(0));
+		this.owners.saveAndFlush(owner);
+
+		assertThat(this.events.stream(PetChangedEvent.class)).containsExactly(new PetChangedEvent(1, false, 1, "Leo",
+				LocalDate.of(2010, 9, 7), owner.getPet("Leo").getType().getName()));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.samples.petclinic.system.QueryCounter;
+
+/**
+ * Integration test for {@link OwnerGraphQlController}
+ */
+@SpringBootTest
+@AutoConfigureGraphQlTester
+class OwnerGraphQlControllerTests {
+
+	private static final String OWNERS = """
+			query owners($lastName: String) {
+			  owners(lastName: $lastName, first: 100) {
+			    lastName
+			    pets {
+			      name
+			      visits(last: 1) { date description }
+			    }
+			  }
+			}
+			""";
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Autowired
+	private OwnerFacets facets;
+
+	@BeforeEach
+	void loadFacets() {
+		this.facets.search("", null, null);
+	}
+
+	@Test
+	void shouldReturnOwnerWithPetsAndMostRecentVisits() {
+		this.graphQlTester.document("{ owner(id: 6) { lastName pets { name visits(last: 1) { date description } } } }")
+			.execute()
+			.path("owner.lastName")
+			.entity(String.class)
+			.isEqualTo("Coleman")
+			.path("owner.pets[*].name")
+			.entityList(String.class)
+			.containsExactly("Max", "Samantha")
+			.path("owner.pets[0].visits[*].description")
+			.entityList(String.class)
+			.containsExactly("neutered")
+			.path("owner.pets[1].visits[*].date")
+			.entityList(String.class)
+			.containsExactly("2013-01-04");
+	}
+
+	@Test
+	void shouldReturnNullForUnknownOwner() {
+		this.graphQlTester.document("{ owner(id: 404) { lastName } }").execute().path("owner").valueIsNull();
+	}
+
+	@Test
+	void shouldResolveAssociationsWithSameNumberOfStatementsForAnyNumberOfOwners() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			this.graphQlTester.document(OWNERS)
+				.variable("lastName", "Franklin")
+				.execute()
+				.path("owners[*].lastName")
+				.entityList(String.class)
+				.hasSize(1);
+			// owners, their pets, then the latest current visits of these pets and the
+			// archived ones of the pets with too few
+			assertThat(queries.getSelectCount()).isEqualTo(4);
+		}
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			this.graphQlTester.document(OWNERS)
+				.variable("lastName", "")
+				.execute()
+				.path("owners[*].lastName")
+				.entityList(String.class)
+				.hasSize(10);
+			assertThat(queries.getSelectCount()).isEqualTo(4);
+		}
+	}
+
+	@Test
+	void shouldRejectTooComplexQuery() {
+		this.graphQlTester.document("{ owners(first: 1000) { lastName pets { name visits { date } } } }")
+			.execute()
+			.errors()
+			.satisfy((errors) -> assertThat(errors).singleElement()
+				.satisfies((error) -> assertThat(error.getMessage()).contains("complexity")));
+	}
+
+	@Test
+	void shouldReturnAllVisitsWhenUnbounded() {
+		this.graphQlTester.document("{ owner(id: 6) { pets { name visits { date } } } }")
+			.execute()
+			.path("owner.pets[1].visits[*].date")
+			.entityList(String.class)
+			.containsExactly("2013-01-04", "2013-01-01");
+	}
+
+	@Test
+	void shouldCountUnboundedVisitsTowardsComplexity() {
+		this.graphQlTester.document("{ owners(first: 20) { pets { visits(last: 5) { date } } } }")
+			.execute()
+			.errors()
+			.verify();
+		this.graphQlTester.document("{ owners(first: 20) { pets { visits { date } } } }")
+			.execute()
+			.errors()
+			.satisfy((errors) -> assertThat(errors).singleElement()
+				.satisfies((error) -> assertThat(error.getMessage()).contains("complexity")));
+	}
+
+	@Test
+	void shouldRejectTooDeepQuery() {
+		this.graphQlTester
+			.document("{ __schema { types { fields { type { ofType { ofType { ofType { ofType { name } } } } } } } } }")
+			.execute()
+			.errors()
+			.satisfy((errors) -> assertThat(errors).singleElement()
+				.satisfies((error) -> assertThat(error.getMessage()).contains("depth")));
+	}
+
+}
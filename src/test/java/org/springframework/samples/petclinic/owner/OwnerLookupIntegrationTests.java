@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.system.QueryCounter;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks that an owner is only fetched from the database once per request, however many
+ * times the controllers look it up.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnerLookupIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void shouldFetchOwnerOncePerRequest() throws Exception {
+		double memoizedBefore = memoizedOwnerLookups();
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", 6, 7)).andExpect(status().isOk());
+
+			assertThat(ownerSelects(queries)).isEqualTo(1);
+		}
+		assertThat(memoizedOwnerLookups()).isGreaterThan(memoizedBefore);
+	}
+
+	@Test
+	void shouldFetchOwnerOnceForNewVisitForm() throws Exception {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", 6, 7)).andExpect(status().isOk());
+
+			assertThat(ownerSelects(queries)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void shouldFetchOwnerAgainInNextRequest() throws Exception {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+			mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+
+			assertThat(ownerSelects(queries)).isEqualTo(2);
+		}
+	}
+
+	private double memoizedOwnerLookups() {
+		return registry.find("petclinic.repository.memoized")
+			.tag("cache", "owners")
+			.counters()
+			.stream()
+			.mapToDouble((counter) -> counter.count())
+			.sum();
+	}
+
+	private static int ownerSelects(QueryCounter.Scope queries) {
+		return queries.getStatementCounts()
+			.entrySet()
+			.stream()
+			.filter((statement) -> statement.getKey().contains(" from owners "))
+			.mapToInt((statement) -> statement.getValue())
+			.sum();
+	}
+
+}
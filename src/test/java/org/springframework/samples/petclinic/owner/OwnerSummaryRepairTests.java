@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Test class for {@link OwnerSummaryRepair}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OwnerSummaryRepair.class, VisitArchiver.class })
+@TestPropertySource(
+		properties = { "petclinic.owners.summary-repair-chunk-size=3", "petclinic.visits.archive-horizon=P1Y" })
+class OwnerSummaryRepairTests {
+
+	@Autowired
+	private OwnerSummaryRepair repair;
+
+	@Autowired
+	private VisitArchiver archiver;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldRecomputeSummaryColumnsInChunks() {
+		this.jdbcTemplate.update("UPDATE owners SET pet_count = 0, visit_count = 0, last_visit_date = NULL");
+
+		OwnerSummaryRepair.Result result = this.repair.repairAll();
+
+		assertThat(result.owners()).isEqualTo(10);
+		assertThat(result.chunks()).isEqualTo(4);
+		assertThat(summaryOf(6)).isEqualTo(new Summary(2, 4, LocalDate.of(2013, 1, 4)));
+		assertThat(summaryOf(10)).isEqualTo(new Summary(2, 0, null));
+	}
+
+	@Test
+	void shouldCountArchivedVisits() {
+		LocalDate today = LocalDate.now();
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, ?, 'check-up')",
+				today);
+		assertThat(this.archiver.archive().visits()).isEqualTo(4);
+		this.jdbcTemplate.update("UPDATE owners SET visit_count = 0, last_visit_date = NULL");
+
+		this.repair.repairAll();
+
+		assertThat(summaryOf(6)).isEqualTo(new Summary(2, 5, today));
+		this.jdbcTemplate.update("DELETE FROM visits WHERE visit_date = ?", today);
+		this.repair.repairAll();
+		assertThat(summaryOf(6)).isEqualTo(new Summary(2, 4, LocalDate.of(2013, 1, 4)));
+	}
+
+	private Summary summaryOf(int ownerId) {
+		return this.jdbcTemplate.queryForObject(
+				"SELECT pet_count, visit_count, last_visit_date FROM owners WHERE id = ?",
+				(rs, rowNum) -> new Summary(rs.getInt("pet_count"), rs.getInt("visit_count"),
+						rs.getObject("last_visit_date", LocalDate.class)),
+				ownerId);
+	}
+
+	private record Summary(int petCount, int visitCount, LocalDate lastVisitDate) {
+
+	}
+
+}
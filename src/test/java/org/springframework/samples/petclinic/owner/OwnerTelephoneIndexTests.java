@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+/**
+ * Test class for {@link OwnerTelephoneIndex}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OwnerTelephoneIndex.class, EntityChangeListener.class })
+@RecordApplicationEvents
+class OwnerTelephoneIndexTests {
+
+	@Autowired
+	private OwnerTelephoneIndex telephones;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@BeforeEach
+	void setup() {
+		this.telephones.reload();
+	}
+
+	@Test
+	void shouldNormalizeTelephones() {
+		assertThat(OwnerTelephoneIndex.normalize("6085551023")).isEqualTo("6085551023");
+		assertThat(OwnerTelephoneIndex.normalize("(608) 555-1023")).isEqualTo("6085551023");
+		assertThat(OwnerTelephoneIndex.normalize("+1 608.555.1023")).isEqualTo("6085551023");
+		assertThat(OwnerTelephoneIndex.normalize("555-1023")).isNull();
+		assertThat(OwnerTelephoneIndex.normalize("Franklin")).isNull();
+		assertThat(OwnerTelephoneIndex.normalize("R2D2 6085551023")).isNull();
+		assertThat(OwnerTelephoneIndex.normalize(null)).isNull();
+	}
+
+	@Test
+	void shouldFindOwnersByTelephone() {
+		assertThat(this.telephones.findOwnerIds("608-555-1023")).containsExactly(1);
+		assertThat(this.telephones.findOwnerIds("6085550000")).isEmpty();
+		assertThat(this.telephones.findOwnerIds("Franklin")).isEmpty();
+		assertThat(this.owners.findSummariesByTelephone("6085551023", Pageable.ofSize(5)))
+			.extracting(OwnerSummary::lastName)
+			.containsExactly("Franklin");
+	}
+
+	@Test
+	void shouldMoveOwnerToItsNewTelephone() {
+		this.telephones.findOwnerIds("6085551023");
+
+		this.telephones.ownerChanged(
+				new OwnerChangedEvent(1, false, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085551749"));
+		this.telephones.ownerChanged(new OwnerChangedEvent(11, true, "Carlos", "Estaban", "2335 Independence La.",
+				"Waunakee", "6085551023"));
+
+		assertThat(this.telephones.findOwnerIds("6085551749")).containsExactly(1, 2);
+		assertThat(this.telephones.findOwnerIds("6085551023")).containsExactly(11);
+	}
+
+	@Test
+	void shouldPublishEventWhenOwnerIsChanged() {
+		Owner owner = this.owners.findById(1).orElseThrow();
+		owner.setTelephone("6085550000");
+		this.owners.saveAndFlush(owner);
+
+		assertThat(this.events.stream(OwnerChangedEvent.class)).containsExactly(
+				new OwnerChangedEvent(1, false, "George", "Franklin", "110 W. Liberty St.", "Madison", "6085550000"));
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Test class for {@link VisitArchiver}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(VisitArchiver.class)
+@TestPropertySource(properties = { "petclinic.visits.archive-horizon=P1Y", "petclinic.visits.archive-chunk-size=3" })
+class VisitArchiverTests {
+
+	@Autowired
+	private VisitArchiver archiver;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldMoveVisitsOlderThanHorizonInChunks() {
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, ?, 'check-up')",
+				LocalDate.now());
+
+		VisitArchiver.Result result = this.archiver.archive();
+
+		assertThat(result.cutoff()).isEqualTo(LocalDate.now().minusYears(1));
+		assertThat(result.visits()).isEqualTo(4);
+		assertThat(result.chunks()).isEqualTo(2);
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits", Integer.class)).isEqualTo(1);
+		assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits_archive", Integer.class)).isEqualTo(4);
+		assertThat(this.archiver.archive().visits()).isZero();
+	}
+
+	@Test
+	void shouldReadArchivedVisitsWithHistory() {
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, ?, 'check-up')",
+				LocalDate.now());
+		this.archiver.archive();
+
+		assertThat(this.visits.findVisitHistory(7, PageRequest.of(0, 10)).getContent())
+			.extracting(VisitEntry::getDescription)
+			.containsExactly("check-up", "spayed", "rabies shot");
+
+		VisitRepository.RecentVisits recent = this.visits.findRecentVisits(7, 2);
+		assertThat(recent.visits()).extracting(VisitEntry::getDescription).containsExactly("check-up", "spayed");
+		assertThat(recent.more()).isTrue();
+
+		LocalDate day = LocalDate.of(2013, 1, 2);
+		assertThat(this.visits.findSchedule(day, day, day.minusDays(1), 0, Limit.of(10))).singleElement()
+			.satisfies((visit) -> {
+				assertThat(visit.petName()).isEqualTo("Max");
+				assertThat(visit.ownerLastName()).isEqualTo("Coleman");
+			});
+	}
+
+}
@@ -16,9 +16,15 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
@@ -28,10 +34,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -55,20 +66,36 @@ class VisitControllerTests {
 	@MockitoBean
 	private OwnerRepository owners;
 
+	@MockitoBean
+	private VisitRepository visits;
+
 	@BeforeEach
 	void init() {
 		Owner owner = new Owner();
+		owner.setId(TEST_OWNER_ID);
 		Pet pet = new Pet();
+		pet.setName("Leo");
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(owner));
+		given(this.visits.findRecentVisits(TEST_PET_ID, VisitController.RECENT_VISITS)).willReturn(
+				new VisitRepository.RecentVisits(List.of(visit(LocalDate.of(2024, 3, 1), "rabies shot")), true));
+	}
+
+	private static Visit visit(LocalDate date, String description) {
+		Visit visit = new Visit();
+		visit.setDate(date);
+		visit.setDescription(description);
+		return visit;
 	}
 
 	@Test
 	void testInitNewVisitForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID))
 			.andExpect(status().isOk())
-			.andExpect(view().name("pets/createOrUpdateVisitForm"));
+			.andExpect(view().name("pets/createOrUpdateVisitForm"))
+			.andExpect(content().string(containsString("rabies shot")))
+			.andExpect(content().string(containsString("All visits")));
 	}
 
 	@Test
@@ -79,6 +106,7 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.visits).bookVisit(any(Owner.class), eq(TEST_PET_ID), any(Visit.class));
 	}
 
 	@Test
@@ -91,4 +119,25 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testShowVisitTimeline() throws Exception {
+		Pageable secondPage = PageRequest.of(1, 20);
+		given(this.visits.findVisitHistory(TEST_PET_ID, secondPage))
+			.willReturn(new PageImpl<>(List.of(visit(LocalDate.of(2020, 1, 4), "checkup")), secondPage, 21));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("page", "2"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("currentPage", 2))
+			.andExpect(model().attribute("totalPages", 2))
+			.andExpect(model().attribute("totalItems", 21L))
+			.andExpect(content().string(containsString("checkup")))
+			.andExpect(view().name("pets/visitTimeline"));
+	}
+
+	@Test
+	void testShowVisitTimelineOfPetOfAnotherOwner() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 2))
+			.andExpect(status().isNotFound());
+		verify(this.visits, never()).findVisitHistory(any(), any());
+	}
+
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitFeedController} and {@link VisitFeed}. The sending threads
+ * are replaced by a queue of tasks run by the tests, so that events can be published
+ * while a subscriber is not being written to.
+ */
+@WebMvcTest(VisitFeedController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class VisitFeedControllerTests {
+
+	private static final int BUFFER_SIZE = 5;
+
+	private static final int HISTORY_SIZE = 4;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VisitFeed feed;
+
+	@Autowired
+	private ManualExecutor executor;
+
+	@Test
+	void testSendBookedVisitsAsEvents() throws Exception {
+		MockHttpServletResponse response = subscribe(null, null);
+		this.feed.visitBooked(visit(6));
+		this.executor.runAll();
+
+		assertThat(response.getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+		assertThat(response.getContentAsString()).contains("event:visit\n")
+			.contains("\"ownerId\":6")
+			.contains("\"petName\":\"Max\"")
+			.contains("\"date\":\"2013-01-05\"");
+	}
+
+	@Test
+	void testOnlySendVisitsOfOwner() throws Exception {
+		MockHttpServletResponse response = subscribe(1, null);
+		this.feed.publish(visit(6));
+		this.feed.publish(visit(1));
+		this.executor.runAll();
+
+		assertThat(response.getContentAsString()).contains("\"ownerId\":1").doesNotContain("\"ownerId\":6");
+	}
+
+	@Test
+	void testResumeFromLastEventId() throws Exception {
+		long first = publish(HISTORY_SIZE + 2);
+		MockHttpServletResponse resumed = subscribe(null, Long.toString(first + 2));
+		MockHttpServletResponse tooOld = subscribe(null, Long.toString(first));
+		MockHttpServletResponse unknown = subscribe(null, Long.toString(first + 1000));
+		this.executor.runAll();
+
+		assertThat(ids(resumed)).containsExactly(first + 3, first + 4, first + 5);
+		// only the last events are kept
+		assertThat(ids(tooOld)).containsExactly(first + 2, first + 3, first + 4, first + 5);
+		assertThat(unknown.getContentAsString()).isEmpty();
+	}
+
+	@Test
+	void testDropOldestEventsOfSlowSubscriber() throws Exception {
+		MockHttpServletResponse response = subscribe(null, null);
+		long droppedBefore = this.feed.getDroppedCount();
+		long first = publish(BUFFER_SIZE + 2);
+		this.executor.runAll();
+
+		assertThat(ids(response)).containsExactlyElementsOf(LongStream.range(first + 2, first + 7).boxed().toList());
+		assertThat(this.feed.getDroppedCount() - droppedBefore).isEqualTo(2);
+	}
+
+	@Test
+	void testSendHeartbeatToIdleSubscriber() throws Exception {
+		MockHttpServletResponse response = subscribe(null, null);
+		this.feed.heartbeat();
+		this.executor.runAll();
+
+		assertThat(response.getContentAsString()).isEqualTo(":heartbeat\n\n");
+	}
+
+	private MockHttpServletResponse subscribe(Integer ownerId, String lastEventId) throws Exception {
+		var request = get("/visits/feed").accept(MediaType.TEXT_EVENT_STREAM);
+		if (ownerId != null) {
+			request.param("ownerId", ownerId.toString());
+		}
+		if (lastEventId != null) {
+			request.header("Last-Event-ID", lastEventId);
+		}
+		return this.mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn().getResponse();
+	}
+
+	/**
+	 * Publish the given number of visits.
+	 * @return the event id of the first one
+	 */
+	private long publish(int count) {
+		long first = this.feed.publish(visit(6));
+		for (int i = 1; i < count; i++) {
+			this.feed.publish(visit(6));
+		}
+		return first;
+	}
+
+	private static List<Long> ids(MockHttpServletResponse response) throws Exception {
+		return response.getContentAsString()
+			.lines()
+			.filter((line) -> line.startsWith("id:"))
+			.map((line) -> Long.parseLong(line.substring(3)))
+			.toList();
+	}
+
+	private static VisitBookedEvent visit(int ownerId) {
+		return new VisitBookedEvent(12, ownerId, 8, "Max", LocalDate.of(2013, 1, 5), "check-up", "cat", "Monona");
+	}
+
+	static class ManualExecutor implements Executor {
+
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+		@Override
+		public synchronized void execute(Runnable task) {
+			this.tasks.add(task);
+		}
+
+		void runAll() {
+			for (Runnable task = poll(); task != null; task = poll()) {
+				task.run();
+			}
+		}
+
+		private synchronized Runnable poll() {
+			return this.tasks.poll();
+		}
+
+	}
+
+	@TestConfiguration
+	static class FeedConfiguration {
+
+		@Bean
+		ManualExecutor executor() {
+			return new ManualExecutor();
+		}
+
+		@Bean
+		VisitFeed visitFeed(ManualExecutor executor) {
+			return new VisitFeed(executor, Executors.newSingleThreadScheduledExecutor(), BUFFER_SIZE, HISTORY_SIZE,
+					Duration.ofMinutes(1), Duration.ofMinutes(1));
+		}
+
+	}
+
+}
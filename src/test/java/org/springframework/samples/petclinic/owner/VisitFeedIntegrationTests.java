@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Integration test of {@link VisitFeed} against the embedded server, with a subscriber
+ * that stops reading and a single sending thread.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = { "petclinic.visits.feed.threads=1", "petclinic.visits.feed.write-timeout=1s" })
+class VisitFeedIntegrationTests {
+
+	private static final String DESCRIPTION = "x".repeat(16 * 1024);
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	private VisitFeed feed;
+
+	@Test
+	void testDisconnectSubscriberNotReading() throws Exception {
+		try (Socket stalled = subscribe(4096); Socket reading = subscribe(64 * 1024)) {
+			long timedOutBefore = this.feed.getTimedOutCount();
+			awaitSubscribers(2);
+			// the other client keeps reading on its own thread, so that only the stalled
+			// connection's buffers fill up
+			CompletableFuture<Boolean> marker = CompletableFuture.supplyAsync(() -> readUntil(reading, "marker"));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+			while (this.feed.getTimedOutCount() == timedOutBefore && System.nanoTime() < deadline) {
+				this.feed.publish(visit(DESCRIPTION));
+				Thread.sleep(5);
+			}
+
+			assertThat(this.feed.getTimedOutCount()).isEqualTo(timedOutBefore + 1);
+			awaitSubscribers(1);
+			// the only sending thread is free to serve the client still reading
+			this.feed.publish(visit("marker"));
+			assertThat(marker.get(10, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
+	private Socket subscribe(int receiveBufferSize) throws IOException {
+		Socket socket = new Socket();
+		socket.setReceiveBufferSize(receiveBufferSize);
+		socket.connect(new InetSocketAddress("localhost", this.port));
+		socket.setSoTimeout(10_000);
+		OutputStream out = socket.getOutputStream();
+		out.write(("GET /visits/feed HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+			.getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+		return socket;
+	}
+
+	private void awaitSubscribers(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (this.feed.getSubscriberCount() != count && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.feed.getSubscriberCount()).isEqualTo(count);
+	}
+
+	private static boolean readUntil(Socket socket, String text) {
+		byte[] buffer = new byte[64 * 1024];
+		StringBuilder tail = new StringBuilder();
+		try {
+			InputStream in = socket.getInputStream();
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				tail.append(new String(buffer, 0, read, StandardCharsets.ISO_8859_1));
+				if (tail.indexOf(text) >= 0) {
+					return true;
+				}
+				tail.delete(0, Math.max(0, tail.length() - text.length()));
+			}
+			return false;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static VisitBookedEvent visit(String description) {
+		return new VisitBookedEvent(12, 6, 8, "Max", LocalDate.of(2013, 1, 5), description, "cat", "Monona");
+	}
+
+}
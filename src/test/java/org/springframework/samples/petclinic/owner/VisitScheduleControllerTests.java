@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitScheduleController}
+ */
+@WebMvcTest(VisitScheduleController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class VisitScheduleControllerTests {
+
+	private static final LocalDate DAY = LocalDate.of(2013, 1, 1);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private VisitRepository visits;
+
+	private static ScheduledVisit visit(int id, LocalDate date) {
+		return new ScheduledVisit(id, date, "rabies shot", 7, "Samantha", "cat", 6, "Jean", "Coleman");
+	}
+
+	@Test
+	void testShowSchedule() throws Exception {
+		given(this.visits.findSchedule(DAY, DAY, DAY, 0, Limit.of(VisitScheduleController.PAGE_SIZE + 1)))
+			.willReturn(List.of(visit(1, DAY)));
+		mockMvc.perform(get("/visits").param("date", "2013-01-01").accept(MediaType.TEXT_HTML))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("date", DAY))
+			.andExpect(content().string(containsString("Jean Coleman")))
+			.andExpect(content().string(containsString("Samantha")))
+			.andExpect(view().name("visits/schedule"));
+	}
+
+	@Test
+	void testShowScheduleResourceForRange() throws Exception {
+		LocalDate from = LocalDate.of(2013, 1, 1);
+		LocalDate to = LocalDate.of(2013, 12, 31);
+		given(this.visits.findSchedule(from, to, from.minusDays(1), 0, Limit.of(3)))
+			.willReturn(List.of(visit(1, from), visit(4, from), visit(2, from.plusDays(1))));
+		mockMvc
+			.perform(get("/visits").param("from", "2013-01-01")
+				.param("to", "2013-12-31")
+				.param("size", "2")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.visits", hasSize(2)))
+			.andExpect(jsonPath("$.visits[0].petName").value("Samantha"))
+			.andExpect(jsonPath("$.visits[0].ownerLastName").value("Coleman"))
+			.andExpect(jsonPath("$.next.afterDate").value("2013-01-01"))
+			.andExpect(jsonPath("$.next.afterId").value(4));
+	}
+
+	@Test
+	void testShowScheduleResourceContinuesAfterPosition() throws Exception {
+		given(this.visits.findSchedule(DAY, DAY, DAY, 4, Limit.of(VisitScheduleController.PAGE_SIZE + 1)))
+			.willReturn(List.of());
+		mockMvc
+			.perform(get("/visits").param("date", "2013-01-01")
+				.param("afterDate", "2013-01-01")
+				.param("afterId", "4")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.visits", hasSize(0)))
+			.andExpect(jsonPath("$.next").doesNotExist());
+	}
+
+	@Test
+	void testShowScheduleResourceRejectsInvalidRange() throws Exception {
+		mockMvc.perform(
+				get("/visits").param("from", "2013-02-01").param("to", "2013-01-01").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/visits").accept(MediaType.APPLICATION_JSON)).andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link VisitIndex}
+ */
+class VisitIndexTests {
+
+	private VisitIndex index;
+
+	@BeforeEach
+	void setup() {
+		this.index = new VisitIndex();
+		this.index.add(1, "rabies shot");
+		this.index.add(2, "Rabies shot, limping on hind leg");
+		this.index.add(4, "spayed");
+		this.index.add(3, "neutered; leg x-ray");
+	}
+
+	@Test
+	void shouldTokenizeOnNonAlphanumericCharacters() {
+		assertThat(VisitIndex.tokenize("Check-up: X-ray, 2nd  leg!")).containsExactly("check", "up", "x", "ray", "2nd",
+				"leg");
+		assertThat(VisitIndex.tokenize(null)).isEmpty();
+	}
+
+	@Test
+	void shouldMatchAllTermsNewestFirst() {
+		assertThat(this.index.search(SearchQuery.parse("shot"), 10)).containsExactly(2, 1);
+		assertThat(this.index.search(SearchQuery.parse("leg"), 10)).containsExactly(3, 2);
+		assertThat(this.index.search(SearchQuery.parse("leg rabies"), 10)).containsExactly(2);
+		assertThat(this.index.search(SearchQuery.parse("leg"), 1)).containsExactly(3);
+		assertThat(this.index.search(SearchQuery.parse("tail"), 10)).isEmpty();
+	}
+
+	@Test
+	void shouldMatchPrefixes() {
+		assertThat(this.index.search(SearchQuery.parse("limp*"), 10)).containsExactly(2);
+		assertThat(this.index.search(SearchQuery.parse("r*"), 10)).containsExactly(3, 2, 1);
+	}
+
+	@Test
+	void shouldMatchPhrasesOnAdjacentTerms() {
+		assertThat(this.index.search(SearchQuery.parse("\"hind leg\""), 10)).containsExactly(2);
+		assertThat(this.index.search(SearchQuery.parse("\"leg hind\""), 10)).isEmpty();
+		assertThat(this.index.search(SearchQuery.parse("x-ray"), 10)).containsExactly(3);
+	}
+
+	@Test
+	void shouldIgnoreVisitsAlreadyIndexed() {
+		this.index.add(1, "tail");
+		assertThat(this.index.search(SearchQuery.parse("tail"), 10)).isEmpty();
+		assertThat(this.index.getVisitCount()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldReadBackWhatItWrote() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		this.index.writeTo(new DataOutputStream(bytes));
+
+		VisitIndex read = VisitIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertThat(read.getMaxVisitId()).isEqualTo(4);
+		assertThat(read.getVisitCount()).isEqualTo(4);
+		assertThat(read.search(SearchQuery.parse("\"hind leg\" rab*"), 10)).containsExactly(2);
+		assertThat(read.search(SearchQuery.parse("leg"), 10)).containsExactly(3, 2);
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.owner.ScheduledVisit;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitSearchController}
+ */
+@WebMvcTest(VisitSearchController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class VisitSearchControllerTests {
+
+	private static final ScheduledVisit VISIT = new ScheduledVisit(1, LocalDate.of(2013, 1, 1), "rabies shot", 7,
+			"Samantha", "cat", 6, "Jean", "Coleman");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private VisitSearch search;
+
+	@Test
+	void testSearchVisits() throws Exception {
+		given(this.search.search("rabies", VisitSearchController.RESULT_LIMIT)).willReturn(List.of(VISIT));
+		mockMvc.perform(get("/visits/search").param("q", "rabies"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("visits", List.of(VISIT)))
+			.andExpect(view().name("visits/search"))
+			.andExpect(content().string(containsString("Samantha")));
+	}
+
+	@Test
+	void testSearchVisitsWithoutQuery() throws Exception {
+		given(this.search.search("", VisitSearchController.RESULT_LIMIT)).willReturn(List.of());
+		mockMvc.perform(get("/visits/search"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("search-visits-form")));
+	}
+
+	@Test
+	void testSearchVisitsResource() throws Exception {
+		given(this.search.search("\"rabies shot\"", VisitSearchController.RESULT_LIMIT)).willReturn(List.of(VISIT));
+		mockMvc.perform(get("/visits/search").param("q", "\"rabies shot\"").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].id").value(1))
+			.andExpect(jsonPath("$[0].ownerLastName").value("Coleman"));
+	}
+
+}
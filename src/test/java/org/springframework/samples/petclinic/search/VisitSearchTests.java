@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.ScheduledVisit;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Test class for {@link VisitSearch}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class VisitSearchTests {
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@TempDir
+	private Path directory;
+
+	private VisitSearch search(Path indexFile) {
+		return new VisitSearch(this.visits, this.dataSource, this.transactionManager,
+				(indexFile != null) ? indexFile.toString() : "");
+	}
+
+	@Test
+	void shouldFindVisitsWithTheirPetAndOwner() {
+		VisitSearch search = search(null);
+
+		assertThat(search.search("Rabies shot", 10))
+			.extracting(ScheduledVisit::id, ScheduledVisit::petName, ScheduledVisit::ownerLastName)
+			.containsExactly(tuple(2, "Max", "Coleman"), tuple(1, "Samantha", "Coleman"));
+		assertThat(search.search("neut*", 10)).extracting(ScheduledVisit::id).containsExactly(3);
+		assertThat(search.search("", 10)).isEmpty();
+	}
+
+	@Test
+	void shouldFindArchivedVisits() {
+		this.jdbcTemplate.update("INSERT INTO visits_archive (id, pet_id, visit_date, description) VALUES (?, 1, ?, ?)",
+				90, LocalDate.of(2010, 3, 4), "dental cleaning");
+
+		assertThat(search(null).search("dental", 10)).extracting(ScheduledVisit::id, ScheduledVisit::petName)
+			.containsExactly(tuple(90, "Leo"));
+	}
+
+	@Test
+	void shouldIndexBookedVisits() {
+		VisitSearch search = search(null);
+		assertThat(search.search("dental", 10)).isEmpty();
+		Integer id = insertVisit("dental cleaning");
+
+		search.visitBooked(
+				new VisitBookedEvent(id, 1, 1, "Leo", LocalDate.of(2013, 2, 1), "dental cleaning", "cat", "Madison"));
+
+		assertThat(search.search("dental", 10)).extracting(ScheduledVisit::id).containsExactly(id);
+	}
+
+	@Test
+	void shouldIndexVisitsBookedWhileBuilding() {
+		Integer[] booked = new Integer[1];
+		VisitSearch[] search = new VisitSearch[1];
+		// the booking commits once the scan has read past it
+		PlatformTransactionManager transactionManager = new PlatformTransactionManager() {
+
+			@Override
+			public TransactionStatus getTransaction(TransactionDefinition definition) {
+				return VisitSearchTests.this.transactionManager.getTransaction(definition);
+			}
+
+			@Override
+			public void commit(TransactionStatus status) {
+				VisitSearchTests.this.transactionManager.commit(status);
+				booked[0] = insertVisit("dental cleaning");
+				search[0].visitBooked(new VisitBookedEvent(booked[0], 1, 1, "Leo", LocalDate.of(2013, 2, 1),
+						"dental cleaning", "cat", "Madison"));
+			}
+
+			@Override
+			public void rollback(TransactionStatus status) {
+				VisitSearchTests.this.transactionManager.rollback(status);
+			}
+
+		};
+		search[0] = new VisitSearch(this.visits, this.dataSource, transactionManager, "");
+
+		assertThat(search[0].search("shot", 10)).hasSize(2);
+		assertThat(search[0].search("dental", 10)).extracting(ScheduledVisit::id).containsExactly(booked[0]);
+	}
+
+	@Test
+	void shouldSaveIndexAndCatchUpOnLoad() {
+		Path indexFile = this.directory.resolve("visits.idx");
+		search(indexFile).search("shot", 10);
+		assertThat(indexFile).exists();
+		Integer id = insertVisit("dental cleaning");
+
+		assertThat(search(indexFile).search("dental", 10)).extracting(ScheduledVisit::id).containsExactly(id);
+	}
+
+	@Test
+	void shouldUseSavedIndexMatchingTheDatabase() throws IOException {
+		Path indexFile = this.directory.resolve("visits.idx");
+		VisitIndex saved = new VisitIndex();
+		for (int id = 1; id <= 4; id++) {
+			saved.add(id, "marker");
+		}
+		write(saved, indexFile);
+
+		assertThat(search(indexFile).search("marker", 10)).extracting(ScheduledVisit::id).containsExactly(4, 3, 2, 1);
+	}
+
+	@Test
+	void shouldRebuildSavedIndexNotMatchingTheDatabase() throws IOException {
+		Path indexFile = this.directory.resolve("visits.idx");
+		VisitIndex saved = new VisitIndex();
+		saved.add(4, "marker");
+		write(saved, indexFile);
+
+		VisitSearch search = search(indexFile);
+
+		assertThat(search.search("marker", 10)).isEmpty();
+		assertThat(search.search("spayed", 10)).extracting(ScheduledVisit::id).containsExactly(4);
+	}
+
+	private Integer insertVisit(String description) {
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, ?, ?)",
+				LocalDate.of(2013, 2, 1), description);
+		return this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+	}
+
+	private static void write(VisitIndex index, Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			index.writeTo(new DataOutputStream(out));
+		}
+	}
+
+}
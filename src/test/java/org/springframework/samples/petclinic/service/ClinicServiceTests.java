@@ -20,6 +20,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -27,17 +29,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.ScheduledVisit;
 import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitEntry;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+import org.springframework.samples.petclinic.system.QueryCounter;
+import org.springframework.samples.petclinic.system.QueryMetricsConfiguration;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Persistence;
+
 /**
  * Integration test of the Service and the Repository layer.
  * <p>
@@ -69,6 +83,8 @@ import org.springframework.transaction.annotation.Transactional;
 @DataJpaTest
 // Ensure that if the mysql profile is active we connect to the real database:
 @AutoConfigureTestDatabase(replace = Replace.NONE)
+// Count the statements issued by the repositories
+@Import(QueryMetricsConfiguration.class)
 // @TestPropertySource("/application-postgres.properties")
 class ClinicServiceTests {
 
@@ -78,6 +94,12 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected VisitRepository visits;
+
+	@Autowired
+	private EntityManager entityManager;
+
 	Pageable pageable;
 
 	@Test
@@ -89,6 +111,41 @@ class ClinicServiceTests {
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	void shouldFindOwnersByLastNameWithBoundedNumberOfSelects() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			this.owners.findByLastNameStartingWith("Davis", Pageable.ofSize(5));
+			// one for the owners, then their pets and each pet's visits
+			assertThat(queries.getSelectCount()).isLessThanOrEqualTo(5);
+		}
+	}
+
+	@Test
+	void shouldFindOwnerSummariesByIds() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			List<OwnerSummary> owners = this.owners.findSummariesByIds(List.of(4, 2));
+			assertThat(owners).extracting(OwnerSummary::firstName).containsExactly("Betty", "Harold");
+			assertThat(owners).extracting(OwnerSummary::petNames).containsExactly("Basil", "Iggy");
+			// owners and the names of their pets in a single grouped query
+			assertThat(queries.getSelectCount()).isEqualTo(1);
+		}
+
+		List<OwnerSummary> owners = this.owners.findSummariesByIds(List.of(10));
+		assertThat(owners).singleElement().satisfies((owner) -> {
+			assertThat(owner.petNames()).isEqualTo("Lucky, Sly");
+			assertThat(owner.telephone()).isEqualTo("6085555487");
+		});
+	}
+
+	@Test
+	void shouldFindSingleOwnerWithBoundedNumberOfSelects() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			this.owners.findById(6);
+			// the owner joined with its pets, then the visits of each of the two pets
+			assertThat(queries.getSelectCount()).isLessThanOrEqualTo(3);
+		}
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Optional<Owner> optionalOwner = this.owners.findById(1);
@@ -228,6 +285,55 @@ class ClinicServiceTests {
 			.allMatch(value -> value.getId() != null);
 	}
 
+	@Test
+	@Transactional
+	void shouldMaintainOwnerSummaryColumns() {
+		Owner owner6 = this.owners.findById(6).orElseThrow();
+		assertThat(owner6.getPetCount()).isEqualTo(2);
+		assertThat(owner6.getVisitCount()).isEqualTo(4);
+		assertThat(owner6.getLastVisitDate()).isEqualTo(LocalDate.of(2013, 1, 4));
+
+		Visit visit = new Visit();
+		visit.setDescription("check-up");
+		this.visits.bookVisit(owner6, 7, visit);
+		Pet pet = new Pet();
+		pet.setName("bowser");
+		pet.setType(EntityUtils.getById(this.owners.findPetTypes(), PetType.class, 2));
+		pet.setBirthDate(LocalDate.now());
+		this.owners.savePet(owner6, pet);
+
+		// read back from the summary columns only
+		assertThat(this.owners.findRecentlySeen(PageRequest.of(0, 1))).singleElement().satisfies((owner) -> {
+			assertThat(owner.id()).isEqualTo(6);
+			assertThat(owner.petCount()).isEqualTo(3);
+			assertThat(owner.visitCount()).isEqualTo(5);
+			assertThat(owner.lastVisitDate()).isEqualTo(visit.getDate());
+		});
+	}
+
+	@Test
+	@Transactional
+	void shouldNotLoseCountsOfBookingsFromStaleCopies() {
+		Owner first = this.owners.findById(6).orElseThrow();
+		this.entityManager.clear();
+		Owner second = this.owners.findById(6).orElseThrow();
+		this.entityManager.clear();
+
+		Visit earlier = new Visit();
+		earlier.setDate(LocalDate.of(2013, 1, 10));
+		earlier.setDescription("check-up");
+		Visit later = new Visit();
+		later.setDescription("check-up");
+		this.visits.bookVisit(first, 7, later);
+		this.visits.bookVisit(second, 8, earlier);
+		this.owners.saveOwner(first);
+		this.entityManager.clear();
+
+		Owner owner6 = this.owners.findById(6).orElseThrow();
+		assertThat(owner6.getVisitCount()).isEqualTo(6);
+		assertThat(owner6.getLastVisitDate()).isEqualTo(LocalDate.now());
+	}
+
 	@Test
 	void shouldFindVisitsByPetId() {
 		Optional<Owner> optionalOwner = this.owners.findById(6);
@@ -244,4 +350,72 @@ class ClinicServiceTests {
 			.isNotNull();
 	}
 
+	@Test
+	void shouldPageVisitsNewestFirst() {
+		Page<VisitEntry> firstPage = this.visits.findVisitHistory(8, PageRequest.of(0, 1));
+		assertThat(firstPage.getTotalElements()).isEqualTo(2);
+		assertThat(firstPage.getContent()).singleElement()
+			.extracting(VisitEntry::getDate)
+			.isEqualTo(LocalDate.of(2013, 1, 3));
+
+		VisitRepository.RecentVisits recent = this.visits.findRecentVisits(8, 1);
+		assertThat(recent.visits()).extracting(VisitEntry::getId)
+			.containsExactly(firstPage.getContent().get(0).getId());
+		assertThat(recent.more()).isTrue();
+		assertThat(this.visits.findRecentVisits(8, 2).more()).isFalse();
+	}
+
+	@Test
+	void shouldFindRecentVisitsOfSeveralPetsInOneStatementPerTable() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			Map<Integer, VisitRepository.RecentVisits> recent = this.visits.findRecentVisits(List.of(7, 8, 9), 1);
+
+			assertThat(queries.getSelectCount()).isEqualTo(2);
+			assertThat(recent.get(8).visits()).extracting(VisitEntry::getDate)
+				.containsExactly(LocalDate.of(2013, 1, 3));
+			assertThat(recent.get(8).more()).isTrue();
+			assertThat(recent.get(7).more()).isTrue();
+			assertThat(recent.get(9).visits()).isEmpty();
+			assertThat(recent.get(9).more()).isFalse();
+		}
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			assertThat(this.visits.findRecentVisits(List.of(7, 8), 1)).hasSize(2);
+			assertThat(queries.getSelectCount()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void shouldBookVisitWithoutLoadingVisitHistory() {
+		Owner owner6 = this.owners.findById(6).orElseThrow();
+		Visit visit = new Visit();
+		visit.setDescription("booked");
+
+		this.visits.bookVisit(owner6, 7, visit);
+
+		assertThat(visit.getId()).isNotNull();
+		assertThat(Persistence.getPersistenceUtil().isLoaded(owner6.getPet(7), "visits")).isFalse();
+		assertThat(owner6.getVisitCount()).isEqualTo(5);
+		assertThat(this.visits.findRecentVisits(7, 1).visits()).containsExactly(visit);
+	}
+
+	@Test
+	void shouldFindScheduleWithPetAndOwnerNamesInOneStatementPerTable() {
+		LocalDate from = LocalDate.of(2013, 1, 2);
+		LocalDate to = LocalDate.of(2013, 1, 4);
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			List<ScheduledVisit> schedule = this.visits.findSchedule(from, to, from.minusDays(1), 0, Limit.of(2));
+			assertThat(schedule).extracting(ScheduledVisit::date).containsExactly(from, from.plusDays(1));
+			assertThat(schedule.get(0).petName()).isEqualTo("Max");
+			assertThat(schedule.get(0).petType()).isEqualTo("cat");
+			assertThat(schedule.get(0).ownerLastName()).isEqualTo("Coleman");
+			// the visits table and the archive
+			assertThat(queries.getSelectCount()).isEqualTo(2);
+
+			ScheduledVisit last = schedule.get(1);
+			assertThat(this.visits.findSchedule(from, to, last.date(), last.id(), Limit.of(2)))
+				.extracting(ScheduledVisit::date)
+				.containsExactly(to);
+		}
+	}
+
 }
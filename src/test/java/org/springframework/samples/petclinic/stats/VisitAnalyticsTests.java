@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.samples.petclinic.stats.VisitAnalyticsQuery.Dimension;
+
+/**
+ * Test class for {@link VisitAnalytics}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(VisitAnalytics.class)
+class VisitAnalyticsTests {
+
+	@Autowired
+	private VisitAnalytics analytics;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldGroupVisitsByCohortTypeAndWeekday() {
+		this.analytics.reload();
+
+		List<VisitGroup> groups = this.analytics
+			.query(new VisitAnalyticsQuery().groupBy(Dimension.BIRTH_YEAR, Dimension.PET_TYPE, Dimension.WEEKDAY));
+
+		assertThat(groups).containsExactlyInAnyOrder(new VisitGroup(List.of("2012", "cat", "TUESDAY"), 1),
+				new VisitGroup(List.of("2012", "cat", "WEDNESDAY"), 1),
+				new VisitGroup(List.of("2012", "cat", "THURSDAY"), 1),
+				new VisitGroup(List.of("2012", "cat", "FRIDAY"), 1));
+	}
+
+	@Test
+	void shouldFilterBeforeGrouping() {
+		this.analytics.reload();
+
+		assertThat(this.analytics.query(new VisitAnalyticsQuery().city("Monona").groupBy(Dimension.MONTH)))
+			.containsExactly(new VisitGroup(List.of("2013-01"), 4));
+		assertThat(this.analytics
+			.query(new VisitAnalyticsQuery().visitedBetween(LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 3))
+				.petType("cat")))
+			.containsExactly(new VisitGroup(List.of(), 2));
+		assertThat(this.analytics.query(new VisitAnalyticsQuery().petType("dragon"))).isEmpty();
+	}
+
+	@Test
+	void shouldAppendNewVisitsOnRefresh() {
+		this.analytics.reload();
+		this.analytics.query(new VisitAnalyticsQuery());
+		this.jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (1, ?, 'check-up')",
+				LocalDate.of(2014, 2, 3));
+
+		this.analytics.refresh();
+
+		assertThat(this.analytics.query(new VisitAnalyticsQuery().groupBy(Dimension.CITY, Dimension.MONTH)))
+			.containsExactly(new VisitGroup(List.of("Monona", "2013-01"), 4),
+					new VisitGroup(List.of("Madison", "2014-02"), 1));
+	}
+
+	@Test
+	void shouldAppendVisitCommittedOutOfIdOrder() {
+		this.analytics.reload();
+		this.analytics.query(new VisitAnalyticsQuery());
+		insertVisit(200, LocalDate.of(2014, 2, 3));
+		this.analytics.refresh();
+		insertVisit(100, LocalDate.of(2014, 2, 4));
+
+		this.analytics.visitBooked(bookedEvent(100));
+		this.analytics.visitBooked(bookedEvent(200));
+
+		assertThat(this.analytics.query(new VisitAnalyticsQuery().city("Madison")))
+			.containsExactly(new VisitGroup(List.of(), 2));
+	}
+
+	@Test
+	void shouldRejectTooManyGroups() {
+		this.analytics.reload();
+		VisitAnalyticsQuery query = new VisitAnalyticsQuery();
+		for (int i = 0; i < 8; i++) {
+			query.groupBy(Dimension.WEEKDAY);
+		}
+		assertThatIllegalArgumentException().isThrownBy(() -> this.analytics.query(query));
+	}
+
+	private void insertVisit(int id, LocalDate date) {
+		this.jdbcTemplate
+			.update("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, 1, ?, 'check-up')", id, date);
+	}
+
+	private static VisitBookedEvent bookedEvent(int visitId) {
+		return new VisitBookedEvent(visitId, 1, 1, "Leo", LocalDate.of(2014, 2, 3), "check-up", "cat", "Madison");
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Visit;
+import org.springframework.samples.petclinic.owner.VisitBookedEvent;
+import org.springframework.samples.petclinic.owner.VisitRepository;
+
+/**
+ * Test class for {@link VisitStatistics}
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ VisitStatsStore.class, VisitStatistics.class })
+class VisitStatisticsTests {
+
+	private static final YearMonth JANUARY_2013 = YearMonth.of(2013, 1);
+
+	@Autowired
+	private VisitStatistics statistics;
+
+	@Autowired
+	private VisitStatsStore store;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldReportMonthlyCountsFromDailyCounts() {
+		this.statistics.reload();
+
+		VisitStatsReport report = this.statistics.report(JANUARY_2013, JANUARY_2013);
+
+		assertThat(report.petTypes()).containsExactly(Map.entry(JANUARY_2013, Map.of("cat", 4L)));
+		assertThat(report.cities()).containsExactly(Map.entry(JANUARY_2013, Map.of("Monona", 4L)));
+		assertThat(this.statistics.report(YearMonth.of(2013, 2), YearMonth.of(2013, 12)).petTypes()).isEmpty();
+	}
+
+	@Test
+	void shouldCountBookedVisitInBookingTransaction() {
+		Owner owner = this.owners.findById(6).orElseThrow();
+		Visit visit = new Visit();
+		visit.setDate(LocalDate.of(2013, 1, 4));
+		visit.setDescription("check-up");
+
+		this.visits.bookVisit(owner, 7, visit);
+
+		assertThat(this.jdbcTemplate.queryForObject(
+				"SELECT visit_count FROM visit_stats WHERE visit_date = ? AND pet_type = ? AND city = ?", Integer.class,
+				LocalDate.of(2013, 1, 4), "cat", "Monona"))
+			.isEqualTo(2);
+	}
+
+	@Test
+	void shouldCreateCountForFirstVisitOfDay() {
+		Owner owner = this.owners.findById(6).orElseThrow();
+		for (int i = 0; i < 2; i++) {
+			Visit visit = new Visit();
+			visit.setDate(LocalDate.of(2013, 2, 1));
+			visit.setDescription("check-up");
+			this.visits.bookVisit(owner, 7, visit);
+		}
+
+		assertThat(this.jdbcTemplate.queryForList("SELECT visit_count FROM visit_stats WHERE visit_date = ?",
+				Integer.class, LocalDate.of(2013, 2, 1)))
+			.containsExactly(2);
+	}
+
+	@Test
+	void shouldCountFirstBookingOnceBeforeCountsAreLoaded() {
+		this.statistics.reload();
+		VisitBookedEvent event = new VisitBookedEvent(99, 6, 7, "Samantha", LocalDate.of(2013, 1, 20), "check-up",
+				"cat", "Monona");
+		// committed by the booking, then handed to the listener with nothing loaded
+		this.store.increment(event.date(), event.petType(), event.city());
+		this.statistics.updateMonthlyCounts(event);
+
+		VisitStatsReport report = this.statistics.report(JANUARY_2013, JANUARY_2013);
+
+		assertThat(report.petTypes()).containsExactly(Map.entry(JANUARY_2013, Map.of("cat", 5L)));
+	}
+
+	@Test
+	void shouldCountCommittedBookingInMemory() {
+		this.statistics.reload();
+		this.statistics.report(JANUARY_2013, JANUARY_2013);
+		this.statistics.updateMonthlyCounts(
+				new VisitBookedEvent(99, 1, 1, "Leo", LocalDate.of(2013, 1, 20), "check-up", "dog", "Madison"));
+
+		VisitStatsReport report = this.statistics.report(JANUARY_2013, JANUARY_2013);
+
+		assertThat(report.petTypes().get(JANUARY_2013)).containsEntry("cat", 4L).containsEntry("dog", 1L);
+		assertThat(report.cities().get(JANUARY_2013)).containsEntry("Madison", 1L);
+	}
+
+}
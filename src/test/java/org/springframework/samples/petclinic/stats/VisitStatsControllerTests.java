@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.aot.DisabledInAotMode;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link VisitStatsController}
+ */
+@WebMvcTest(VisitStatsController.class)
+@DisabledInNativeImage
+@DisabledInAotMode
+class VisitStatsControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private VisitStatistics statistics;
+
+	@MockitoBean
+	private VisitAnalytics analytics;
+
+	@Test
+	void testShowStats() throws Exception {
+		YearMonth from = YearMonth.of(2013, 1);
+		YearMonth to = YearMonth.of(2013, 6);
+		given(this.statistics.report(from, to)).willReturn(
+				new VisitStatsReport(from, to, Map.of(from, Map.of("cat", 4L)), Map.of(from, Map.of("Monona", 4L))));
+		mockMvc.perform(get("/stats").param("from", "2013-01").param("to", "2013-06"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.from").value("2013-01"))
+			.andExpect(jsonPath("$.petTypes['2013-01'].cat").value(4))
+			.andExpect(jsonPath("$.cities['2013-01'].Monona").value(4));
+	}
+
+	@Test
+	void testShowStatsDefaultsToLastTwelveMonths() throws Exception {
+		YearMonth to = YearMonth.now();
+		YearMonth from = to.minusMonths(11);
+		given(this.statistics.report(from, to)).willReturn(new VisitStatsReport(from, to, Map.of(), Map.of()));
+		mockMvc.perform(get("/stats")).andExpect(status().isOk()).andExpect(jsonPath("$.from").value(from.toString()));
+	}
+
+	@Test
+	void testShowStatsRejectsInvalidRange() throws Exception {
+		mockMvc.perform(get("/stats").param("from", "2013-06").param("to", "2013-01"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testAnalyzeVisits() throws Exception {
+		given(this.analytics.query(any(VisitAnalyticsQuery.class)))
+			.willReturn(List.of(new VisitGroup(List.of("2012", "cat", "TUESDAY"), 3)));
+		mockMvc.perform(get("/stats/visits").param("groupBy", "birthYear,petType,weekday").param("city", "Monona"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].key[2]").value("TUESDAY"))
+			.andExpect(jsonPath("$[0].visits").value(3));
+		ArgumentCaptor<VisitAnalyticsQuery> query = ArgumentCaptor.forClass(VisitAnalyticsQuery.class);
+		verify(this.analytics).query(query.capture());
+		assertThat(query.getValue().groupBy).containsExactly(VisitAnalyticsQuery.Dimension.BIRTH_YEAR,
+				VisitAnalyticsQuery.Dimension.PET_TYPE, VisitAnalyticsQuery.Dimension.WEEKDAY);
+		assertThat(query.getValue().city).isEqualTo("Monona");
+	}
+
+	@Test
+	void testAnalyzeVisitsRejectsUnknownDimension() throws Exception {
+		mockMvc.perform(get("/stats/visits").param("groupBy", "color")).andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Test class for {@link VisitStatsRebuild}. Chunks are committed by the worker threads,
+ * so the test runs outside of a transaction and leaves the table as it found it.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ VisitStatsStore.class, VisitStatistics.class, VisitStatsRebuild.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitStatsRebuildTests {
+
+	@Autowired
+	private VisitStatsRebuild rebuild;
+
+	@Autowired
+	private VisitStatistics statistics;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void shouldRecomputeDailyCountsByMonth() {
+		this.jdbcTemplate.update("DELETE FROM visit_stats");
+		this.jdbcTemplate.update(
+				"INSERT INTO visit_stats (visit_date, pet_type, city, visit_count) VALUES ('1999-01-01', 'cat', 'Madison', 7)");
+
+		VisitStatsRebuild.Result result = this.rebuild.rebuildAll();
+
+		assertThat(result.months()).isEqualTo(1);
+		assertThat(this.jdbcTemplate.queryForObject("SELECT SUM(visit_count) FROM visit_stats", Integer.class))
+			.isEqualTo(4);
+		YearMonth january = YearMonth.of(2013, 1);
+		assertThat(this.statistics.report(YearMonth.of(1999, 1), january).cities())
+			.containsExactly(Map.entry(january, Map.of("Monona", 4L)));
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Test class for {@link AccessLog} and {@link AccessLogFilter}
+ */
+class AccessLogTests {
+
+	private final List<String> lines = new ArrayList<>();
+
+	@Test
+	void shouldWriteRequestsAsJsonInOrder() {
+		AccessLog accessLog = new AccessLog(4, lines::add);
+		accessLog.log(0, "GET", "/owners/{ownerId}", "/owners/6", 200, 1_834_000, "OwnerController.showOwner",
+				"127.0.0.1");
+		accessLog.log(1, "POST", null, "/owners/new", 302, 5_000, "none", null);
+
+		assertThat(accessLog.drain()).isEqualTo(2);
+		assertThat(lines).containsExactly(
+				"{\"time\":\"1970-01-01T00:00:00Z\",\"method\":\"GET\",\"route\":\"/owners/{ownerId}\",\"path\":\"/owners/6\","
+						+ "\"status\":200,\"durationMicros\":1834,\"handler\":\"OwnerController.showOwner\",\"remote\":\"127.0.0.1\"}",
+				"{\"time\":\"1970-01-01T00:00:00.001Z\",\"method\":\"POST\",\"path\":\"/owners/new\","
+						+ "\"status\":302,\"durationMicros\":5,\"handler\":\"none\"}");
+	}
+
+	@Test
+	void shouldEscapeStrings() {
+		AccessLog accessLog = new AccessLog(4, lines::add);
+		accessLog.log(0, "GET", null, "/owners/\"x\"\\\n\u0001", 404, 0, "none", null);
+		accessLog.drain();
+
+		assertThat(lines).singleElement().asString().contains("\"path\":\"/owners/\\\"x\\\"\\\\\\n\\u0001\"");
+	}
+
+	@Test
+	void shouldDropRequestsWhileBufferIsFull() {
+		AccessLog accessLog = new AccessLog(2, lines::add);
+		assertThat(accessLog.log(0, "GET", null, "/1", 200, 0, "none", null)).isTrue();
+		assertThat(accessLog.log(0, "GET", null, "/2", 200, 0, "none", null)).isTrue();
+		assertThat(accessLog.log(0, "GET", null, "/3", 200, 0, "none", null)).isFalse();
+		assertThat(accessLog.getDroppedCount()).isEqualTo(1);
+
+		accessLog.drain();
+		assertThat(accessLog.log(0, "GET", null, "/4", 200, 0, "none", null)).isTrue();
+		accessLog.drain();
+		assertThat(lines).hasSize(3).last().asString().contains("\"path\":\"/4\"");
+	}
+
+	@Test
+	void shouldWriteQueuedRequestsOnClose() throws Exception {
+		List<String> written = new CopyOnWriteArrayList<>();
+		AccessLog accessLog = new AccessLog(1024, written::add);
+		accessLog.start();
+		for (int i = 0; i < 100; i++) {
+			accessLog.log(0, "GET", null, "/" + i, 200, 0, "none", null);
+		}
+		accessLog.close();
+
+		assertThat(accessLog.drain()).isZero();
+		assertThat(accessLog.getDroppedCount()).isZero();
+		assertThat(written).hasSize(100).last().asString().contains("\"path\":\"/99\"");
+	}
+
+	@Test
+	void filterShouldLogRouteAndStatus() throws Exception {
+		AccessLog accessLog = new AccessLog(4, lines::add);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/owners/6");
+		MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/owners/{ownerId}");
+				resp.setStatus(404);
+			}
+
+		});
+		new AccessLogFilter(accessLog).doFilter(request, new MockHttpServletResponse(), chain);
+		accessLog.drain();
+
+		assertThat(lines).singleElement()
+			.asString()
+			.contains("\"method\":\"GET\",\"route\":\"/owners/{ownerId}\",\"path\":\"/owners/6\",\"status\":404")
+			.contains("\"handler\":\"none\",\"remote\":\"127.0.0.1\"");
+	}
+
+	@Test
+	void filterShouldLogFailedRequestsAsServerErrors() {
+		AccessLog accessLog = new AccessLog(4, lines::add);
+		MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException {
+				throw new ServletException("Expected");
+			}
+
+		});
+		assertThatExceptionOfType(ServletException.class).isThrownBy(() -> new AccessLogFilter(accessLog)
+			.doFilter(new MockHttpServletRequest("GET", "/oups"), new MockHttpServletResponse(), chain));
+		accessLog.drain();
+
+		assertThat(lines).singleElement().asString().contains("\"status\":500");
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Integration test for the flight recorder events and endpoint configured by
+ * {@link FlightRecorderConfiguration}.
+ */
+// the nested configuration of CrashControllerIntegrationTests is closer to this package
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class FlightRecorderIntegrationTests {
+
+	private static final String EVENT_PREFIX = "org.springframework.samples.petclinic.";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void shouldRecordApplicationEvents() throws Exception {
+		List<RecordedEvent> events;
+		try (Recording recording = new Recording()) {
+			recording.enable(EVENT_PREFIX + "RepositoryCall");
+			recording.enable(EVENT_PREFIX + "CacheLookup");
+			recording.enable(EVENT_PREFIX + "TemplateRender");
+			recording.enable(EVENT_PREFIX + "Validation");
+			recording.start();
+			mockMvc.perform(get("/vets")).andExpect(status().isOk());
+			mockMvc.perform(get("/vets")).andExpect(status().isOk());
+			mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+			mockMvc.perform(post("/owners/{ownerId}/pets/new", 6).param("name", "Betty")).andExpect(status().isOk());
+			recording.stop();
+			events = read(recording);
+		}
+
+		assertThat(events).anySatisfy((event) -> {
+			assertThat(event.getEventType().getName()).isEqualTo(EVENT_PREFIX + "RepositoryCall");
+			assertThat(event.getString("repository")).isEqualTo("OwnerRepository");
+			assertThat(event.getString("method")).isEqualTo("findById");
+		});
+		assertThat(events).anySatisfy((event) -> {
+			assertThat(event.getEventType().getName()).isEqualTo(EVENT_PREFIX + "CacheLookup");
+			assertThat(event.getString("cache")).isEqualTo("vets");
+			assertThat(event.getBoolean("hit")).isTrue();
+		});
+		assertThat(events).anySatisfy((event) -> {
+			assertThat(event.getEventType().getName()).isEqualTo(EVENT_PREFIX + "TemplateRender");
+			assertThat(event.getString("view")).isEqualTo("owners/ownerDetails");
+			assertThat(event.getString("path")).isEqualTo("/owners/6");
+		});
+		assertThat(events).anySatisfy((event) -> {
+			assertThat(event.getEventType().getName()).isEqualTo(EVENT_PREFIX + "Validation");
+			assertThat(event.getString("validator")).isEqualTo("PetValidator");
+			assertThat(event.getString("target")).isEqualTo("Pet");
+			assertThat(event.getInt("errors")).isEqualTo(2);
+		});
+	}
+
+	@Test
+	void shouldReturnRecordingFile() throws Exception {
+		byte[] file = mockMvc
+			.perform(post("/actuator/flightrecording").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"duration\":\"1s\",\"settings\":\"profile\"}"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+
+		Path path = Files.createTempFile("petclinic-test-", ".jfr");
+		try {
+			Files.write(path, file);
+			assertThat(RecordingFile.readAllEvents(path)).isNotEmpty();
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	void shouldRejectInvalidRequests() throws Exception {
+		mockMvc
+			.perform(post("/actuator/flightrecording").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"duration\":\"1h\"}"))
+			.andExpect(status().isBadRequest());
+		mockMvc
+			.perform(post("/actuator/flightrecording").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"settings\":\"unknown\"}"))
+			.andExpect(status().isBadRequest());
+	}
+
+	private static List<RecordedEvent> read(Recording recording) throws Exception {
+		Path path = Files.createTempFile("petclinic-test-", ".jfr");
+		try {
+			recording.dump(path);
+			return RecordingFile.readAllEvents(path);
+		}
+		finally {
+			Files.delete(path);
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+
+/**
+ * Test class for {@link ProtobufJacksonHttpMessageConverter}
+ */
+class ProtobufJacksonHttpMessageConverterTests {
+
+	private final ProtobufSchemas schemas = new ProtobufSchemas(mapper());
+
+	private final ProtobufJacksonHttpMessageConverter converter = new ProtobufJacksonHttpMessageConverter(this.schemas);
+
+	@Test
+	void shouldWriteMessageWithGeneratedSchema() throws IOException {
+		Visit visit = new Visit(3, LocalDate.of(2013, 1, 3), "neutered");
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		this.converter.write(visit, ProtobufJacksonHttpMessageConverter.PROTOBUF, output);
+
+		assertThat(output.getHeaders().getContentType()).isEqualTo(ProtobufJacksonHttpMessageConverter.PROTOBUF);
+		assertThat(output.getHeaders().getFirst("X-Protobuf-Message")).isEqualTo("Visit");
+		assertThat(output.getHeaders().getFirst("X-Protobuf-Schema")).isEqualTo("/protobuf/Visit.proto");
+		assertThat(read(output.getBodyAsBytes())).isEqualTo(visit);
+		assertThat(this.schemas.source("Visit")).hasValueSatisfying(
+				(source) -> assertThat(source).contains("message Visit {", "optional string date = 2;"));
+	}
+
+	@Test
+	void shouldWriteCollectionAsDelimitedMessages() throws IOException {
+		List<Visit> visits = List.of(new Visit(1, LocalDate.of(2013, 1, 1), "rabies shot"),
+				new Visit(4, LocalDate.of(2013, 1, 4), "x".repeat(200)));
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		this.converter.write(visits, ProtobufJacksonHttpMessageConverter.PROTOBUF, output);
+
+		assertThat(output.getHeaders().getContentType())
+			.isEqualTo(MediaType.parseMediaType("application/x-protobuf;delimited=true"));
+		assertThat(output.getHeaders().getFirst("X-Protobuf-Message")).isEqualTo("Visit");
+		List<Visit> read = new ArrayList<>();
+		InputStream body = new ByteArrayInputStream(output.getBodyAsBytes());
+		for (int length = readVarint(body); length >= 0; length = readVarint(body)) {
+			read.add(read(body.readNBytes(length)));
+		}
+		assertThat(read).isEqualTo(visits);
+	}
+
+	@Test
+	void shouldOnlyWriteStructuredTypes() {
+		assertThat(this.converter.canWrite(Visit.class, ProtobufJacksonHttpMessageConverter.PROTOBUF)).isTrue();
+		assertThat(this.converter.canWrite(String.class, ProtobufJacksonHttpMessageConverter.PROTOBUF)).isFalse();
+		assertThat(this.converter.canWrite(Visit.class, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(this.converter.canRead(Visit.class, ProtobufJacksonHttpMessageConverter.PROTOBUF)).isFalse();
+	}
+
+	private Visit read(byte[] message) throws IOException {
+		ProtobufSchema schema = this.schemas.schemaFor(Visit.class);
+		return this.schemas.getMapper().readerFor(Visit.class).with(schema).readValue(message);
+	}
+
+	private static int readVarint(InputStream input) throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = input.read();
+			if (b < 0) {
+				return -1;
+			}
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	private static ProtobufMapper mapper() {
+		ProtobufMapper mapper = new ProtobufMapper();
+		Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+			.configure(mapper);
+		return mapper;
+	}
+
+	record Visit(Integer id, LocalDate date, String description) {
+
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for {@link ProtobufSchemaController}
+ */
+@WebMvcTest(ProtobufSchemaController.class)
+class ProtobufSchemaControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void shouldServeSchemasOfResponsesBeforeAnyIsWritten() throws Exception {
+		this.mockMvc.perform(get("/protobuf/Vets.proto"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("message Vets {")));
+		this.mockMvc.perform(get("/protobuf/OwnerDetails.proto"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("message OwnerDetails {")));
+	}
+
+	@Test
+	void shouldNotFindSchemaOfUnknownMessage() throws Exception {
+		this.mockMvc.perform(get("/protobuf/Unknown.proto")).andExpect(status().isNotFound());
+	}
+
+}
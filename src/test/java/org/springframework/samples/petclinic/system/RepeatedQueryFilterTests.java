@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.ttddyy.dsproxy.QueryType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Test class for {@link RepeatedQueryFilter} and {@link QueryCounter}
+ */
+@ExtendWith(OutputCaptureExtension.class)
+class RepeatedQueryFilterTests {
+
+	private static final String SELECT_VISITS = "select v1_0.id from visits v1_0 where v1_0.pet_id=?";
+
+	@Test
+	void shouldWarnWhenStatementIsRepeatedBeyondThreshold(CapturedOutput output) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/owners/6");
+		new RepeatedQueryFilter(2).doFilter(request, new MockHttpServletResponse(), chainExecuting(3));
+
+		assertThat(output).contains("GET /owners/6 executed the same statement 3 times").contains(SELECT_VISITS);
+	}
+
+	@Test
+	void shouldNotWarnWithinThreshold(CapturedOutput output) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/owners/6");
+		new RepeatedQueryFilter(3).doFilter(request, new MockHttpServletResponse(), chainExecuting(3));
+
+		assertThat(output).doesNotContain("executed the same statement");
+	}
+
+	@Test
+	void shouldCountStatementsInNestedScopes() {
+		try (QueryCounter.Scope outer = QueryCounter.start()) {
+			QueryCounter.record(QueryType.SELECT, SELECT_VISITS);
+			try (QueryCounter.Scope inner = QueryCounter.start()) {
+				QueryCounter.record(QueryType.INSERT, "insert into visits values (?, ?, ?)");
+				assertThat(inner.getSelectCount()).isZero();
+				assertThat(inner.getInsertCount()).isEqualTo(1);
+			}
+			QueryCounter.record(QueryType.SELECT, SELECT_VISITS);
+			assertThat(outer.getSelectCount()).isEqualTo(2);
+			assertThat(outer.getTotalCount()).isEqualTo(3);
+			assertThat(outer.getStatementCounts()).containsEntry(SELECT_VISITS, 2);
+		}
+	}
+
+	private static MockFilterChain chainExecuting(int times) {
+		return new MockFilterChain(new HttpServlet() {
+
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				for (int i = 0; i < times; i++) {
+					QueryCounter.record(QueryType.SELECT, SELECT_VISITS);
+				}
+			}
+
+		});
+	}
+
+}
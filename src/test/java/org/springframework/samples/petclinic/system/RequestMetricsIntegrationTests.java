@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.PetClinicApplication;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+
+/**
+ * Integration test for the per-route request timers configured by
+ * {@link RequestMetricsConfiguration}.
+ */
+// the nested configuration of CrashControllerIntegrationTests is closer to this package
+@SpringBootTest(classes = PetClinicApplication.class)
+@AutoConfigureMockMvc
+class RequestMetricsIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void shouldTimeRequestsByRouteAndHandler() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+
+		Timer timer = registry.get("http.server.requests")
+			.tag("uri", "/owners/{ownerId}")
+			.tag("handler", "OwnerController.showOwner")
+			.tag("status", "200")
+			.timer();
+		assertThat(timer.count()).isPositive();
+		assertThat(Arrays.stream(timer.takeSnapshot().histogramCounts()).mapToDouble(CountAtBucket::bucket))
+			.contains(25e6, 100e6, 1e9);
+	}
+
+	@Test
+	void shouldTagUnhandledRequests() throws Exception {
+		mockMvc.perform(get("/resources/css/petclinic.css")).andExpect(status().isOk());
+
+		assertThat(registry.find("http.server.requests").tag("handler", HandlerObservationConvention.NONE).timers())
+			.isNotEmpty();
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link SlowQueryLog}
+ */
+class SlowQueryLogTests {
+
+	private static final RepositoryInvocation FIND_BY_ID = new RepositoryInvocation("OwnerRepository", "findById");
+
+	@Test
+	void shouldIgnoreStatementsBelowThreshold() {
+		SlowQueryLog log = new SlowQueryLog(Duration.ofMillis(100), 10);
+		log.record("select * from owners where id=?", 1, Duration.ofMillis(99), FIND_BY_ID);
+		assertThat(log.getEntries()).isEmpty();
+	}
+
+	@Test
+	void shouldRecordSlowStatementsMostRecentFirst() {
+		SlowQueryLog log = new SlowQueryLog(Duration.ofMillis(100), 2);
+		log.record("select 1", 0, Duration.ofMillis(100), FIND_BY_ID);
+		log.record("select 2", 0, Duration.ofMillis(150), FIND_BY_ID);
+		log.record("select 3", 0, Duration.ofMillis(200), FIND_BY_ID);
+
+		assertThat(log.getEntries()).extracting(SlowQueryLog.Entry::elapsedMillis).containsExactly(200L, 150L);
+		assertThat(log.getEntries().get(0).repository()).isEqualTo("OwnerRepository");
+		assertThat(log.getEntries().get(0).method()).isEqualTo("findById");
+	}
+
+	@Test
+	void shouldRedactInlinedLiterals() {
+		assertThat(
+				SlowQueryLog.redact("select o1_0.id from owners o1_0 where o1_0.telephone='6085551023' and o1_0.id=42"))
+			.isEqualTo("select o1_0.id from owners o1_0 where o1_0.telephone=? and o1_0.id=?");
+		assertThat(SlowQueryLog.redact("insert into visits values (default, 7, 'O''Brien', 1.5)"))
+			.isEqualTo("insert into visits values (default, ?, ?, ?)");
+	}
+
+}
@@ -25,12 +25,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.ProtobufJacksonHttpMessageConverter;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -97,4 +103,40 @@ class VetControllerTests {
 			.andExpect(jsonPath("$.vetList[0].id").value(1));
 	}
 
+	@Test
+	void testShowResourcesVetListAsXml() throws Exception {
+		mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_XML))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_XML))
+			.andExpect(xpath("/vets/vetList[2]/lastName").string("Leary"))
+			.andExpect(xpath("/vets/vetList[2]/specialties/name").string("radiology"));
+	}
+
+	@Test
+	void testShowResourcesVetListAsCbor() throws Exception {
+		byte[] body = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		JsonNode vets = new CBORMapper().readTree(body);
+		assertThat(vets.at("/vetList/1/specialties/0/name").asText()).isEqualTo("radiology");
+	}
+
+	@Test
+	void testShowResourcesVetListAsProtobuf() throws Exception {
+		byte[] body = mockMvc.perform(get("/vets").accept(ProtobufJacksonHttpMessageConverter.PROTOBUF))
+			.andExpect(status().isOk())
+			.andExpect(content().contentType(ProtobufJacksonHttpMessageConverter.PROTOBUF))
+			.andExpect(header().string("X-Protobuf-Message", "Vets"))
+			.andExpect(header().string("X-Protobuf-Schema", "/protobuf/Vets.proto"))
+			.andReturn()
+			.getResponse()
+			.getContentAsByteArray();
+		ProtobufMapper mapper = new ProtobufMapper();
+		JsonNode vets = mapper.readerFor(JsonNode.class).with(mapper.generateSchemaFor(Vets.class)).readValue(body);
+		assertThat(vets.at("/vetList/1/specialties/0/name").asText()).isEqualTo("radiology");
+	}
+
 }
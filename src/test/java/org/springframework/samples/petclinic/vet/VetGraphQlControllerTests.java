@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.samples.petclinic.system.QueryCounter;
+
+/**
+ * Integration test for {@link VetGraphQlController}
+ */
+@SpringBootTest
+@AutoConfigureGraphQlTester
+class VetGraphQlControllerTests {
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Test
+	void shouldReturnVetsWithSpecialtiesInTwoStatements() {
+		try (QueryCounter.Scope queries = QueryCounter.start()) {
+			this.graphQlTester.document("{ vets { lastName specialties { name } } }")
+				.execute()
+				.path("vets[*].lastName")
+				.entityList(String.class)
+				.containsExactly("Carter", "Douglas", "Jenkins", "Leary", "Ortega", "Stevens")
+				.path("vets[1].specialties[*].name")
+				.entityList(String.class)
+				.containsExactly("dentistry", "surgery");
+			assertThat(queries.getSelectCount()).isEqualTo(2);
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Test class for {@link VetsXmlHttpMessageConverter}
+ */
+class VetsXmlHttpMessageConverterTests {
+
+	@Test
+	void shouldWriteSameXmlAsJaxb() throws IOException {
+		Vets vets = new Vets();
+		vets.getVetList().add(vet(1, "James", "Carter"));
+		Vet helen = vet(2, "Helen <\"O'Leary\"> & co", "Learé  \tx]]>");
+		helen.addSpecialty(specialty(1, "radiology"));
+		helen.addSpecialty(specialty(3, "dentistry"));
+		vets.getVetList().add(helen);
+		vets.getVetList().add(vet(null, "", null));
+		vets.getVetList().add(new Vet());
+		Vet withEmptySpecialty = vet(5, "Henry", "Stevens");
+		withEmptySpecialty.addSpecialty(new Specialty());
+		vets.getVetList().add(withEmptySpecialty);
+
+		assertSameXmlAsJaxb(vets);
+	}
+
+	@Test
+	void shouldWriteSameXmlAsJaxbWithoutVets() throws IOException {
+		assertSameXmlAsJaxb(new Vets());
+	}
+
+	@Test
+	void shouldOnlyWriteVets() {
+		VetsXmlHttpMessageConverter converter = new VetsXmlHttpMessageConverter();
+		assertThat(converter.canWrite(Vets.class, MediaType.APPLICATION_XML)).isTrue();
+		assertThat(converter.canWrite(Vet.class, MediaType.APPLICATION_XML)).isFalse();
+		assertThat(converter.canWrite(Vets.class, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(converter.canRead(Vets.class, MediaType.APPLICATION_XML)).isFalse();
+	}
+
+	private static void assertSameXmlAsJaxb(Vets vets) throws IOException {
+		MockHttpOutputMessage expected = new MockHttpOutputMessage();
+		new Jaxb2RootElementHttpMessageConverter().write(vets, MediaType.APPLICATION_XML, expected);
+		MockHttpOutputMessage actual = new MockHttpOutputMessage();
+		new VetsXmlHttpMessageConverter().write(vets, MediaType.APPLICATION_XML, actual);
+
+		assertThat(actual.getHeaders().getContentType()).isEqualTo(expected.getHeaders().getContentType());
+		assertThat(actual.getBodyAsString(StandardCharsets.UTF_8))
+			.isEqualTo(expected.getBodyAsString(StandardCharsets.UTF_8));
+	}
+
+	private static Vet vet(Integer id, String firstName, String lastName) {
+		Vet vet = new Vet();
+		vet.setId(id);
+		vet.setFirstName(firstName);
+		vet.setLastName(lastName);
+		return vet;
+	}
+
+	private static Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
+}